@@ -0,0 +1,93 @@
+package io.intrepid.commonutils.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic input generators shared by the benchmarks, so that every run works on the same data.
+ */
+final class BenchmarkData {
+    private static final long SEED = 0x1D7E91DL;
+
+    private static final String ASCII_ALPHABET = "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final String NON_ASCII_ALPHABET = "\u00e9\u00fc\u00df\u00f8\u0142\u0440\u05d0\u4e2d\u6587";
+
+    private BenchmarkData() {
+    }
+
+    static Random random() {
+        return new Random(SEED);
+    }
+
+    /**
+     * Returns a list of words whose total length (without separators) is roughly the given number of characters.
+     */
+    static List<String> words(int totalLength) {
+        Random random = random();
+        List<String> words = new ArrayList<>();
+        int length = 0;
+        while (length < totalLength) {
+            String word = word(random, Math.min(totalLength - length, 3 + random.nextInt(8)));
+            words.add(word);
+            length += word.length();
+        }
+        return words;
+    }
+
+    /**
+     * Returns text of exactly the given length consisting of words separated by single spaces.
+     */
+    static String text(int length) {
+        return text(length, 0);
+    }
+
+    /**
+     * Returns text of exactly the given length. Roughly one in every {@code nonAsciiRatio} characters is a
+     * non-ASCII character; a ratio of 0 produces pure ASCII text.
+     */
+    static String text(int length, int nonAsciiRatio) {
+        Random random = random();
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            if (sb.length() > 0 && random.nextInt(7) == 0) {
+                sb.append(' ');
+            } else if (nonAsciiRatio > 0 && random.nextInt(nonAsciiRatio) == 0) {
+                sb.append(NON_ASCII_ALPHABET.charAt(random.nextInt(NON_ASCII_ALPHABET.length())));
+            } else {
+                sb.append(ASCII_ALPHABET.charAt(random.nextInt(ASCII_ALPHABET.length())));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Returns a string of roughly the given length with items separated by the separator, using the inconsistent
+     * spacing that is typical for server payloads and user input (e.g. "a, b ,c").
+     */
+    static String separatedList(int length, String separator) {
+        Random random = random();
+        StringBuilder sb = new StringBuilder(length + 16);
+        while (sb.length() < length) {
+            if (sb.length() > 0) {
+                sb.append(random.nextBoolean() ? " " : "").append(separator).append(random.nextBoolean() ? " " : "");
+            }
+            sb.append(word(random, 3 + random.nextInt(8)));
+        }
+        return sb.toString();
+    }
+
+    static byte[] bytes(int length) {
+        byte[] bytes = new byte[length];
+        random().nextBytes(bytes);
+        return bytes;
+    }
+
+    private static String word(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = ASCII_ALPHABET.charAt(random.nextInt(26));
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,64 @@
+package io.intrepid.commonutils.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.zip.CRC32;
+
+import io.intrepid.commonutils.Crc16;
+import io.intrepid.commonutils.Crc32C;
+
+/**
+ * Compares {@link Crc16} and {@link Crc32C} to a bit-by-bit CRC-16 loop and to {@link CRC32}. The size parameter is
+ * the number of input bytes.
+ */
+@State(Scope.Benchmark)
+public class ChecksumBenchmark {
+
+    @Param({ "20", "4096", "4194304" })
+    public int size;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        bytes = BenchmarkData.bytes(size);
+    }
+
+    @Benchmark
+    public int crc16Bitwise() {
+        int crc = 0xFFFF;
+        for (byte b : bytes) {
+            crc ^= (b & 0xFF) << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = ((crc & 0x8000) != 0) ? ((crc << 1) ^ 0x1021) & 0xFFFF : (crc << 1) & 0xFFFF;
+            }
+        }
+        return crc;
+    }
+
+    @Benchmark
+    public int crc16() {
+        return Crc16.compute(Crc16.Variant.CCITT_FALSE, bytes);
+    }
+
+    @Benchmark
+    public int crc16Modbus() {
+        return Crc16.compute(Crc16.Variant.MODBUS, bytes);
+    }
+
+    @Benchmark
+    public long crc32c() {
+        return Crc32C.compute(bytes);
+    }
+
+    @Benchmark
+    public long crc32() {
+        final CRC32 crc32 = new CRC32();
+        crc32.update(bytes, 0, bytes.length);
+        return crc32.getValue();
+    }
+}
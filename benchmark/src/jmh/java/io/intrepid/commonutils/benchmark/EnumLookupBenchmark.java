@@ -0,0 +1,51 @@
+package io.intrepid.commonutils.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import io.intrepid.commonutils.EnumLookup;
+
+/**
+ * Compares {@link EnumLookup} to {@link Enum#valueOf(Class, String)} for known and unknown names.
+ */
+@State(Scope.Benchmark)
+public class EnumLookupBenchmark {
+
+    public enum Status {
+        ACTIVE, INACTIVE, PENDING, SUSPENDED, DELETED, ARCHIVED, UNKNOWN
+    }
+
+    private final String knownName = new String("SUSPENDED");
+    private final String unknownName = "NEW_SERVER_STATUS";
+    private final StringBuilder knownBuilder = new StringBuilder("suspended");
+
+    @Benchmark
+    public Status valueOfKnown() {
+        return Enum.valueOf(Status.class, knownName);
+    }
+
+    @Benchmark
+    public Status valueOfUnknown() {
+        try {
+            return Enum.valueOf(Status.class, unknownName);
+        } catch (IllegalArgumentException e) {
+            return Status.UNKNOWN;
+        }
+    }
+
+    @Benchmark
+    public Status lookupKnown() {
+        return EnumLookup.of(Status.class).get(knownName);
+    }
+
+    @Benchmark
+    public Status lookupUnknown() {
+        return EnumLookup.of(Status.class).get(unknownName, Status.UNKNOWN);
+    }
+
+    @Benchmark
+    public Status lookupIgnoreCase() {
+        return EnumLookup.of(Status.class).getIgnoreCase(knownBuilder, Status.UNKNOWN);
+    }
+}
@@ -0,0 +1,53 @@
+package io.intrepid.commonutils.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import io.intrepid.commonutils.StringUtils;
+
+/**
+ * Benchmarks {@link StringUtils#toString(java.io.InputStream)} and its variants on pure ASCII and on mixed UTF-8
+ * content.
+ */
+@State(Scope.Benchmark)
+public class InputStreamBenchmark {
+
+    @Param({ "10", "1024", "65536", "1048576" })
+    public int size;
+
+    @Param({ "ascii", "utf8" })
+    public String content;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        String text = BenchmarkData.text(size, "ascii".equals(content) ? 0 : 10);
+        bytes = text.getBytes(UTF_8);
+    }
+
+    @Benchmark
+    public String toStringFromInputStream() throws IOException {
+        return StringUtils.toString(new ByteArrayInputStream(bytes));
+    }
+
+    @Benchmark
+    public String toStringFromInputStreamWithSizeHint() throws IOException {
+        return StringUtils.toString(new ByteArrayInputStream(bytes), bytes.length);
+    }
+
+    @Benchmark
+    public String toStringFromByteBuffer() {
+        return StringUtils.toString(ByteBuffer.wrap(bytes), UTF_8);
+    }
+}
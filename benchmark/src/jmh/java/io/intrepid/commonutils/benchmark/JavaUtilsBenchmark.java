@@ -0,0 +1,65 @@
+package io.intrepid.commonutils.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import io.intrepid.commonutils.HexDumpWriter;
+import io.intrepid.commonutils.JavaUtils;
+
+/**
+ * Benchmarks for {@link JavaUtils} and {@link HexDumpWriter}. The size parameter is the number of input bytes.
+ */
+@State(Scope.Benchmark)
+public class JavaUtilsBenchmark {
+
+    @Param({ "10", "1024", "65536", "1048576" })
+    public int size;
+
+    private byte[] bytes;
+    private ByteBuffer directBuffer;
+    private String hex;
+    private StringBuilder dump;
+
+    @Setup
+    public void setUp() {
+        bytes = BenchmarkData.bytes(size);
+        directBuffer = ByteBuffer.allocateDirect(size);
+        directBuffer.put(bytes).flip();
+        hex = JavaUtils.bytesToHexString(bytes);
+        dump = new StringBuilder();
+    }
+
+    @Benchmark
+    public String bytesToHexString() {
+        return JavaUtils.bytesToHexString(bytes);
+    }
+
+    @Benchmark
+    public String bytesToHexStringUpperCase() {
+        return JavaUtils.bytesToHexString(bytes, true);
+    }
+
+    @Benchmark
+    public String bytesToHexStringDirectBuffer() {
+        return JavaUtils.bytesToHexString(directBuffer, false);
+    }
+
+    @Benchmark
+    public byte[] hexToBytes() {
+        return JavaUtils.hexToBytes(hex);
+    }
+
+    @Benchmark
+    public int hexDumpStream() throws IOException {
+        dump.setLength(0);
+        HexDumpWriter.dump(new ByteArrayInputStream(bytes), dump, 0, -1);
+        return dump.length();
+    }
+}
@@ -0,0 +1,46 @@
+package io.intrepid.commonutils.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.intrepid.commonutils.StringUtils;
+
+/**
+ * Benchmarks {@link StringUtils#getLevenshteinDistance(CharSequence, CharSequence)} and its bounded variant.
+ * <p>
+ * The distance takes O(n&middot;m) time, so unlike the other benchmarks the sizes stop at 10k characters per
+ * string; a pair of 1 MB strings would take minutes per invocation.
+ */
+@State(Scope.Benchmark)
+public class LevenshteinBenchmark {
+
+    @Param({ "10", "100", "1000", "10000" })
+    public int size;
+
+    private String string1;
+    private String string2;
+
+    @Setup
+    public void setUp() {
+        string1 = BenchmarkData.text(size);
+        // A similar string: every 5th character is replaced
+        char[] chars = string1.toCharArray();
+        for (int i = 0; i < chars.length; i += 5) {
+            chars[i] = chars[i] == 'x' ? 'y' : 'x';
+        }
+        string2 = new String(chars);
+    }
+
+    @Benchmark
+    public int getLevenshteinDistance() {
+        return StringUtils.getLevenshteinDistance(string1, string2);
+    }
+
+    @Benchmark
+    public int getLevenshteinDistanceBounded() {
+        return StringUtils.getLevenshteinDistance(string1, string2, 3);
+    }
+}
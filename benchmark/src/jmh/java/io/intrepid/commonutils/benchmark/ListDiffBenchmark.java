@@ -0,0 +1,89 @@
+package io.intrepid.commonutils.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import io.intrepid.commonutils.ListDiff;
+
+/**
+ * Benchmarks {@link ListDiff} on a refreshed list of 10k items. The edits parameter is the number of removed,
+ * inserted, moved and changed items each.
+ */
+@State(Scope.Benchmark)
+public class ListDiffBenchmark {
+
+    private static final int SIZE = 10000;
+
+    private static final ListDiff.ItemCallback<long[]> CALLBACK = new ListDiff.ItemCallback<long[]>() {
+        @Override
+        public boolean areItemsTheSame(long[] oldItem, long[] newItem) {
+            return oldItem[0] == newItem[0];
+        }
+
+        @Override
+        public boolean areContentsTheSame(long[] oldItem, long[] newItem) {
+            return oldItem[1] == newItem[1];
+        }
+    };
+
+    private static final ListDiff.UpdateListener NO_OP_LISTENER = new ListDiff.UpdateListener() {
+        @Override
+        public void onInserted(int position, int count) {
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+        }
+    };
+
+    @Param({ "0", "10", "100" })
+    public int edits;
+
+    // Items are (id, version) pairs
+    private List<long[]> oldList;
+    private List<long[]> newList;
+
+    @Setup
+    public void setUp() {
+        final Random random = BenchmarkData.random();
+        oldList = new ArrayList<>(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            oldList.add(new long[] { i, 0 });
+        }
+        newList = new ArrayList<>(oldList);
+        for (int i = 0; i < edits; i++) {
+            newList.remove(random.nextInt(newList.size()));
+            newList.add(random.nextInt(newList.size()), new long[] { SIZE + i, 0 });
+            newList.add(random.nextInt(newList.size()), newList.remove(random.nextInt(newList.size())));
+            final int changed = random.nextInt(newList.size());
+            newList.set(changed, new long[] { newList.get(changed)[0], 1 });
+        }
+    }
+
+    @Benchmark
+    public ListDiff compute() {
+        return ListDiff.compute(oldList, newList, CALLBACK);
+    }
+
+    @Benchmark
+    public ListDiff computeAndDispatch() {
+        final ListDiff diff = ListDiff.compute(oldList, newList, CALLBACK);
+        diff.dispatchUpdatesTo(NO_OP_LISTENER);
+        return diff;
+    }
+}
@@ -0,0 +1,72 @@
+package io.intrepid.commonutils.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import io.intrepid.commonutils.JavaUtils;
+import io.intrepid.commonutils.PacketReader;
+import io.intrepid.commonutils.PacketWriter;
+
+/**
+ * Compares decoding frames of mixed fields with {@link PacketReader} to shift-and-or code around
+ * {@link JavaUtils#byteToUnsignedInt(byte)}, and measures encoding them with {@link PacketWriter}. The count parameter
+ * is the number of frames in the input.
+ */
+@State(Scope.Benchmark)
+public class PacketReaderBenchmark {
+
+    // u8 type, u16 length, u24 id, u32 timestamp
+    private static final int FRAME_SIZE = 10;
+
+    @Param({ "1", "1000" })
+    public int count;
+
+    private byte[] frames;
+    private PacketWriter writer;
+
+    @Setup
+    public void setUp() {
+        frames = BenchmarkData.bytes(count * FRAME_SIZE);
+        writer = new PacketWriter(frames.length);
+    }
+
+    @Benchmark
+    public long readByHand() {
+        long sum = 0;
+        for (int i = 0; i < frames.length; i += FRAME_SIZE) {
+            sum += JavaUtils.byteToUnsignedInt(frames[i]);
+            sum += (JavaUtils.byteToUnsignedInt(frames[i + 1]) << 8) | JavaUtils.byteToUnsignedInt(frames[i + 2]);
+            sum += (JavaUtils.byteToUnsignedInt(frames[i + 3]) << 16)
+                    | (JavaUtils.byteToUnsignedInt(frames[i + 4]) << 8) | JavaUtils.byteToUnsignedInt(frames[i + 5]);
+            sum += ((long) JavaUtils.byteToUnsignedInt(frames[i + 6]) << 24)
+                    | (JavaUtils.byteToUnsignedInt(frames[i + 7]) << 16)
+                    | (JavaUtils.byteToUnsignedInt(frames[i + 8]) << 8) | JavaUtils.byteToUnsignedInt(frames[i + 9]);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long readWithReader() {
+        final PacketReader reader = new PacketReader(frames);
+        long sum = 0;
+        while (reader.hasRemaining()) {
+            sum += reader.readU8();
+            sum += reader.readU16();
+            sum += reader.readU24();
+            sum += reader.readU32();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int writeWithWriter() {
+        writer.reset();
+        for (int i = 0; i < count; i++) {
+            writer.writeU8(i).writeU16(FRAME_SIZE).writeU24(i * 31).writeU32(i * 1000003L);
+        }
+        return writer.position();
+    }
+}
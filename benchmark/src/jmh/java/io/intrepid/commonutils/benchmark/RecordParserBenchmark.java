@@ -0,0 +1,74 @@
+package io.intrepid.commonutils.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+import java.util.Random;
+
+import io.intrepid.commonutils.RecordParser;
+import io.intrepid.commonutils.StringUtils;
+
+/**
+ * Compares streaming {@link RecordParser} to reading the whole input and splitting it line by line.
+ * The size parameter is the approximate number of bytes of the CSV input.
+ */
+@State(Scope.Benchmark)
+public class RecordParserBenchmark {
+
+    @Param({ "1024", "65536", "1048576" })
+    public int size;
+
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        Random random = BenchmarkData.random();
+        List<String> words = BenchmarkData.words(size);
+        StringBuilder sb = new StringBuilder(size + size / 4);
+        int column = 0;
+        for (String word : words) {
+            if (column > 0) {
+                sb.append(',');
+            }
+            if (random.nextInt(10) == 0) {
+                sb.append('"').append(word).append(", \"\"").append(word).append("\"\"\"");
+            } else {
+                sb.append(word);
+            }
+            if (++column == 8) {
+                sb.append("\r\n");
+                column = 0;
+            }
+        }
+        bytes = sb.toString().getBytes(Charset.forName("UTF-8"));
+    }
+
+    @Benchmark
+    public long parseStream() throws IOException {
+        final long[] length = new long[1];
+        RecordParser.csv().parse(new ByteArrayInputStream(bytes), new RecordParser.RecordHandler() {
+            @Override
+            public boolean onRecord(RecordParser.Record record) {
+                length[0] += record.getFieldCount();
+                return true;
+            }
+        });
+        return length[0];
+    }
+
+    @Benchmark
+    public long readFullyAndSplit() throws IOException {
+        long length = 0;
+        for (String line : StringUtils.toString(new ByteArrayInputStream(bytes)).split("\r\n")) {
+            length += StringUtils.parseSeparatedArray(line, ",").length;
+        }
+        return length;
+    }
+}
@@ -0,0 +1,80 @@
+package io.intrepid.commonutils.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import io.intrepid.commonutils.SortKey;
+import io.intrepid.commonutils.StringUtils;
+
+/**
+ * Compares sorting by {@link SortKey} to sorting with {@link StringUtils#compare(CharSequence, CharSequence)}.
+ * The size parameter is the number of items.
+ */
+@State(Scope.Benchmark)
+public class SortKeyBenchmark {
+    private static final Comparator<CharSequence> COMPARE = new Comparator<CharSequence>() {
+        @Override
+        public int compare(CharSequence cs1, CharSequence cs2) {
+            return StringUtils.compare(cs1, cs2);
+        }
+    };
+
+    @Param({ "1000", "100000" })
+    public int size;
+
+    private List<CharSequence> items;
+    private List<String> strings;
+    private SortKey.Cache cache;
+
+    @Setup
+    public void setUp() {
+        items = new ArrayList<>();
+        for (String word : BenchmarkData.words(size * 8)) {
+            items.add(new StringBuilder("item ").append(word));
+            if (items.size() == size) {
+                break;
+            }
+        }
+        strings = new ArrayList<>(items.size());
+        for (CharSequence item : items) {
+            strings.add(item.toString());
+        }
+        cache = new SortKey.Cache(0);
+    }
+
+    @Benchmark
+    public List<CharSequence> sortWithCompare() {
+        List<CharSequence> list = new ArrayList<>(items);
+        Collections.sort(list, COMPARE);
+        return list;
+    }
+
+    @Benchmark
+    public List<CharSequence> sortByKey() {
+        List<CharSequence> list = new ArrayList<>(items);
+        SortKey.sort(list, 0, null);
+        return list;
+    }
+
+    @Benchmark
+    public List<CharSequence> sortByKeyParallel() {
+        List<CharSequence> list = new ArrayList<>(items);
+        SortKey.sort(list, 0);
+        return list;
+    }
+
+    @Benchmark
+    public List<String> resortByCachedKey() {
+        List<String> list = new ArrayList<>(strings);
+        SortKey.sort(list, cache, null);
+        return list;
+    }
+}
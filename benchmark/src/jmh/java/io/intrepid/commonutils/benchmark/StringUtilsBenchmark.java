@@ -0,0 +1,131 @@
+package io.intrepid.commonutils.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+
+import io.intrepid.commonutils.StringUtils;
+
+/**
+ * Benchmarks for the {@link StringUtils} methods that are called from list-binding and sync loops.
+ * The size parameter is the approximate number of characters of the input.
+ */
+@State(Scope.Benchmark)
+public class StringUtilsBenchmark {
+
+    @Param({ "10", "1024", "65536", "1048576" })
+    public int size;
+
+    private List<String> words;
+    private CharSequence[] wordArray;
+    private String separatedList;
+    private int[] separatedOffsets;
+    private String paddedText;
+    private String text;
+    private String textCopy;
+    private StringBuilder textBuilder;
+    private StringBuilder textBuilderCopy;
+    private StringBuilder appendBuilder;
+    private String needle;
+
+    @Setup
+    public void setUp() {
+        words = BenchmarkData.words(size);
+        wordArray = words.toArray(new CharSequence[words.size()]);
+        separatedList = BenchmarkData.separatedList(size, "|");
+        separatedOffsets = new int[2 * StringUtils.getSeparatedOffsets(separatedList, "|", new int[0])];
+        text = BenchmarkData.text(size);
+        paddedText = "  \n\t " + text + " \t\n  ";
+        // Equal contents but different instances, so the comparisons have to walk the whole input
+        textCopy = new String(text.toCharArray());
+        textBuilder = new StringBuilder(text);
+        textBuilderCopy = new StringBuilder(text);
+        appendBuilder = new StringBuilder();
+        // Not in the text, so the searches have to walk the whole input
+        needle = "zyzzyva";
+    }
+
+    @Benchmark
+    public String join() {
+        return StringUtils.join(", ", words);
+    }
+
+    @Benchmark
+    public CharSequence separateItemsWithArray() {
+        return StringUtils.separateItemsWith(", ", wordArray);
+    }
+
+    @Benchmark
+    public CharSequence separateItemsWithList() {
+        return StringUtils.separateItemsWith(", ", words);
+    }
+
+    @Benchmark
+    public StringBuilder appendSeparatedItems() {
+        appendBuilder.setLength(0);
+        return StringUtils.appendSeparatedItems(appendBuilder, ", ", words);
+    }
+
+    @Benchmark
+    public String[] parseSeparatedArray() {
+        return StringUtils.parseSeparatedArray(separatedList, "|");
+    }
+
+    @Benchmark
+    public int getSeparatedOffsets() {
+        return StringUtils.getSeparatedOffsets(separatedList, "|", separatedOffsets);
+    }
+
+    @Benchmark
+    public int iterateSeparatedList() {
+        int length = 0;
+        for (CharSequence element : StringUtils.iterateSeparatedList(separatedList, "|")) {
+            length += element.length();
+        }
+        return length;
+    }
+
+    @Benchmark
+    public String stripSurroundingWhiteSpace() {
+        return StringUtils.stripSurroundingWhiteSpace(paddedText);
+    }
+
+    @Benchmark
+    public int compareStrings() {
+        return StringUtils.compare(text, textCopy);
+    }
+
+    @Benchmark
+    public int compareCharSequences() {
+        return StringUtils.compare(textBuilder, textBuilderCopy);
+    }
+
+    @Benchmark
+    public boolean equalsCharSequences() {
+        return StringUtils.equals(textBuilder, textBuilderCopy);
+    }
+
+    @Benchmark
+    public int indexOfCharInCharSequence() {
+        return StringUtils.indexOf(textBuilder, '\u0000', 0);
+    }
+
+    @Benchmark
+    public int indexOfStringInCharSequence() {
+        return StringUtils.indexOf(textBuilder, needle);
+    }
+
+    @Benchmark
+    public int indexOfAnyInCharSequence() {
+        return StringUtils.indexOfAny(textBuilder, "<>{}", 0);
+    }
+
+    @Benchmark
+    public String[] parseSeparatedArrayWithoutSeparator() {
+        return StringUtils.parseSeparatedArray(separatedList, "");
+    }
+}
@@ -0,0 +1,25 @@
+package io.intrepid.commonutils;
+
+import android.text.GetChars;
+
+/**
+ * The bulk copy of {@link GetChars}, which SpannableStringBuilder, SpannedString and the other framework text classes
+ * implement. It is kept out of the platform independent classes so that they can be compiled without the Android
+ * framework, and is loaded by {@link StringUtils} when the framework is present.
+ */
+final class AndroidGetChars implements StringUtils.PlatformGetChars {
+
+    @Override
+    public boolean supports(CharSequence s) {
+        return s instanceof GetChars;
+    }
+
+    @Override
+    public boolean getChars(CharSequence s, int start, int end, char[] dest, int destPos) {
+        if (!(s instanceof GetChars)) {
+            return false;
+        }
+        ((GetChars) s).getChars(start, end, dest, destPos);
+        return true;
+    }
+}
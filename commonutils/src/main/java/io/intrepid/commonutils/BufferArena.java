@@ -0,0 +1,481 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+
+import java.io.Closeable;
+import java.lang.ref.SoftReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pools of temporary buffers ({@code char[]}, {@code byte[]} and {@link StringBuilder}), so that methods that need
+ * a scratch buffer don't have to allocate one on every call.
+ * <p>
+ * A buffer is leased with one of the acquire methods and must be given back by closing the lease, after which
+ * neither the lease nor its buffer may be used anymore:
+ * <pre>{@code
+ * final BufferArena.CharArrayLease lease = BufferArena.acquireChars(length);
+ * try {
+ *     final char[] chars = lease.array();
+ *     ...
+ * } finally {
+ *     lease.close();
+ * }
+ * }</pre>
+ * (or a try-with-resources statement from API level 19 on).
+ * <p>
+ * Buffers are pooled per thread in size classes that are powers of two, from {@value #MIN_BYTES} to
+ * {@value #MAX_BYTES} bytes (so a {@code char[]} of up to 8192 chars is pooled, and a {@code byte[]} of up to 16384
+ * bytes); larger buffers are allocated and dropped as needed. The buffers that a thread keeps are limited to
+ * {@value #MAX_THREAD_BYTES} bytes, which holds a full decoding chunk of bytes together with its chars. When all
+ * threads together keep more than {@value #MAX_TOTAL_BYTES} bytes, or when {@link #evictAll()} is called, the pools
+ * of all threads are dropped at once, including those of threads that don't use the arena anymore. The pools are
+ * also softly reachable, so the garbage collector can drop them when memory runs low.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public final class BufferArena {
+    static final int MIN_BYTES = 512;
+    static final int MAX_BYTES = 16 * 1024;
+    static final int MAX_THREAD_BYTES = 32 * 1024;
+    static final int MAX_TOTAL_BYTES = 4 * 1024 * 1024;
+
+    private static final int MIN_BYTES_SHIFT = Integer.numberOfTrailingZeros(MIN_BYTES);
+    private static final int SIZE_CLASSES = Integer.numberOfTrailingZeros(MAX_BYTES) - MIN_BYTES_SHIFT + 1;
+    private static final int SLOTS_PER_CLASS = 4;
+
+    private static final int KIND_CHARS = 0;
+    private static final int KIND_BYTES = 1;
+    private static final int KIND_BUILDER = 2;
+    private static final int KINDS = 3;
+
+    private static final AtomicInteger EPOCH = new AtomicInteger();
+    private static final AtomicLong POOLED_BYTES = new AtomicLong();
+    private static final AtomicLong HIGH_WATER_BYTES = new AtomicLong();
+    private static final AtomicLong HITS = new AtomicLong();
+    private static final AtomicLong MISSES = new AtomicLong();
+    private static final AtomicLong EVICTIONS = new AtomicLong();
+
+    // The pools of all live threads, so that evictAll() can reach them; guarded by itself
+    private static final Map<Pool, Boolean> POOLS = new WeakHashMap<>();
+
+    private static final ThreadLocal<Pool> LOCAL_POOL = new ThreadLocal<Pool>() {
+        @Override
+        protected Pool initialValue() {
+            final Pool pool = new Pool();
+            synchronized (POOLS) {
+                POOLS.put(pool, Boolean.TRUE);
+            }
+            return pool;
+        }
+    };
+
+    private BufferArena() {
+    }
+
+    /**
+     * @param minLength The minimum length of the array.
+     * @return A lease of a char array of at least the given length. Its contents are undefined.
+     */
+    @NonNull
+    public static CharArrayLease acquireChars(int minLength) {
+        final char[] array = (char[]) acquire(KIND_CHARS, minLength);
+        return new CharArrayLease((array != null) ? array : new char[allocationSize(KIND_CHARS, minLength)]);
+    }
+
+    /**
+     * @param minLength The minimum length of the array.
+     * @return A lease of a byte array of at least the given length. Its contents are undefined.
+     */
+    @NonNull
+    public static ByteArrayLease acquireBytes(int minLength) {
+        final byte[] array = (byte[]) acquire(KIND_BYTES, minLength);
+        return new ByteArrayLease((array != null) ? array : new byte[allocationSize(KIND_BYTES, minLength)]);
+    }
+
+    /**
+     * @param minCapacity The minimum capacity of the builder.
+     * @return A lease of an empty StringBuilder with at least the given capacity.
+     */
+    @NonNull
+    public static StringBuilderLease acquireBuilder(int minCapacity) {
+        final StringBuilder builder = (StringBuilder) acquire(KIND_BUILDER, minCapacity);
+        if (builder != null) {
+            builder.setLength(0);
+            return new StringBuilderLease(builder);
+        }
+        return new StringBuilderLease(new StringBuilder(allocationSize(KIND_BUILDER, minCapacity)));
+    }
+
+    /**
+     * Drops the pooled buffers of all threads, e.g. when the app is asked to trim its memory. The buffers can be
+     * garbage collected right away, also those of threads that are idle.
+     */
+    public static void evictAll() {
+        EPOCH.incrementAndGet();
+        POOLED_BYTES.set(0);
+        EVICTIONS.incrementAndGet();
+        synchronized (POOLS) {
+            for (Pool pool : POOLS.keySet()) {
+                pool.clear();
+            }
+        }
+    }
+
+    /**
+     * @return A snapshot of the counters of the arena.
+     */
+    @NonNull
+    public static Stats getStats() {
+        // The total can briefly drop below zero when a thread gives back a buffer while the pools are evicted
+        return new Stats(HITS.get(), MISSES.get(), EVICTIONS.get(), Math.max(0, POOLED_BYTES.get()),
+                         HIGH_WATER_BYTES.get());
+    }
+
+    /**
+     * @return A pooled buffer, or null if a new buffer has to be allocated.
+     */
+    private static Object acquire(int kind, int minLength) {
+        if (minLength < 0) {
+            throw new IllegalArgumentException("minLength must not be negative: " + minLength);
+        }
+
+        final int sizeClass = sizeClassOf(kind, minLength);
+        if (sizeClass < 0) {
+            MISSES.incrementAndGet();
+            return null;
+        }
+
+        final Object buffer = LOCAL_POOL.get().take(kind, sizeClass);
+        if (buffer == null) {
+            MISSES.incrementAndGet();
+            return null;
+        }
+        HITS.incrementAndGet();
+        return buffer;
+    }
+
+    private static void release(Lease lease) {
+        final int bytes = lease.bytes();
+        if (bytes < MIN_BYTES || bytes > MAX_BYTES) {
+            return;
+        }
+        // A builder may have grown past its size class, so it goes back into the class that it fills completely.
+        final int sizeClass = 31 - Integer.numberOfLeadingZeros(bytes) - MIN_BYTES_SHIFT;
+        LOCAL_POOL.get().put(lease, sizeClass);
+    }
+
+    /**
+     * @return The number of bytes per element, as a shift.
+     */
+    private static int elementShift(int kind) {
+        return (kind == KIND_BYTES) ? 0 : 1;
+    }
+
+    /**
+     * @return The smallest size class that holds the given number of elements, or -1 if such buffers aren't pooled.
+     */
+    private static int sizeClassOf(int kind, int length) {
+        final int shift = elementShift(kind);
+        if (length > MAX_BYTES >> shift) {
+            return -1;
+        }
+        final int bytes = length << shift;
+        if (bytes <= MIN_BYTES) {
+            return 0;
+        }
+        return 32 - Integer.numberOfLeadingZeros(bytes - 1) - MIN_BYTES_SHIFT;
+    }
+
+    private static int allocationSize(int kind, int length) {
+        final int sizeClass = sizeClassOf(kind, length);
+        return (sizeClass < 0) ? length : (MIN_BYTES << sizeClass) >> elementShift(kind);
+    }
+
+    /**
+     * Adds bytes to the global total.
+     *
+     * @return False if that would exceed the global limit, in which case all pools are evicted instead.
+     */
+    private static boolean reserveGlobal(int bytes) {
+        final long total = POOLED_BYTES.addAndGet(bytes);
+        if (total > MAX_TOTAL_BYTES) {
+            evictAll();
+            return false;
+        }
+
+        long highWater;
+        while (total > (highWater = HIGH_WATER_BYTES.get())) {
+            if (HIGH_WATER_BYTES.compareAndSet(highWater, total)) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The buffers that are pooled by one thread. Only the owning thread takes and puts buffers; other threads only
+     * clear the pool.
+     */
+    private static final class Pool {
+        // Replaced by the owning thread, cleared by evictAll() or by the garbage collector
+        private volatile SoftReference<Slots> slotsRef = new SoftReference<>(null);
+        private int bytes;
+        private int epoch = EPOCH.get();
+
+        Object take(int kind, int sizeClass) {
+            final Slots slots = slots();
+            final int idx = kind * SIZE_CLASSES + sizeClass;
+            final int count = slots.freeCounts[idx];
+            if (count == 0) {
+                return null;
+            }
+
+            final Object buffer = slots.free[idx][count - 1];
+            slots.free[idx][count - 1] = null;
+            slots.freeCounts[idx] = count - 1;
+
+            final int bufferBytes = bytesOf(kind, buffer);
+            bytes -= bufferBytes;
+            POOLED_BYTES.addAndGet(-bufferBytes);
+            return buffer;
+        }
+
+        void put(Lease lease, int sizeClass) {
+            final Slots slots = slots();
+            final int idx = lease.kind * SIZE_CLASSES + sizeClass;
+            final int count = slots.freeCounts[idx];
+            final int leaseBytes = lease.bytes();
+            if (count == SLOTS_PER_CLASS || bytes + leaseBytes > MAX_THREAD_BYTES || !reserveGlobal(leaseBytes)) {
+                return;
+            }
+
+            slots.free[idx][count] = lease.buffer();
+            slots.freeCounts[idx] = count + 1;
+            bytes += leaseBytes;
+        }
+
+        /**
+         * Called from any thread.
+         */
+        void clear() {
+            slotsRef.clear();
+        }
+
+        private Slots slots() {
+            final int currentEpoch = EPOCH.get();
+            Slots slots = slotsRef.get();
+            if (epoch != currentEpoch) {
+                // The global total has been reset already
+                epoch = currentEpoch;
+                bytes = 0;
+                slots = null;
+            } else if (slots == null && bytes > 0) {
+                // The garbage collector has dropped the pool
+                POOLED_BYTES.addAndGet(-bytes);
+                bytes = 0;
+            }
+
+            if (slots == null) {
+                slots = new Slots();
+                slotsRef = new SoftReference<>(slots);
+            }
+            return slots;
+        }
+
+        private static int bytesOf(int kind, Object buffer) {
+            switch (kind) {
+                case KIND_CHARS:
+                    return ((char[]) buffer).length * 2;
+                case KIND_BYTES:
+                    return ((byte[]) buffer).length;
+                default:
+                    return ((StringBuilder) buffer).capacity() * 2;
+            }
+        }
+    }
+
+    /**
+     * The free buffers of a pool, by kind and size class.
+     */
+    private static final class Slots {
+        final Object[][] free = new Object[KINDS * SIZE_CLASSES][SLOTS_PER_CLASS];
+        final int[] freeCounts = new int[KINDS * SIZE_CLASSES];
+    }
+
+    /**
+     * A leased buffer, which is given back to the arena when the lease is closed. Every acquire returns a new lease,
+     * so closing a lease more than once has no effect, even when its buffer has been leased again since.
+     */
+    public abstract static class Lease implements Closeable {
+        final int kind;
+        private boolean open = true;
+
+        Lease(int kind) {
+            this.kind = kind;
+        }
+
+        @Override
+        public final void close() {
+            if (open) {
+                open = false;
+                release(this);
+            }
+        }
+
+        abstract Object buffer();
+
+        abstract int bytes();
+    }
+
+    /**
+     * A leased char array.
+     */
+    public static final class CharArrayLease extends Lease {
+        private final char[] array;
+
+        CharArrayLease(char[] array) {
+            super(KIND_CHARS);
+            this.array = array;
+        }
+
+        /**
+         * @return The char array, which is at least as long as requested.
+         */
+        @NonNull
+        public char[] array() {
+            return array;
+        }
+
+        @Override
+        Object buffer() {
+            return array;
+        }
+
+        @Override
+        int bytes() {
+            return array.length * 2;
+        }
+    }
+
+    /**
+     * A leased byte array.
+     */
+    public static final class ByteArrayLease extends Lease {
+        private final byte[] array;
+
+        ByteArrayLease(byte[] array) {
+            super(KIND_BYTES);
+            this.array = array;
+        }
+
+        /**
+         * @return The byte array, which is at least as long as requested.
+         */
+        @NonNull
+        public byte[] array() {
+            return array;
+        }
+
+        @Override
+        Object buffer() {
+            return array;
+        }
+
+        @Override
+        int bytes() {
+            return array.length;
+        }
+    }
+
+    /**
+     * A leased StringBuilder.
+     */
+    public static final class StringBuilderLease extends Lease {
+        private final StringBuilder builder;
+
+        StringBuilderLease(StringBuilder builder) {
+            super(KIND_BUILDER);
+            this.builder = builder;
+        }
+
+        /**
+         * @return The builder, which is empty when it's leased.
+         */
+        @NonNull
+        public StringBuilder builder() {
+            return builder;
+        }
+
+        @Override
+        Object buffer() {
+            return builder;
+        }
+
+        @Override
+        int bytes() {
+            return builder.capacity() * 2;
+        }
+    }
+
+    /**
+     * The counters of the arena.
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long pooledBytes;
+        private final long highWaterBytes;
+
+        Stats(long hits, long misses, long evictions, long pooledBytes, long highWaterBytes) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.pooledBytes = pooledBytes;
+            this.highWaterBytes = highWaterBytes;
+        }
+
+        /**
+         * @return The number of leases that were served from a pool.
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * @return The number of leases for which a new buffer had to be allocated.
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return The number of times that all pools were evicted.
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * @return The approximate number of bytes held by the pools of all threads.
+         */
+        public long getPooledBytes() {
+            return pooledBytes;
+        }
+
+        /**
+         * @return The highest value of {@link #getPooledBytes()} so far.
+         */
+        public long getHighWaterBytes() {
+            return highWaterBytes;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", pooledBytes="
+                    + pooledBytes + ", highWaterBytes=" + highWaterBytes + '}';
+        }
+    }
+}
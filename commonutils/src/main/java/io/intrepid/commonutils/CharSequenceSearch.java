@@ -0,0 +1,234 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Compares and searches CharSequences a block at a time.
+ * <p>
+ * Calling {@link CharSequence#charAt(int)} through the interface for every character is what makes scanning a
+ * {@code android.text.SpannableStringBuilder}, {@link StringBuilder} or {@link CharBuffer} slow. The types that can
+ * copy a range of characters at once are copied into blocks of a pooled array with
+ * {@link StringUtils#getChars(CharSequence, int, int, char[], int)} instead, and the blocks are scanned as plain
+ * arrays. Short sequences and other types are still scanned with {@link CharSequence#charAt(int)}.
+ */
+final class CharSequenceSearch {
+    /**
+     * Below this length, the overhead of leasing and copying a block is larger than what it saves.
+     */
+    static final int BULK_MIN_LENGTH = 16;
+    static final int BLOCK_SIZE = 256;
+
+    private static final int SHIFT_TABLE_SIZE = 256;
+
+    private static final ThreadLocal<int[]> LOCAL_SHIFTS = new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+            return new int[SHIFT_TABLE_SIZE];
+        }
+    };
+
+    private CharSequenceSearch() {
+    }
+
+    /**
+     * @return True if the CharSequence has a bulk implementation of getChars().
+     */
+    static boolean hasBulkGetChars(CharSequence s) {
+        return s instanceof String || s instanceof StringBuilder || s instanceof StringBuffer
+                || s instanceof CharBuffer || s instanceof MappedText || s instanceof Rope
+                || (StringUtils.PLATFORM_GET_CHARS != null && StringUtils.PLATFORM_GET_CHARS.supports(s));
+    }
+
+    /**
+     * @return The first index below length at which the characters differ, or -1 if they don't.
+     */
+    static int mismatch(@NonNull CharSequence a, @NonNull CharSequence b, int length) {
+        if (length < BULK_MIN_LENGTH || !(hasBulkGetChars(a) || hasBulkGetChars(b))) {
+            for (int i = 0; i < length; i++) {
+                if (a.charAt(i) != b.charAt(i)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        final BufferArena.CharArrayLease lease = BufferArena.acquireChars(2 * BLOCK_SIZE);
+        try {
+            final char[] chars = lease.array();
+            for (int blockStart = 0; blockStart < length; blockStart += BLOCK_SIZE) {
+                final int blockLength = Math.min(BLOCK_SIZE, length - blockStart);
+                StringUtils.getChars(a, blockStart, blockStart + blockLength, chars, 0);
+                StringUtils.getChars(b, blockStart, blockStart + blockLength, chars, BLOCK_SIZE);
+                for (int i = 0; i < blockLength; i++) {
+                    if (chars[i] != chars[BLOCK_SIZE + i]) {
+                        return blockStart + i;
+                    }
+                }
+            }
+            return -1;
+        } finally {
+            lease.close();
+        }
+    }
+
+    /**
+     * @return The first index on or after start of the character, or -1 if not found.
+     */
+    static int indexOf(@NonNull CharSequence s, char c, int start) {
+        final int length = s.length();
+        if (length - start < BULK_MIN_LENGTH || !hasBulkGetChars(s)) {
+            for (int i = start; i < length; i++) {
+                if (s.charAt(i) == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        final BufferArena.CharArrayLease lease = BufferArena.acquireChars(BLOCK_SIZE);
+        try {
+            final char[] chars = lease.array();
+            for (int blockStart = start; blockStart < length; blockStart += BLOCK_SIZE) {
+                final int blockLength = Math.min(BLOCK_SIZE, length - blockStart);
+                StringUtils.getChars(s, blockStart, blockStart + blockLength, chars, 0);
+                for (int i = 0; i < blockLength; i++) {
+                    if (chars[i] == c) {
+                        return blockStart + i;
+                    }
+                }
+            }
+            return -1;
+        } finally {
+            lease.close();
+        }
+    }
+
+    /**
+     * Boyer-Moore-Horspool search, with a shift table indexed by the low byte of the characters. Characters that
+     * share a low byte share the smallest shift, which keeps the table small without skipping a match.
+     *
+     * @param target At least two characters, no more than {@code s.length() - start}.
+     * @return The first index on or after start of the target, or -1 if not found.
+     */
+    static int indexOf(@NonNull CharSequence s, @NonNull CharSequence target, int start) {
+        final int length = s.length();
+        final int targetLength = target.length();
+
+        // A nested search (e.g. from the getChars() of a custom CharSequence) gets its own table
+        final int[] shifts = LOCAL_SHIFTS.get();
+        LOCAL_SHIFTS.remove();
+        final BufferArena.CharArrayLease targetLease = BufferArena.acquireChars(targetLength);
+        final BufferArena.CharArrayLease windowLease = BufferArena.acquireChars(Math.max(4 * BLOCK_SIZE,
+                                                                                         2 * targetLength));
+        try {
+            final char[] pattern = targetLease.array();
+            StringUtils.getChars(target, 0, targetLength, pattern, 0);
+            final int lastIndex = targetLength - 1;
+            final char last = pattern[lastIndex];
+
+            Arrays.fill(shifts, targetLength);
+            for (int i = 0; i < lastIndex; i++) {
+                shifts[pattern[i] & 0xFF] = lastIndex - i;
+            }
+
+            // Each window starts at the first candidate that didn't fit in the previous one
+            final char[] window = windowLease.array();
+            int windowStart = start;
+            while (length - windowStart >= targetLength) {
+                final int windowLength = Math.min(window.length, length - windowStart);
+                StringUtils.getChars(s, windowStart, windowStart + windowLength, window, 0);
+
+                final int lastCandidate = windowLength - targetLength;
+                int candidate = 0;
+                while (candidate <= lastCandidate) {
+                    final char c = window[candidate + lastIndex];
+                    if (c == last) {
+                        int i = lastIndex - 1;
+                        while (i >= 0 && window[candidate + i] == pattern[i]) {
+                            i--;
+                        }
+                        if (i < 0) {
+                            return windowStart + candidate;
+                        }
+                    }
+                    candidate += shifts[c & 0xFF];
+                }
+                windowStart += candidate;
+            }
+            return -1;
+        } finally {
+            windowLease.close();
+            targetLease.close();
+            LOCAL_SHIFTS.set(shifts);
+        }
+    }
+
+    /**
+     * @param mask A bit for each character to look for, indexed like {@link BitSet#get(int)}.
+     * @return The first index on or after start of one of the characters, or -1 if not found.
+     */
+    static int indexOfAny(@NonNull CharSequence s, @NonNull long[] mask, int start) {
+        final int length = s.length();
+        final int limit = mask.length << 6;
+        final BufferArena.CharArrayLease lease = BufferArena.acquireChars(BLOCK_SIZE);
+        try {
+            final char[] chars = lease.array();
+            for (int blockStart = start; blockStart < length; blockStart += BLOCK_SIZE) {
+                final int blockLength = Math.min(BLOCK_SIZE, length - blockStart);
+                StringUtils.getChars(s, blockStart, blockStart + blockLength, chars, 0);
+                for (int i = 0; i < blockLength; i++) {
+                    final char c = chars[i];
+                    if (c < limit && (mask[c >>> 6] & (1L << c)) != 0) {
+                        return blockStart + i;
+                    }
+                }
+            }
+            return -1;
+        } finally {
+            lease.close();
+        }
+    }
+
+    /**
+     * @return The first index on or after start of one of the characters in the set, or -1 if not found.
+     */
+    static int indexOfAny(@NonNull CharSequence s, @NonNull BitSet chars, int start) {
+        final int length = s.length();
+        final BufferArena.CharArrayLease lease = BufferArena.acquireChars(BLOCK_SIZE);
+        try {
+            final char[] block = lease.array();
+            for (int blockStart = start; blockStart < length; blockStart += BLOCK_SIZE) {
+                final int blockLength = Math.min(BLOCK_SIZE, length - blockStart);
+                StringUtils.getChars(s, blockStart, blockStart + blockLength, block, 0);
+                for (int i = 0; i < blockLength; i++) {
+                    if (chars.get(block[i])) {
+                        return blockStart + i;
+                    }
+                }
+            }
+            return -1;
+        } finally {
+            lease.close();
+        }
+    }
+
+    /**
+     * @return A mask for {@link #indexOfAny(CharSequence, long[], int)} of the given characters.
+     */
+    static long[] toMask(@NonNull CharSequence chars) {
+        int max = 0;
+        for (int i = 0, n = chars.length(); i < n; i++) {
+            max = Math.max(max, chars.charAt(i));
+        }
+        final long[] mask = new long[(max >>> 6) + 1];
+        for (int i = 0, n = chars.length(); i < n; i++) {
+            final char c = chars.charAt(i);
+            mask[c >>> 6] |= 1L << c;
+        }
+        return mask;
+    }
+}
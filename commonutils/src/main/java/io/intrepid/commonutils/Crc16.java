@@ -0,0 +1,220 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+/**
+ * Computes a CRC-16 checksum, in one of the common {@link Variant}s.
+ * <p>
+ * The checksum is table-driven: buffers of at least 16 bytes are processed 8 bytes at a time with 8 precomputed
+ * tables ("slicing-by-8"), and the remaining bytes one at a time with the first table. A checksum can be updated
+ * with any number of chunks, like a packet or firmware image that arrives in pieces.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @see Crc32C
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public final class Crc16 implements Checksum {
+
+    /**
+     * The parameters of a CRC-16, named as in the catalogue of parametrised CRC algorithms.
+     */
+    public enum Variant {
+        /**
+         * CRC-16/CCITT-FALSE (also known as CRC-16/IBM-3740): polynomial 0x1021, initial value 0xFFFF. Used by
+         * many BLE and serial protocols.
+         */
+        CCITT_FALSE(0x1021, 0xFFFF, false),
+        /**
+         * CRC-16/XMODEM: polynomial 0x1021, initial value 0.
+         */
+        XMODEM(0x1021, 0, false),
+        /**
+         * CRC-16/MODBUS: polynomial 0x8005, initial value 0xFFFF, bits reflected. Send the checksum low byte first.
+         */
+        MODBUS(0x8005, 0xFFFF, true);
+
+        final int initialValue;
+        final boolean reflected;
+        // 8 tables of 256 entries each; table k holds the CRC of a byte followed by k zero bytes
+        final int[] tables;
+
+        Variant(int polynomial, int initialValue, boolean reflected) {
+            this.initialValue = initialValue;
+            this.reflected = reflected;
+            tables = createTables(polynomial, reflected);
+        }
+    }
+
+    private static final int MIN_SLICING_LENGTH = 16;
+    private static final int CHUNK_SIZE = 8192;
+
+    private final Variant variant;
+    private int crc;
+
+    /**
+     * @param variant The parameters of the CRC.
+     */
+    public Crc16(@NonNull Variant variant) {
+        this.variant = variant;
+        crc = variant.initialValue;
+    }
+
+    /**
+     * @param variant The parameters of the CRC.
+     * @param bytes   The bytes to checksum.
+     * @return The checksum of the bytes.
+     */
+    public static int compute(@NonNull Variant variant, @NonNull byte[] bytes) {
+        final Crc16 crc16 = new Crc16(variant);
+        crc16.update(bytes, 0, bytes.length);
+        return (int) crc16.getValue();
+    }
+
+    /**
+     * @return The parameters of the CRC.
+     */
+    @NonNull
+    public Variant getVariant() {
+        return variant;
+    }
+
+    @Override
+    public void update(int b) {
+        final int[] t = variant.tables;
+        if (variant.reflected) {
+            crc = (crc >>> 8) ^ t[(crc ^ b) & 0xFF];
+        } else {
+            crc = ((crc << 8) ^ t[((crc >>> 8) ^ b) & 0xFF]) & 0xFFFF;
+        }
+    }
+
+    /**
+     * @param bytes The bytes to add to the checksum.
+     */
+    public void update(@NonNull byte[] bytes) {
+        update(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void update(@NonNull byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > bytes.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", array length="
+                                                        + bytes.length);
+        }
+        crc = variant.reflected
+                ? updateReflected(variant.tables, crc, bytes, offset, offset + length)
+                : updateForward(variant.tables, crc, bytes, offset, offset + length);
+    }
+
+    /**
+     * Adds the remaining bytes of a buffer to the checksum, and moves the position of the buffer to its limit, like
+     * {@code java.util.zip.CRC32} does.
+     *
+     * @param buffer The bytes to add to the checksum.
+     */
+    public void update(@NonNull ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+
+        final BufferArena.ByteArrayLease lease = BufferArena.acquireBytes(Math.min(CHUNK_SIZE, buffer.remaining()));
+        try {
+            final byte[] chunk = lease.array();
+            while (buffer.hasRemaining()) {
+                final int n = Math.min(chunk.length, buffer.remaining());
+                buffer.get(chunk, 0, n);
+                update(chunk, 0, n);
+            }
+        } finally {
+            lease.close();
+        }
+    }
+
+    /**
+     * @return The checksum of the bytes so far, in the low 16 bits.
+     */
+    @Override
+    public long getValue() {
+        return crc;
+    }
+
+    @Override
+    public void reset() {
+        crc = variant.initialValue;
+    }
+
+    private static int updateForward(int[] t, int crc, byte[] bytes, int start, int end) {
+        int i = start;
+        if (end - i >= MIN_SLICING_LENGTH) {
+            for (final int last = end - 8; i <= last; i += 8) {
+                crc = t[0x700 + (((crc >>> 8) ^ bytes[i]) & 0xFF)]
+                        ^ t[0x600 + ((crc ^ bytes[i + 1]) & 0xFF)]
+                        ^ t[0x500 + (bytes[i + 2] & 0xFF)]
+                        ^ t[0x400 + (bytes[i + 3] & 0xFF)]
+                        ^ t[0x300 + (bytes[i + 4] & 0xFF)]
+                        ^ t[0x200 + (bytes[i + 5] & 0xFF)]
+                        ^ t[0x100 + (bytes[i + 6] & 0xFF)]
+                        ^ t[bytes[i + 7] & 0xFF];
+            }
+        }
+        for (; i < end; i++) {
+            crc = ((crc << 8) ^ t[((crc >>> 8) ^ bytes[i]) & 0xFF]) & 0xFFFF;
+        }
+        return crc;
+    }
+
+    private static int updateReflected(int[] t, int crc, byte[] bytes, int start, int end) {
+        int i = start;
+        if (end - i >= MIN_SLICING_LENGTH) {
+            for (final int last = end - 8; i <= last; i += 8) {
+                crc = t[0x700 + ((crc ^ bytes[i]) & 0xFF)]
+                        ^ t[0x600 + (((crc >>> 8) ^ bytes[i + 1]) & 0xFF)]
+                        ^ t[0x500 + (bytes[i + 2] & 0xFF)]
+                        ^ t[0x400 + (bytes[i + 3] & 0xFF)]
+                        ^ t[0x300 + (bytes[i + 4] & 0xFF)]
+                        ^ t[0x200 + (bytes[i + 5] & 0xFF)]
+                        ^ t[0x100 + (bytes[i + 6] & 0xFF)]
+                        ^ t[bytes[i + 7] & 0xFF];
+            }
+        }
+        for (; i < end; i++) {
+            crc = (crc >>> 8) ^ t[(crc ^ bytes[i]) & 0xFF];
+        }
+        return crc;
+    }
+
+    private static int[] createTables(int polynomial, boolean reflected) {
+        final int[] t = new int[8 * 256];
+        final int reflectedPolynomial = Integer.reverse(polynomial) >>> 16;
+        for (int b = 0; b < 256; b++) {
+            int crc;
+            if (reflected) {
+                crc = b;
+                for (int bit = 0; bit < 8; bit++) {
+                    crc = ((crc & 1) != 0) ? (crc >>> 1) ^ reflectedPolynomial : crc >>> 1;
+                }
+            } else {
+                crc = b << 8;
+                for (int bit = 0; bit < 8; bit++) {
+                    crc = ((crc & 0x8000) != 0) ? ((crc << 1) ^ polynomial) & 0xFFFF : (crc << 1) & 0xFFFF;
+                }
+            }
+            t[b] = crc;
+        }
+        for (int k = 1; k < 8; k++) {
+            for (int b = 0; b < 256; b++) {
+                final int previous = t[((k - 1) << 8) + b];
+                t[(k << 8) + b] = reflected
+                        ? (previous >>> 8) ^ t[previous & 0xFF]
+                        : ((previous << 8) ^ t[previous >>> 8]) & 0xFFFF;
+            }
+        }
+        return t;
+    }
+}
@@ -0,0 +1,142 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+/**
+ * Computes a CRC-32C (Castagnoli) checksum, as used by iSCSI, SCTP, ext4 and many storage formats. It detects more
+ * errors than the CRC-32 of {@link java.util.zip.CRC32}, which uses a different polynomial.
+ * <p>
+ * The checksum is table-driven: buffers of at least 16 bytes are processed 8 bytes at a time with 8 precomputed
+ * tables ("slicing-by-8"), and the remaining bytes one at a time with the first table. A checksum can be updated
+ * with any number of chunks, like a packet or firmware image that arrives in pieces.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @see Crc16
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public final class Crc32C implements Checksum {
+    // The reflected form of the polynomial 0x1EDC6F41
+    private static final int POLYNOMIAL = 0x82F63B78;
+
+    private static final int MIN_SLICING_LENGTH = 16;
+    private static final int CHUNK_SIZE = 8192;
+
+    // 8 tables of 256 entries each; table k holds the CRC of a byte followed by k zero bytes
+    private static final int[] TABLES = createTables();
+
+    // The register, which is inverted at the start and the end
+    private int crc = 0xFFFFFFFF;
+
+    /**
+     * @param bytes The bytes to checksum.
+     * @return The checksum of the bytes.
+     */
+    public static long compute(@NonNull byte[] bytes) {
+        final Crc32C crc32c = new Crc32C();
+        crc32c.update(bytes, 0, bytes.length);
+        return crc32c.getValue();
+    }
+
+    @Override
+    public void update(int b) {
+        crc = (crc >>> 8) ^ TABLES[(crc ^ b) & 0xFF];
+    }
+
+    /**
+     * @param bytes The bytes to add to the checksum.
+     */
+    public void update(@NonNull byte[] bytes) {
+        update(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public void update(@NonNull byte[] bytes, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > bytes.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", array length="
+                                                        + bytes.length);
+        }
+        final int[] t = TABLES;
+        final int end = offset + length;
+        int c = crc;
+        int i = offset;
+        if (length >= MIN_SLICING_LENGTH) {
+            for (final int last = end - 8; i <= last; i += 8) {
+                c ^= (bytes[i] & 0xFF) | (bytes[i + 1] & 0xFF) << 8 | (bytes[i + 2] & 0xFF) << 16
+                        | (bytes[i + 3] & 0xFF) << 24;
+                c = t[0x700 + (c & 0xFF)]
+                        ^ t[0x600 + ((c >>> 8) & 0xFF)]
+                        ^ t[0x500 + ((c >>> 16) & 0xFF)]
+                        ^ t[0x400 + (c >>> 24)]
+                        ^ t[0x300 + (bytes[i + 4] & 0xFF)]
+                        ^ t[0x200 + (bytes[i + 5] & 0xFF)]
+                        ^ t[0x100 + (bytes[i + 6] & 0xFF)]
+                        ^ t[bytes[i + 7] & 0xFF];
+            }
+        }
+        for (; i < end; i++) {
+            c = (c >>> 8) ^ t[(c ^ bytes[i]) & 0xFF];
+        }
+        crc = c;
+    }
+
+    /**
+     * Adds the remaining bytes of a buffer to the checksum, and moves the position of the buffer to its limit, like
+     * {@code java.util.zip.CRC32} does.
+     *
+     * @param buffer The bytes to add to the checksum.
+     */
+    public void update(@NonNull ByteBuffer buffer) {
+        if (buffer.hasArray()) {
+            update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            buffer.position(buffer.limit());
+            return;
+        }
+
+        final BufferArena.ByteArrayLease lease = BufferArena.acquireBytes(Math.min(CHUNK_SIZE, buffer.remaining()));
+        try {
+            final byte[] chunk = lease.array();
+            while (buffer.hasRemaining()) {
+                final int n = Math.min(chunk.length, buffer.remaining());
+                buffer.get(chunk, 0, n);
+                update(chunk, 0, n);
+            }
+        } finally {
+            lease.close();
+        }
+    }
+
+    /**
+     * @return The checksum of the bytes so far, in the low 32 bits.
+     */
+    @Override
+    public long getValue() {
+        return ~crc & 0xFFFFFFFFL;
+    }
+
+    @Override
+    public void reset() {
+        crc = 0xFFFFFFFF;
+    }
+
+    private static int[] createTables() {
+        final int[] t = new int[8 * 256];
+        for (int b = 0; b < 256; b++) {
+            int crc = b;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = ((crc & 1) != 0) ? (crc >>> 1) ^ POLYNOMIAL : crc >>> 1;
+            }
+            t[b] = crc;
+        }
+        for (int k = 1; k < 8; k++) {
+            for (int b = 0; b < 256; b++) {
+                final int previous = t[((k - 1) << 8) + b];
+                t[(k << 8) + b] = (previous >>> 8) ^ t[previous & 0xFF];
+            }
+        }
+        return t;
+    }
+}
@@ -0,0 +1,348 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+
+/**
+ * A minimal sequence of edit operations that transforms a source string into a target string, e.g. to highlight
+ * the differences between two versions of a text.
+ * <p>
+ * The script consists of runs of operations of the same type. Each run is packed into a single int: the type in the
+ * upper 2 bits and the length in the lower 30 bits (see {@link #getType(int)} and {@link #getLength(int)}).
+ * The positions of a run follow from the runs before it: {@link #EQUAL} and {@link #SUBSTITUTE} runs advance in both
+ * strings, {@link #DELETE} runs only in the source and {@link #INSERT} runs only in the target.
+ * <p>
+ * The script is computed with Hirschberg's algorithm, which needs O(n&middot;m) time but only O(n + m) memory,
+ * so it can be used on large documents. The common prefix and suffix of the strings are skipped beforehand.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public final class EditScript {
+    /**
+     * Characters that are the same in the source and the target.
+     */
+    public static final int EQUAL = 0;
+    /**
+     * Characters of the source that are replaced by the same number of characters of the target.
+     */
+    public static final int SUBSTITUTE = 1;
+    /**
+     * Characters of the source that are removed.
+     */
+    public static final int DELETE = 2;
+    /**
+     * Characters of the target that are inserted.
+     */
+    public static final int INSERT = 3;
+
+    private static final int TYPE_SHIFT = 30;
+    private static final int LENGTH_MASK = (1 << TYPE_SHIFT) - 1;
+
+    private final int[] operations;
+    private final int distance;
+
+    private EditScript(int[] operations) {
+        this.operations = operations;
+        int cost = 0;
+        for (int operation : operations) {
+            if (getType(operation) != EQUAL) {
+                cost += getLength(operation);
+            }
+        }
+        this.distance = cost;
+    }
+
+    /**
+     * Computes the edit script that transforms the source into the target.
+     *
+     * @param source The original string.
+     * @param target The string that the source should be transformed into.
+     * @return The edit script.
+     */
+    @NonNull
+    public static EditScript compute(@NonNull CharSequence source, @NonNull CharSequence target) {
+        return new EditScript(computePacked(source, target));
+    }
+
+    /**
+     * Same as {@link #compute(CharSequence, CharSequence)}, but returns the packed runs directly.
+     *
+     * @param source The original string.
+     * @param target The string that the source should be transformed into.
+     * @return The packed runs of the edit script.
+     */
+    @NonNull
+    public static int[] computePacked(@NonNull CharSequence source, @NonNull CharSequence target) {
+        final char[] chars1 = new char[source.length()];
+        final char[] chars2 = new char[target.length()];
+        Levenshtein.getChars(source, chars1);
+        Levenshtein.getChars(target, chars2);
+        return new Aligner(chars1, chars2).align();
+    }
+
+    /**
+     * @param operation A packed run.
+     * @return The type of the run, one of {@link #EQUAL}, {@link #SUBSTITUTE}, {@link #DELETE} or {@link #INSERT}.
+     */
+    public static int getType(int operation) {
+        return operation >>> TYPE_SHIFT;
+    }
+
+    /**
+     * @param operation A packed run.
+     * @return The number of characters of the run.
+     */
+    public static int getLength(int operation) {
+        return operation & LENGTH_MASK;
+    }
+
+    /**
+     * @return The number of runs.
+     */
+    public int size() {
+        return operations.length;
+    }
+
+    /**
+     * @param index The index of the run.
+     * @return The packed run.
+     */
+    public int getOperation(int index) {
+        return operations[index];
+    }
+
+    /**
+     * @return A copy of the packed runs.
+     */
+    @NonNull
+    public int[] toPackedArray() {
+        return operations.clone();
+    }
+
+    /**
+     * @return The number of edits, which is the Levenshtein Distance between the source and the target.
+     */
+    public int getDistance() {
+        return distance;
+    }
+
+    /**
+     * Calls the visitor for each run, together with its position in the source and the target.
+     *
+     * @param visitor The visitor.
+     */
+    public void accept(@NonNull Visitor visitor) {
+        int sourcePos = 0;
+        int targetPos = 0;
+        for (int operation : operations) {
+            final int type = getType(operation);
+            final int length = getLength(operation);
+            visitor.visit(type, sourcePos, targetPos, length);
+            if (type != INSERT) {
+                sourcePos += length;
+            }
+            if (type != DELETE) {
+                targetPos += length;
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof EditScript && Arrays.equals(operations, ((EditScript) o).operations));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(operations);
+    }
+
+    /**
+     * @return The runs in a compact form, e.g. "=3 ~1 -2 +4" for 3 equal, 1 substituted, 2 deleted and 4 inserted
+     * characters.
+     */
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder(operations.length * 4);
+        for (int operation : operations) {
+            if (sb.length() > 0) {
+                sb.append(' ');
+            }
+            sb.append("=~-+".charAt(getType(operation))).append(getLength(operation));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Receives the runs of an edit script.
+     */
+    public interface Visitor {
+        /**
+         * @param type        The type of the run.
+         * @param sourceStart The index in the source at which the run starts.
+         * @param targetStart The index in the target at which the run starts.
+         * @param length      The number of characters of the run.
+         */
+        void visit(int type, int sourceStart, int targetStart, int length);
+    }
+
+    /**
+     * Hirschberg's algorithm: split the source in half, find the position in the target where an optimal alignment
+     * crosses that split (from the last row of the forward DP of the first half and of the backward DP of the second
+     * half), and recurse on both sides.
+     */
+    private static final class Aligner {
+        private final char[] source;
+        private final char[] target;
+        private final int[] forward;
+        private final int[] forwardPrevious;
+        private final int[] backward;
+        private final int[] backwardPrevious;
+
+        private int[] operations = new int[16];
+        private int size;
+
+        Aligner(char[] source, char[] target) {
+            this.source = source;
+            this.target = target;
+            forward = new int[target.length + 1];
+            forwardPrevious = new int[target.length + 1];
+            backward = new int[target.length + 1];
+            backwardPrevious = new int[target.length + 1];
+        }
+
+        int[] align() {
+            int sourceEnd = source.length;
+            int targetEnd = target.length;
+
+            int prefix = 0;
+            while (prefix < sourceEnd && prefix < targetEnd && source[prefix] == target[prefix]) {
+                prefix++;
+            }
+            int suffix = 0;
+            while (sourceEnd - suffix > prefix && targetEnd - suffix > prefix
+                    && source[sourceEnd - suffix - 1] == target[targetEnd - suffix - 1]) {
+                suffix++;
+            }
+
+            append(EQUAL, prefix);
+            align(prefix, sourceEnd - suffix, prefix, targetEnd - suffix);
+            append(EQUAL, suffix);
+            return Arrays.copyOf(operations, size);
+        }
+
+        private void align(int sourceStart, int sourceEnd, int targetStart, int targetEnd) {
+            final int sourceLength = sourceEnd - sourceStart;
+            final int targetLength = targetEnd - targetStart;
+
+            if (sourceLength == 0) {
+                append(INSERT, targetLength);
+                return;
+            }
+            if (targetLength == 0) {
+                append(DELETE, sourceLength);
+                return;
+            }
+            if (sourceLength == 1) {
+                final char c = source[sourceStart];
+                for (int j = targetStart; j < targetEnd; j++) {
+                    if (target[j] == c) {
+                        append(INSERT, j - targetStart);
+                        append(EQUAL, 1);
+                        append(INSERT, targetEnd - j - 1);
+                        return;
+                    }
+                }
+                append(SUBSTITUTE, 1);
+                append(INSERT, targetLength - 1);
+                return;
+            }
+
+            final int sourceMiddle = sourceStart + sourceLength / 2;
+            final int[] forwardCosts = forwardCosts(sourceStart, sourceMiddle, targetStart, targetEnd);
+            final int[] backwardCosts = backwardCosts(sourceMiddle, sourceEnd, targetStart, targetEnd);
+
+            int split = 0;
+            int minimum = Integer.MAX_VALUE;
+            for (int j = 0; j <= targetLength; j++) {
+                final int cost = forwardCosts[j] + backwardCosts[targetLength - j];
+                if (cost < minimum) {
+                    minimum = cost;
+                    split = j;
+                }
+            }
+
+            align(sourceStart, sourceMiddle, targetStart, targetStart + split);
+            align(sourceMiddle, sourceEnd, targetStart + split, targetEnd);
+        }
+
+        /**
+         * @return An array whose element j is the distance between source[sourceStart...sourceEnd) and
+         * target[targetStart...targetStart + j).
+         */
+        private int[] forwardCosts(int sourceStart, int sourceEnd, int targetStart, int targetEnd) {
+            final int targetLength = targetEnd - targetStart;
+            int[] cost = forwardPrevious;
+            int[] newcost = forward;
+            for (int j = 0; j <= targetLength; j++) {
+                cost[j] = j;
+            }
+
+            for (int i = sourceStart; i < sourceEnd; i++) {
+                final char c = source[i];
+                newcost[0] = i - sourceStart + 1;
+                for (int j = 1; j <= targetLength; j++) {
+                    final int match = (target[targetStart + j - 1] == c) ? 0 : 1;
+                    newcost[j] = Math.min(Math.min(cost[j] + 1, newcost[j - 1] + 1), cost[j - 1] + match);
+                }
+                int[] swap = cost;
+                cost = newcost;
+                newcost = swap;
+            }
+            return cost;
+        }
+
+        /**
+         * @return An array whose element j is the distance between source[sourceStart...sourceEnd) and
+         * target[targetEnd - j...targetEnd).
+         */
+        private int[] backwardCosts(int sourceStart, int sourceEnd, int targetStart, int targetEnd) {
+            final int targetLength = targetEnd - targetStart;
+            int[] cost = backwardPrevious;
+            int[] newcost = backward;
+            for (int j = 0; j <= targetLength; j++) {
+                cost[j] = j;
+            }
+
+            for (int i = sourceEnd - 1; i >= sourceStart; i--) {
+                final char c = source[i];
+                newcost[0] = sourceEnd - i;
+                for (int j = 1; j <= targetLength; j++) {
+                    final int match = (target[targetEnd - j] == c) ? 0 : 1;
+                    newcost[j] = Math.min(Math.min(cost[j] + 1, newcost[j - 1] + 1), cost[j - 1] + match);
+                }
+                int[] swap = cost;
+                cost = newcost;
+                newcost = swap;
+            }
+            return cost;
+        }
+
+        private void append(int type, int length) {
+            if (length == 0) {
+                return;
+            }
+            if (size > 0 && getType(operations[size - 1]) == type) {
+                final int merged = getLength(operations[size - 1]) + length;
+                if (merged <= LENGTH_MASK) {
+                    operations[size - 1] = (type << TYPE_SHIFT) | merged;
+                    return;
+                }
+            }
+            if (size == operations.length) {
+                operations = Arrays.copyOf(operations, size * 2);
+            }
+            operations[size++] = (type << TYPE_SHIFT) | length;
+        }
+    }
+}
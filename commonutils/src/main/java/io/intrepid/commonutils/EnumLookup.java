@@ -0,0 +1,243 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.lang.reflect.Array;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Looks up the constants of an enum by their name, without throwing for unknown names.
+ * <p>
+ * {@link Enum#valueOf(Class, String)} throws an {@link IllegalArgumentException} for an unknown name, and creating
+ * the stack trace of that exception costs far more than the lookup itself. The lookups of this class return null or
+ * a default value instead. The names are kept in open-addressing hash tables, hashed the same way as
+ * {@link String#hashCode()}, so the name can be any CharSequence and a lookup doesn't allocate anything.
+ * <p>
+ * There is one instance per enum class, which is created on first use and kept for the lifetime of the process
+ * ({@code ClassValue} isn't available on Android). Instances are immutable and thread-safe.
+ *
+ * @param <E> The type of the enum.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public final class EnumLookup<E extends Enum<E>> {
+    private static final ConcurrentMap<Class<?>, EnumLookup<?>> LOOKUPS = new ConcurrentHashMap<>();
+
+    private final Class<E> enumClass;
+    private final E[] constants;
+
+    // Indexed by the hash of the name; mask is the length of the tables minus one
+    private final int mask;
+    private final int[] hashes;
+    private final E[] exactTable;
+    private final int[] foldedHashes;
+    private final E[] foldedTable;
+
+    private EnumLookup(Class<E> enumClass, E[] constants) {
+        this.enumClass = enumClass;
+        this.constants = constants;
+
+        int capacity = 2;
+        while (capacity < constants.length * 2) {
+            capacity <<= 1;
+        }
+        mask = capacity - 1;
+        hashes = new int[capacity];
+        exactTable = newArray(constants, capacity);
+        foldedHashes = new int[capacity];
+        foldedTable = newArray(constants, capacity);
+
+        for (E constant : constants) {
+            final String name = constant.name();
+            final int foldedHash = foldedHash(name, 0, name.length());
+            insert(hashes, exactTable, name.hashCode(), constant);
+            // If names only differ in case, the first constant wins
+            if (find(foldedHashes, foldedTable, foldedHash, name, 0, name.length(), true) == null) {
+                insert(foldedHashes, foldedTable, foldedHash, constant);
+            }
+        }
+    }
+
+    /**
+     * @param enumClass The class of the enum.
+     * @return The lookup of the constants of the enum.
+     * @throws IllegalArgumentException If the class isn't an enum.
+     */
+    @NonNull
+    public static <E extends Enum<E>> EnumLookup<E> of(@NonNull Class<E> enumClass) {
+        // The map only holds an EnumLookup<E> for the key Class<E>
+        @SuppressWarnings("unchecked")
+        EnumLookup<E> lookup = (EnumLookup<E>) LOOKUPS.get(enumClass);
+        if (lookup == null) {
+            final E[] constants = enumClass.getEnumConstants();
+            if (constants == null) {
+                throw new IllegalArgumentException(enumClass.getName() + " is not an enum type");
+            }
+            lookup = new EnumLookup<>(enumClass, constants);
+            @SuppressWarnings("unchecked")
+            final EnumLookup<E> existing = (EnumLookup<E>) LOOKUPS.putIfAbsent(enumClass, lookup);
+            if (existing != null) {
+                lookup = existing;
+            }
+        }
+        return lookup;
+    }
+
+    /**
+     * @param name The name of the constant, which must match exactly.
+     * @return The constant, or null if there is no constant with that name or if the name is null.
+     */
+    @Nullable
+    public E get(@Nullable CharSequence name) {
+        return get(name, null);
+    }
+
+    /**
+     * @param name         The name of the constant, which must match exactly.
+     * @param defaultValue The value to return for null and unknown names.
+     * @return The constant, or the default value if there is no constant with that name.
+     */
+    public E get(@Nullable CharSequence name, @Nullable E defaultValue) {
+        if (name == null) {
+            return defaultValue;
+        }
+        final E constant = get(name, 0, name.length());
+        return (constant != null) ? constant : defaultValue;
+    }
+
+    /**
+     * @return The constant whose name is the given range of characters, or null if there is none.
+     */
+    E get(@NonNull CharSequence s, int start, int end) {
+        return find(hashes, exactTable, hash(s, start, end), s, start, end, false);
+    }
+
+    /**
+     * @param name The name of the constant, in any case.
+     * @return The constant, or null if there is no constant with that name or if the name is null.
+     */
+    @Nullable
+    public E getIgnoreCase(@Nullable CharSequence name) {
+        return getIgnoreCase(name, null);
+    }
+
+    /**
+     * @param name         The name of the constant, in any case. An exact match takes precedence over constants
+     *                     whose names only differ in case.
+     * @param defaultValue The value to return for null and unknown names.
+     * @return The constant, or the default value if there is no constant with that name.
+     */
+    public E getIgnoreCase(@Nullable CharSequence name, @Nullable E defaultValue) {
+        if (name == null) {
+            return defaultValue;
+        }
+        final int length = name.length();
+        E constant = get(name, 0, length);
+        if (constant == null) {
+            constant = find(foldedHashes, foldedTable, foldedHash(name, 0, length), name, 0, length, true);
+        }
+        return (constant != null) ? constant : defaultValue;
+    }
+
+    /**
+     * @return The class of the enum.
+     */
+    @NonNull
+    public Class<E> getEnumClass() {
+        return enumClass;
+    }
+
+    /**
+     * @return The number of constants of the enum.
+     */
+    public int size() {
+        return constants.length;
+    }
+
+    /**
+     * @param ordinal The ordinal of the constant.
+     * @return The constant, or null if there is no constant with that ordinal.
+     */
+    @Nullable
+    public E get(int ordinal) {
+        return (ordinal >= 0 && ordinal < constants.length) ? constants[ordinal] : null;
+    }
+
+    private void insert(int[] tableHashes, E[] table, int hash, E constant) {
+        int index = spread(hash) & mask;
+        while (table[index] != null) {
+            index = (index + 1) & mask;
+        }
+        tableHashes[index] = hash;
+        table[index] = constant;
+    }
+
+    private E find(int[] tableHashes, E[] table, int hash, CharSequence s, int start, int end, boolean ignoreCase) {
+        int index = spread(hash) & mask;
+        E constant;
+        while ((constant = table[index]) != null) {
+            if (tableHashes[index] == hash && matches(constant.name(), s, start, end, ignoreCase)) {
+                return constant;
+            }
+            index = (index + 1) & mask;
+        }
+        return null;
+    }
+
+    private static boolean matches(String constantName, CharSequence s, int start, int end, boolean ignoreCase) {
+        final int length = constantName.length();
+        if (end - start != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            final char c1 = constantName.charAt(i);
+            final char c2 = s.charAt(start + i);
+            if (c1 != c2 && !(ignoreCase && fold(c1) == fold(c2))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The same value as {@link String#hashCode()}, which Strings have cached.
+     */
+    private static int hash(CharSequence s, int start, int end) {
+        if (s instanceof String && start == 0 && end == s.length()) {
+            return s.hashCode();
+        }
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + s.charAt(i);
+        }
+        return hash;
+    }
+
+    private static int foldedHash(CharSequence s, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + fold(s.charAt(i));
+        }
+        return hash;
+    }
+
+    /**
+     * The same case folding as {@link String#CASE_INSENSITIVE_ORDER}.
+     */
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Mixes the high bits into the low bits that index the table, like {@link java.util.HashMap} does.
+     */
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E> E[] newArray(E[] prototype, int length) {
+        return (E[]) Array.newInstance(prototype.getClass().getComponentType(), length);
+    }
+}
@@ -0,0 +1,345 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Encodes sets of enum constants as bitmasks, indexed by the ordinals of the constants.
+ * <p>
+ * A set can be stored as a {@code long} (for enums of up to 64 constants) or a {@code long[]}. Those bitmasks are
+ * only valid as long as the constants of the enum aren't reordered, so they are meant for in-memory use and for
+ * storage that is written and read by the same version of the app.
+ * <p>
+ * The string form is meant for storage that outlives the version of the app, like preferences and wire payloads:
+ * <pre>
+ * #&lt;fingerprint&gt;:&lt;mask&gt;;&lt;NAME&gt;,&lt;NAME&gt;,...
+ * </pre>
+ * where the fingerprint is a hash of the names of all constants in order and the mask is a hexadecimal number. If
+ * the fingerprint still matches, the set is decoded from the mask alone. Otherwise, e.g. after constants have been
+ * added or reordered, it is decoded from the names. Plain comma-separated lists of names, as written with
+ * {@link StringUtils#toEnumString(Enum)} and {@link StringUtils#separateItemsWith(CharSequence, CharSequence...)},
+ * are decoded as well. Unknown names are skipped; decoding never throws.
+ * <p>
+ * There is one instance per enum class, which is created on first use. Instances are immutable and thread-safe.
+ *
+ * @param <E> The type of the enum.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public final class EnumSetCodec<E extends Enum<E>> {
+    private static final ConcurrentMap<Class<?>, EnumSetCodec<?>> CODECS = new ConcurrentHashMap<>();
+
+    private static final char VERSION_MARKER = '#';
+    private static final char MASK_MARKER = ':';
+    private static final char NAMES_MARKER = ';';
+    private static final char NAME_SEPARATOR = ',';
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final Class<E> enumClass;
+    private final EnumLookup<E> lookup;
+    private final int fingerprint;
+
+    private EnumSetCodec(Class<E> enumClass) {
+        this.enumClass = enumClass;
+        lookup = EnumLookup.of(enumClass);
+
+        int hash = lookup.size();
+        for (int i = 0, n = lookup.size(); i < n; i++) {
+            //noinspection ConstantConditions
+            hash = 31 * hash + lookup.get(i).name().hashCode();
+        }
+        fingerprint = hash;
+    }
+
+    /**
+     * @param enumClass The class of the enum.
+     * @return The codec of sets of the enum's constants.
+     * @throws IllegalArgumentException If the class isn't an enum.
+     */
+    @NonNull
+    public static <E extends Enum<E>> EnumSetCodec<E> of(@NonNull Class<E> enumClass) {
+        // The map only holds an EnumSetCodec<E> for the key Class<E>
+        @SuppressWarnings("unchecked")
+        EnumSetCodec<E> codec = (EnumSetCodec<E>) CODECS.get(enumClass);
+        if (codec == null) {
+            codec = new EnumSetCodec<>(enumClass);
+            @SuppressWarnings("unchecked")
+            final EnumSetCodec<E> existing = (EnumSetCodec<E>) CODECS.putIfAbsent(enumClass, codec);
+            if (existing != null) {
+                codec = existing;
+            }
+        }
+        return codec;
+    }
+
+    /**
+     * @param set The set to encode, or null for an empty set.
+     * @return The bitmask of the ordinals of the constants in the set.
+     * @throws IllegalStateException If the enum has more than 64 constants; use {@link #toLongArray(Set)} instead.
+     */
+    public long toLong(@Nullable Set<E> set) {
+        if (lookup.size() > 64) {
+            throw new IllegalStateException(enumClass.getName() + " has more than 64 constants");
+        }
+        long mask = 0;
+        if (set != null) {
+            for (E constant : set) {
+                mask |= 1L << constant.ordinal();
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @param mask The bitmask of the ordinals of the constants. Bits of ordinals that don't exist are ignored.
+     * @return A new set of the constants.
+     */
+    @NonNull
+    public EnumSet<E> fromLong(long mask) {
+        final EnumSet<E> set = EnumSet.noneOf(enumClass);
+        addAll(set, mask, 0);
+        return set;
+    }
+
+    /**
+     * @param set The set to encode, or null for an empty set.
+     * @return The bitmask of the ordinals of the constants in the set, in words of 64 ordinals each, starting with
+     * ordinals 0-63.
+     */
+    @NonNull
+    public long[] toLongArray(@Nullable Set<E> set) {
+        final long[] mask = new long[(lookup.size() + 63) >>> 6];
+        if (set != null) {
+            for (E constant : set) {
+                final int ordinal = constant.ordinal();
+                mask[ordinal >>> 6] |= 1L << ordinal;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * @param mask The bitmask of the ordinals of the constants, as returned by {@link #toLongArray(Set)}. Bits of
+     *             ordinals that don't exist are ignored.
+     * @return A new set of the constants.
+     */
+    @NonNull
+    public EnumSet<E> fromLongArray(@NonNull long[] mask) {
+        final EnumSet<E> set = EnumSet.noneOf(enumClass);
+        for (int i = 0; i < mask.length; i++) {
+            addAll(set, mask[i], i << 6);
+        }
+        return set;
+    }
+
+    /**
+     * @return The hash of the names of the constants, in order, which changes when constants are added, removed,
+     * renamed or reordered.
+     */
+    public int getFingerprint() {
+        return fingerprint;
+    }
+
+    /**
+     * @param set The set to encode, or null for an empty set.
+     * @return The string form of the set.
+     */
+    @NonNull
+    public String encode(@Nullable Set<E> set) {
+        final BufferArena.StringBuilderLease lease = BufferArena.acquireBuilder(0);
+        try {
+            return appendTo(lease.builder(), set).toString();
+        } finally {
+            lease.close();
+        }
+    }
+
+    /**
+     * Same as {@link #encode(Set)}, but appends the string form to a builder.
+     *
+     * @param out The builder to append to.
+     * @param set The set to encode, or null for an empty set.
+     * @return The builder.
+     */
+    @NonNull
+    public StringBuilder appendTo(@NonNull StringBuilder out, @Nullable Set<E> set) {
+        try {
+            appendTo((Appendable) out, set);
+        } catch (IOException e) {
+            // StringBuilder doesn't throw
+            throw new IllegalStateException(e);
+        }
+        return out;
+    }
+
+    /**
+     * Same as {@link #encode(Set)}, but appends the string form to a writer or another Appendable.
+     *
+     * @param out The Appendable to append to.
+     * @param set The set to encode, or null for an empty set.
+     * @return The Appendable.
+     * @throws IOException If the Appendable throws.
+     */
+    @NonNull
+    public Appendable appendTo(@NonNull Appendable out, @Nullable Set<E> set) throws IOException {
+        final long[] mask = toLongArray(set);
+
+        out.append(VERSION_MARKER);
+        appendHex(out, fingerprint & 0xFFFFFFFFL, 1);
+        out.append(MASK_MARKER);
+        int word = mask.length - 1;
+        while (word > 0 && mask[word] == 0) {
+            word--;
+        }
+        appendHex(out, (word >= 0) ? mask[word] : 0, 1);
+        while (--word >= 0) {
+            appendHex(out, mask[word], 16);
+        }
+
+        out.append(NAMES_MARKER);
+        boolean first = true;
+        if (set != null) {
+            for (E constant : set) {
+                if (!first) {
+                    out.append(NAME_SEPARATOR);
+                }
+                out.append(constant.name());
+                first = false;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Decodes the string form of a set, or a comma-separated list of names.
+     *
+     * @param s The string to decode.
+     * @return A new set of the constants, or null if the string is null.
+     */
+    @Nullable
+    public EnumSet<E> decode(@Nullable CharSequence s) {
+        if (s == null) {
+            return null;
+        }
+
+        final EnumSet<E> set = EnumSet.noneOf(enumClass);
+        final int length = s.length();
+        if (length == 0 || s.charAt(0) != VERSION_MARKER) {
+            addNames(set, s, 0, length);
+            return set;
+        }
+
+        final int maskStart = StringUtils.indexOf(s, MASK_MARKER, 0) + 1;
+        int namesStart = (maskStart > 0) ? StringUtils.indexOf(s, NAMES_MARKER, maskStart) + 1 : 0;
+        final int maskEnd = (namesStart > 0) ? namesStart - 1 : length;
+        if (namesStart == 0) {
+            namesStart = length;
+        }
+
+        if (maskStart > 0 && parseHex(s, 1, maskStart - 1) == (fingerprint & 0xFFFFFFFFL)
+                && addMask(set, s, maskStart, maskEnd)) {
+            return set;
+        }
+
+        // The constants have changed since the set was encoded, or the mask is malformed
+        set.clear();
+        addNames(set, s, namesStart, length);
+        return set;
+    }
+
+    private void addAll(EnumSet<E> set, long word, int firstOrdinal) {
+        while (word != 0) {
+            final E constant = lookup.get(firstOrdinal + Long.numberOfTrailingZeros(word));
+            if (constant == null) {
+                break;
+            }
+            set.add(constant);
+            word &= word - 1;
+        }
+    }
+
+    /**
+     * Adds the constants of the hexadecimal mask in the given range.
+     *
+     * @return False if the mask is malformed.
+     */
+    private boolean addMask(EnumSet<E> set, CharSequence s, int start, int end) {
+        if (start == end) {
+            return false;
+        }
+        for (int i = end - 1; i >= start; i--) {
+            final int digit = Character.digit(s.charAt(i), 16);
+            if (digit < 0) {
+                return false;
+            }
+            final int firstOrdinal = (end - 1 - i) << 2;
+            for (int bit = 0; bit < 4; bit++) {
+                if ((digit & (1 << bit)) != 0) {
+                    final E constant = lookup.get(firstOrdinal + bit);
+                    if (constant != null) {
+                        set.add(constant);
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds the constants of the comma-separated names in the given range, ignoring whitespace around the names.
+     */
+    private void addNames(EnumSet<E> set, CharSequence s, int start, int end) {
+        int nameStart = start;
+        while (nameStart < end) {
+            int nameEnd = StringUtils.indexOf(s, NAME_SEPARATOR, nameStart);
+            if (nameEnd < 0 || nameEnd > end) {
+                nameEnd = end;
+            }
+            final int next = nameEnd + 1;
+
+            while (nameStart < nameEnd && Character.isWhitespace(s.charAt(nameStart))) {
+                nameStart++;
+            }
+            while (nameEnd > nameStart && Character.isWhitespace(s.charAt(nameEnd - 1))) {
+                nameEnd--;
+            }
+            if (nameStart < nameEnd) {
+                final E constant = lookup.get(s, nameStart, nameEnd);
+                if (constant != null) {
+                    set.add(constant);
+                }
+            }
+            nameStart = next;
+        }
+    }
+
+    /**
+     * @return The value of the hexadecimal number of at most 8 digits in the given range, or -1 if it's malformed.
+     */
+    private static long parseHex(CharSequence s, int start, int end) {
+        if (start == end || end - start > 8) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            final int digit = Character.digit(s.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = (value << 4) | digit;
+        }
+        return value;
+    }
+
+    private static void appendHex(Appendable out, long value, int minDigits) throws IOException {
+        final int digits = Math.max(minDigits, (64 - Long.numberOfLeadingZeros(value) + 3) >>> 2);
+        for (int shift = (digits - 1) << 2; shift >= 0; shift -= 4) {
+            out.append(HEX_DIGITS[(int) (value >>> shift) & 0xF]);
+        }
+    }
+}
@@ -0,0 +1,447 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * An index for fuzzy lookups of strings by their Levenshtein distance
+ * (see {@link StringUtils#getLevenshteinDistance(CharSequence, CharSequence)}).
+ * <p>
+ * The entries are stored in a BK-tree: every child of a node is keyed by its distance to that node. Because the
+ * Levenshtein distance satisfies the triangle inequality, a query only has to visit the children whose key is close
+ * to the distance between the query and the node, which skips most of the entries of a large dictionary.
+ * <p>
+ * A node whose entries have all been removed stays in the tree as long as it has children, but it only keeps a copy
+ * of the characters, not the removed entry. When more than half of the nodes are empty, the tree is rebuilt from the
+ * remaining entries.
+ * <p>
+ * This class is not thread-safe.
+ *
+ * @param <T> The type of the entries.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class FuzzyIndex<T extends CharSequence> {
+    private static final Comparator<Match<?>> BY_DISTANCE = new Comparator<Match<?>>() {
+        @Override
+        public int compare(Match<?> match1, Match<?> match2) {
+            return match1.distance - match2.distance;
+        }
+    };
+
+    private static final Comparator<Match<?>> BY_DISTANCE_DESCENDING = Collections.reverseOrder(BY_DISTANCE);
+
+    private Node root;
+    private int size;
+    private int nodeCount;
+    private int emptyNodeCount;
+
+    private int lastQueryDistanceComputations;
+    private long totalDistanceComputations;
+    private long queryCount;
+
+    /**
+     * Creates an empty index.
+     */
+    public FuzzyIndex() {
+    }
+
+    /**
+     * Creates an index containing the given entries.
+     *
+     * @param entries The entries of the index.
+     */
+    public FuzzyIndex(@NonNull Collection<? extends T> entries) {
+        for (T entry : entries) {
+            add(entry);
+        }
+    }
+
+    /**
+     * @return The number of entries in this index.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return True if this index has no entries.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds an entry to this index. An index can contain multiple entries with the same characters.
+     *
+     * @param entry The entry to add.
+     */
+    public void add(@NonNull T entry) {
+        insert(entry);
+    }
+
+    /**
+     * Removes an entry with the same characters as the given entry from this index. If there is more than one,
+     * an entry that is {@link Object#equals(Object) equal} to the given entry is preferred.
+     *
+     * @param entry The entry to remove.
+     * @return True if an entry was removed.
+     */
+    public boolean remove(@NonNull CharSequence entry) {
+        Node node = root;
+        while (node != null) {
+            final int distance = StringUtils.getLevenshteinDistance(entry, node.key);
+            if (distance == 0) {
+                if (!node.removeEntry(entry)) {
+                    return false;
+                }
+                size--;
+                if (node.entryCount == 0) {
+                    emptyNodeCount++;
+                    if (emptyNodeCount * 2 > nodeCount) {
+                        rebuild();
+                    }
+                }
+                return true;
+            }
+            node = node.getChild(distance);
+        }
+        return false;
+    }
+
+    /**
+     * Finds all entries whose distance to the query is at most the given maximum.
+     *
+     * @param query       The string to look for.
+     * @param maxDistance The maximum distance (inclusive) of the returned entries.
+     * @return The matching entries, ordered by their distance to the query.
+     */
+    @NonNull
+    public List<Match<T>> findWithin(@NonNull CharSequence query, int maxDistance) {
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("maxDistance must not be negative: " + maxDistance);
+        }
+
+        final List<Match<T>> matches = new ArrayList<>();
+        int computations = 0;
+        if (root != null) {
+            final Deque<Node> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                final Node node = pending.pop();
+
+                // If the distance exceeds maxDistance + the largest child key, none of the children can be in range
+                final int distance = StringUtils.getLevenshteinDistance(query, node.key,
+                                                                        saturatedAdd(maxDistance, node.maxChildDistance));
+                computations++;
+                if (distance < 0) {
+                    continue;
+                }
+
+                if (distance <= maxDistance) {
+                    node.addMatchesTo(matches, distance);
+                }
+
+                for (int i = 0; i < node.childCount; i++) {
+                    final int childDistance = node.childDistances[i];
+                    if (childDistance >= distance - maxDistance
+                            && childDistance <= saturatedAdd(distance, maxDistance)) {
+                        pending.push(node.children[i]);
+                    }
+                }
+            }
+        }
+
+        onQueryFinished(computations);
+        Collections.sort(matches, BY_DISTANCE);
+        return matches;
+    }
+
+    /**
+     * Finds the entries that are closest to the query.
+     *
+     * @param query The string to look for.
+     * @param count The maximum number of entries to return.
+     * @return At most count entries, ordered by their distance to the query. When several entries have the same
+     * distance, it is undefined which of them are returned if not all of them fit.
+     */
+    @NonNull
+    public List<Match<T>> findNearest(@NonNull CharSequence query, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        }
+
+        final PriorityQueue<Match<T>> best = new PriorityQueue<>(Math.max(1, count), BY_DISTANCE_DESCENDING);
+        int computations = 0;
+        if (root != null && count > 0) {
+            // Nodes are visited in the order of the lower bound of their distance to the query
+            final PriorityQueue<Candidate> pending = new PriorityQueue<>();
+            pending.add(new Candidate(root, 0));
+            while (!pending.isEmpty()) {
+                final Candidate candidate = pending.poll();
+                final boolean full = best.size() >= count;
+                final int radius = full ? best.peek().distance : Integer.MAX_VALUE;
+                if (full && candidate.lowerBound >= radius) {
+                    // None of the remaining nodes can be closer than the entries found so far
+                    break;
+                }
+
+                final Node node = candidate.node;
+                final int distance = StringUtils.getLevenshteinDistance(query, node.key,
+                                                                        saturatedAdd(radius, node.maxChildDistance));
+                computations++;
+                if (distance < 0) {
+                    continue;
+                }
+
+                for (int i = 0; i < node.entryCount; i++) {
+                    if (best.size() < count) {
+                        best.add(new Match<>(node.<T>entry(i), distance));
+                    } else if (distance < best.peek().distance) {
+                        best.poll();
+                        best.add(new Match<>(node.<T>entry(i), distance));
+                    }
+                }
+
+                for (int i = 0; i < node.childCount; i++) {
+                    final int lowerBound = Math.abs(distance - node.childDistances[i]);
+                    if (best.size() < count || lowerBound <= best.peek().distance) {
+                        pending.add(new Candidate(node.children[i], lowerBound));
+                    }
+                }
+            }
+        }
+
+        onQueryFinished(computations);
+        final List<Match<T>> matches = new ArrayList<>(best);
+        Collections.sort(matches, BY_DISTANCE);
+        return matches;
+    }
+
+    /**
+     * @return The number of distances that were computed by the most recent query.
+     */
+    public int getLastQueryDistanceComputations() {
+        return lastQueryDistanceComputations;
+    }
+
+    /**
+     * @return The number of distances that were computed by all queries so far.
+     */
+    public long getTotalDistanceComputations() {
+        return totalDistanceComputations;
+    }
+
+    /**
+     * @return The number of queries so far.
+     */
+    public long getQueryCount() {
+        return queryCount;
+    }
+
+    private void insert(CharSequence entry) {
+        size++;
+        if (root == null) {
+            root = new Node(entry);
+            nodeCount++;
+            return;
+        }
+
+        Node node = root;
+        while (true) {
+            final int distance = StringUtils.getLevenshteinDistance(entry, node.key);
+            if (distance == 0) {
+                if (node.entryCount == 0) {
+                    emptyNodeCount--;
+                }
+                node.addEntry(entry);
+                return;
+            }
+
+            final Node child = node.getChild(distance);
+            if (child == null) {
+                node.addChild(distance, new Node(entry));
+                nodeCount++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /**
+     * Builds a new tree of the remaining entries, without the empty nodes.
+     */
+    private void rebuild() {
+        final List<CharSequence> entries = new ArrayList<>(size);
+        if (root != null) {
+            final Deque<Node> pending = new ArrayDeque<>();
+            pending.push(root);
+            while (!pending.isEmpty()) {
+                final Node node = pending.pop();
+                for (int i = 0; i < node.entryCount; i++) {
+                    entries.add((CharSequence) node.entries[i]);
+                }
+                for (int i = 0; i < node.childCount; i++) {
+                    pending.push(node.children[i]);
+                }
+            }
+        }
+
+        root = null;
+        size = 0;
+        nodeCount = 0;
+        emptyNodeCount = 0;
+        for (CharSequence entry : entries) {
+            insert(entry);
+        }
+    }
+
+    private void onQueryFinished(int computations) {
+        lastQueryDistanceComputations = computations;
+        totalDistanceComputations += computations;
+        queryCount++;
+    }
+
+    private static int saturatedAdd(int a, int b) {
+        final int sum = a + b;
+        return (sum < 0) ? Integer.MAX_VALUE : sum;
+    }
+
+    /**
+     * An entry of the index together with its distance to the query that found it.
+     *
+     * @param <T> The type of the entry.
+     */
+    public static final class Match<T> {
+        private final T entry;
+        private final int distance;
+
+        Match(T entry, int distance) {
+            this.entry = entry;
+            this.distance = distance;
+        }
+
+        public T getEntry() {
+            return entry;
+        }
+
+        public int getDistance() {
+            return distance;
+        }
+
+        @Override
+        public String toString() {
+            return "Match{entry=" + entry + ", distance=" + distance + '}';
+        }
+    }
+
+    /**
+     * A node of the BK-tree. All entries of a node have the same characters. A node whose entries have all been
+     * removed stays in the tree, since its children are keyed by their distance to it.
+     */
+    private static final class Node {
+        // One of the entries, or a copy of its characters once that entry has been removed
+        CharSequence key;
+        Object[] entries;
+        int entryCount;
+
+        int[] childDistances;
+        Node[] children;
+        int childCount;
+        int maxChildDistance;
+
+        Node(CharSequence entry) {
+            key = entry;
+            entries = new Object[] { entry };
+            entryCount = 1;
+        }
+
+        void addEntry(CharSequence entry) {
+            if (entryCount == entries.length) {
+                entries = Arrays.copyOf(entries, entryCount * 2);
+            }
+            entries[entryCount++] = entry;
+        }
+
+        boolean removeEntry(CharSequence entry) {
+            if (entryCount == 0) {
+                return false;
+            }
+
+            int idx = entryCount - 1;
+            for (int i = 0; i < entryCount; i++) {
+                if (entries[i].equals(entry)) {
+                    idx = i;
+                    break;
+                }
+            }
+            final Object removed = entries[idx];
+            System.arraycopy(entries, idx + 1, entries, idx, entryCount - idx - 1);
+            entries[--entryCount] = null;
+            if (removed == key) {
+                key = (entryCount > 0) ? (CharSequence) entries[0] : key.toString();
+            }
+            return true;
+        }
+
+        /**
+         * Only entries of type T are added to a node of a {@code FuzzyIndex<T>}.
+         */
+        @SuppressWarnings("unchecked")
+        <T> T entry(int idx) {
+            return (T) entries[idx];
+        }
+
+        <T> void addMatchesTo(List<Match<T>> matches, int distance) {
+            for (int i = 0; i < entryCount; i++) {
+                matches.add(new Match<>(this.<T>entry(i), distance));
+            }
+        }
+
+        Node getChild(int distance) {
+            for (int i = 0; i < childCount; i++) {
+                if (childDistances[i] == distance) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        void addChild(int distance, Node child) {
+            if (children == null) {
+                childDistances = new int[4];
+                children = new Node[4];
+            } else if (childCount == children.length) {
+                childDistances = Arrays.copyOf(childDistances, childCount * 2);
+                children = Arrays.copyOf(children, childCount * 2);
+            }
+            childDistances[childCount] = distance;
+            children[childCount] = child;
+            childCount++;
+            maxChildDistance = Math.max(maxChildDistance, distance);
+        }
+    }
+
+    private static final class Candidate implements Comparable<Candidate> {
+        final Node node;
+        final int lowerBound;
+
+        Candidate(Node node, int lowerBound) {
+            this.node = node;
+            this.lowerBound = lowerBound;
+        }
+
+        @Override
+        public int compareTo(@NonNull Candidate other) {
+            return lowerBound - other.lowerBound;
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+
+/**
+ * An OutputStream that writes a hex dump of the bytes written to it, in the format of {@code xxd}:
+ * <pre>
+ * 00000000: 4865 6c6c 6f2c 2077 6f72 6c64 210a 0001  Hello, world!...
+ * </pre>
+ * Each line is the offset of its first byte, the bytes in hex, in groups, and the bytes as ASCII characters, with
+ * '.' for the bytes that aren't printable.
+ * <p>
+ * Each line is formatted in one reusable buffer and appended to the output as soon as it is complete, so the memory
+ * use doesn't depend on the number of bytes dumped. The bytes of the last line are kept until more bytes complete it
+ * or until the writer is closed.
+ * <p>
+ * This class is not thread-safe.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public final class HexDumpWriter extends OutputStream {
+    public static final int DEFAULT_BYTES_PER_LINE = 16;
+    public static final int DEFAULT_GROUP_SIZE = 2;
+
+    private static final int MIN_OFFSET_DIGITS = 8;
+    private static final int MAX_OFFSET_DIGITS = 16;
+    private static final int CHUNK_SIZE = 8192;
+
+    private final Appendable out;
+    private final int bytesPerLine;
+    private final int groupSize;
+    private final boolean upperCase;
+    private final int hexWidth;
+
+    private final byte[] lineBytes;
+    private final char[] lineChars;
+    private final CharBuffer lineBuffer;
+    private int pending;
+    private long offset;
+
+    /**
+     * Creates a writer with the default format of {@code xxd}: 16 bytes per line in groups of 2, in lowercase, with
+     * offsets starting at 0.
+     *
+     * @param out The output to append the lines to.
+     */
+    public HexDumpWriter(@NonNull Appendable out) {
+        this(out, 0, DEFAULT_BYTES_PER_LINE, DEFAULT_GROUP_SIZE, false);
+    }
+
+    /**
+     * @param out          The output to append the lines to.
+     * @param startOffset  The offset shown for the first byte.
+     * @param bytesPerLine The number of bytes per line.
+     * @param groupSize    The number of bytes per group of hex digits, or a value &gt;= bytesPerLine for a single group.
+     * @param upperCase    True for the hex digits A-F, false for a-f.
+     */
+    public HexDumpWriter(@NonNull Appendable out, long startOffset, int bytesPerLine, int groupSize,
+                         boolean upperCase) {
+        if (startOffset < 0) {
+            throw new IllegalArgumentException("startOffset must not be negative: " + startOffset);
+        }
+        if (bytesPerLine < 1 || groupSize < 1) {
+            throw new IllegalArgumentException("bytesPerLine and groupSize must be positive: " + bytesPerLine + ", "
+                                                       + groupSize);
+        }
+        this.out = out;
+        this.offset = startOffset;
+        this.bytesPerLine = bytesPerLine;
+        this.groupSize = Math.min(groupSize, bytesPerLine);
+        this.upperCase = upperCase;
+
+        final int groups = (bytesPerLine + this.groupSize - 1) / this.groupSize;
+        hexWidth = 2 * bytesPerLine + groups - 1;
+        lineBytes = new byte[bytesPerLine];
+        // Offset, ": ", hex, two spaces, ASCII and the line break
+        lineChars = new char[MAX_OFFSET_DIGITS + 2 + hexWidth + 2 + bytesPerLine + 1];
+        lineBuffer = CharBuffer.wrap(lineChars);
+    }
+
+    /**
+     * Writes a hex dump of a range of a stream.
+     *
+     * @param in     The stream to dump, which isn't closed.
+     * @param out    The output to append the lines to.
+     * @param start  The number of bytes to skip before the dump, which is also the offset shown for the first byte.
+     * @param length The maximum number of bytes to dump, or -1 to dump until the end of the stream.
+     * @return The number of bytes dumped.
+     * @throws IOException If reading the stream or appending to the output throws.
+     */
+    public static long dump(@NonNull InputStream in, @NonNull Appendable out, long start, long length)
+            throws IOException {
+        long skipped = 0;
+        while (skipped < start) {
+            final long n = in.skip(start - skipped);
+            if (n <= 0) {
+                // skip() may stop early without being at the end of the stream
+                if (in.read() < 0) {
+                    return 0;
+                }
+                skipped++;
+            } else {
+                skipped += n;
+            }
+        }
+
+        final HexDumpWriter writer = new HexDumpWriter(out, start, DEFAULT_BYTES_PER_LINE, DEFAULT_GROUP_SIZE,
+                                                       false);
+        final long count = writer.writeFrom(in, length);
+        writer.close();
+        return count;
+    }
+
+    /**
+     * Writes a hex dump of the remaining bytes of a buffer, without changing its position. The offset shown for the
+     * first byte is the position of the buffer.
+     *
+     * @param buffer The buffer to dump.
+     * @param out    The output to append the lines to.
+     * @throws IOException If appending to the output throws.
+     */
+    public static void dump(@NonNull ByteBuffer buffer, @NonNull Appendable out) throws IOException {
+        final HexDumpWriter writer = new HexDumpWriter(out, buffer.position(), DEFAULT_BYTES_PER_LINE,
+                                                       DEFAULT_GROUP_SIZE, false);
+        writer.write(buffer);
+        writer.close();
+    }
+
+    /**
+     * @param bytes The bytes to dump.
+     * @return The hex dump of the bytes.
+     */
+    @NonNull
+    public static String toString(@NonNull byte[] bytes) {
+        final BufferArena.StringBuilderLease lease = BufferArena.acquireBuilder(0);
+        try {
+            final StringBuilder sb = lease.builder();
+            final HexDumpWriter writer = new HexDumpWriter(sb);
+            writer.write(bytes, 0, bytes.length);
+            writer.close();
+            return sb.toString();
+        } catch (IOException e) {
+            // StringBuilder doesn't throw
+            throw new IllegalStateException(e);
+        } finally {
+            lease.close();
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        lineBytes[pending++] = (byte) b;
+        if (pending == bytesPerLine) {
+            writeLine();
+        }
+    }
+
+    @Override
+    public void write(@NonNull byte[] b, int off, int len) throws IOException {
+        if (off < 0 || len < 0 || off > b.length - len) {
+            throw new IndexOutOfBoundsException("offset=" + off + ", length=" + len + ", array length=" + b.length);
+        }
+        final int end = off + len;
+        int pos = off;
+        while (pos < end) {
+            final int n = Math.min(bytesPerLine - pending, end - pos);
+            System.arraycopy(b, pos, lineBytes, pending, n);
+            pending += n;
+            pos += n;
+            if (pending == bytesPerLine) {
+                writeLine();
+            }
+        }
+    }
+
+    /**
+     * Writes the remaining bytes of a buffer, without changing its position.
+     *
+     * @param buffer The bytes to write.
+     * @throws IOException If appending to the output throws.
+     */
+    public void write(@NonNull ByteBuffer buffer) throws IOException {
+        if (buffer.hasArray()) {
+            write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+            return;
+        }
+
+        final ByteBuffer in = buffer.duplicate();
+        while (in.hasRemaining()) {
+            final int n = Math.min(bytesPerLine - pending, in.remaining());
+            in.get(lineBytes, pending, n);
+            pending += n;
+            if (pending == bytesPerLine) {
+                writeLine();
+            }
+        }
+    }
+
+    /**
+     * Writes the bytes read from a stream.
+     *
+     * @param in     The stream to read, which isn't closed.
+     * @param length The maximum number of bytes to read, or -1 to read until the end of the stream.
+     * @return The number of bytes read.
+     * @throws IOException If reading the stream or appending to the output throws.
+     */
+    public long writeFrom(@NonNull InputStream in, long length) throws IOException {
+        final BufferArena.ByteArrayLease lease = BufferArena.acquireBytes(CHUNK_SIZE);
+        try {
+            final byte[] chunk = lease.array();
+            long count = 0;
+            while (length < 0 || count < length) {
+                final int max = (length < 0) ? chunk.length : (int) Math.min(chunk.length, length - count);
+                final int n = in.read(chunk, 0, max);
+                if (n < 0) {
+                    break;
+                }
+                write(chunk, 0, n);
+                count += n;
+            }
+            return count;
+        } finally {
+            lease.close();
+        }
+    }
+
+    /**
+     * @return The offset of the next byte that is written.
+     */
+    public long getOffset() {
+        return offset + pending;
+    }
+
+    /**
+     * Flushes the output if it is {@link Flushable}. The bytes of an incomplete line are kept.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (out instanceof Flushable) {
+            ((Flushable) out).flush();
+        }
+    }
+
+    /**
+     * Writes the incomplete last line, if any, and flushes the output. The output itself isn't closed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (pending > 0) {
+            writeLine();
+        }
+        flush();
+    }
+
+    private void writeLine() throws IOException {
+        final char[] chars = lineChars;
+        int pos = 0;
+
+        final int offsetDigits = Math.max(MIN_OFFSET_DIGITS, (64 - Long.numberOfLeadingZeros(offset) + 3) >>> 2);
+        for (int shift = (offsetDigits - 1) << 2; shift >= 0; shift -= 4) {
+            final int digit = (int) (offset >>> shift) & 0xF;
+            chars[pos++] = (char) ((digit < 10) ? '0' + digit : (upperCase ? 'A' : 'a') + digit - 10);
+        }
+        chars[pos++] = ':';
+        chars[pos++] = ' ';
+
+        final int hexEnd = pos + hexWidth;
+        for (int i = 0; i < pending; i += groupSize) {
+            if (i > 0) {
+                chars[pos++] = ' ';
+            }
+            pos = JavaUtils.bytesToHexChars(lineBytes, i, Math.min(groupSize, pending - i), chars, pos, upperCase);
+        }
+        // Pads an incomplete line so that its ASCII column lines up
+        while (pos < hexEnd) {
+            chars[pos++] = ' ';
+        }
+        chars[pos++] = ' ';
+        chars[pos++] = ' ';
+
+        for (int i = 0; i < pending; i++) {
+            final int b = lineBytes[i] & 0xFF;
+            chars[pos++] = (b >= 0x20 && b < 0x7F) ? (char) b : '.';
+        }
+        chars[pos++] = '\n';
+
+        append(chars, pos);
+        offset += pending;
+        pending = 0;
+    }
+
+    private void append(char[] chars, int length) throws IOException {
+        if (out instanceof StringBuilder) {
+            ((StringBuilder) out).append(chars, 0, length);
+        } else if (out instanceof Writer) {
+            ((Writer) out).write(chars, 0, length);
+        } else {
+            lineBuffer.clear();
+            lineBuffer.limit(length);
+            out.append(lineBuffer);
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps track of the Levenshtein Distance (see {@link StringUtils#getLevenshteinDistance(CharSequence,
+ * CharSequence)}) between a query that is typed one character at a time and a fixed list of candidates.
+ * <p>
+ * For every candidate the rows of the DP table that belong to the current query are kept, one row per character of
+ * the query. Appending a character to the query computes one new row per candidate and a backspace drops the last
+ * row, so both take time proportional to the length of the candidates instead of recomputing the whole table.
+ * <p>
+ * This class is not thread-safe.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class IncrementalLevenshtein {
+    private final char[][] candidates;
+    private final int[][] rows;
+    private final StringBuilder query = new StringBuilder();
+
+    /**
+     * @param candidates The candidates to compare with the query. Later changes to the list or its elements are not
+     *                   picked up.
+     */
+    public IncrementalLevenshtein(@NonNull List<? extends CharSequence> candidates) {
+        final int count = candidates.size();
+        this.candidates = new char[count][];
+        this.rows = new int[count][];
+
+        int idx = 0;
+        for (CharSequence candidate : candidates) {
+            final int length = candidate.length();
+            final char[] chars = new char[length];
+            Levenshtein.getChars(candidate, chars);
+            this.candidates[idx] = chars;
+
+            // Row 0: the cost of transforming the first i characters of the candidate into the empty query.
+            final int[] candidateRows = new int[(length + 1) * 4];
+            for (int i = 0; i <= length; i++) {
+                candidateRows[i] = i;
+            }
+            rows[idx] = candidateRows;
+            idx++;
+        }
+    }
+
+    /**
+     * @return The number of candidates.
+     */
+    public int getCandidateCount() {
+        return candidates.length;
+    }
+
+    /**
+     * @return The current query.
+     */
+    @NonNull
+    public String getQuery() {
+        return query.toString();
+    }
+
+    /**
+     * @return The length of the current query.
+     */
+    public int getQueryLength() {
+        return query.length();
+    }
+
+    /**
+     * Appends a character to the query.
+     *
+     * @param c The character to append.
+     */
+    public void append(char c) {
+        final int queryLength = query.length();
+        for (int idx = 0; idx < candidates.length; idx++) {
+            final char[] candidate = candidates[idx];
+            final int rowLength = candidate.length + 1;
+            int[] candidateRows = rows[idx];
+            if (candidateRows.length < (queryLength + 2) * rowLength) {
+                candidateRows = Arrays.copyOf(candidateRows, candidateRows.length * 2);
+                rows[idx] = candidateRows;
+            }
+
+            final int cost = queryLength * rowLength;
+            final int newcost = cost + rowLength;
+
+            // initial cost of skipping prefix in the query
+            candidateRows[newcost] = queryLength + 1;
+
+            // transformation cost for each letter in the candidate
+            for (int i = 1; i < rowLength; i++) {
+                final int match = (candidate[i - 1] == c) ? 0 : 1;
+
+                final int costReplace = candidateRows[cost + i - 1] + match;
+                final int costInsert = candidateRows[cost + i] + 1;
+                final int costDelete = candidateRows[newcost + i - 1] + 1;
+
+                candidateRows[newcost + i] = Math.min(Math.min(costInsert, costDelete), costReplace);
+            }
+        }
+        query.append(c);
+    }
+
+    /**
+     * Appends characters to the query.
+     *
+     * @param chars The characters to append.
+     */
+    public void append(@NonNull CharSequence chars) {
+        final int length = chars.length();
+        for (int i = 0; i < length; i++) {
+            append(chars.charAt(i));
+        }
+    }
+
+    /**
+     * Removes the last character of the query.
+     *
+     * @return False if the query was already empty.
+     */
+    public boolean backspace() {
+        final int queryLength = query.length();
+        if (queryLength == 0) {
+            return false;
+        }
+        // The rows of the shorter query are still there, so there is nothing to recompute.
+        query.setLength(queryLength - 1);
+        return true;
+    }
+
+    /**
+     * Changes the query. Only the characters after the prefix that the old and the new query have in common are
+     * recomputed.
+     *
+     * @param newQuery The new query.
+     */
+    public void setQuery(@NonNull CharSequence newQuery) {
+        final int newLength = newQuery.length();
+        final int commonLength = Math.min(query.length(), newLength);
+        int prefixLength = 0;
+        while (prefixLength < commonLength && query.charAt(prefixLength) == newQuery.charAt(prefixLength)) {
+            prefixLength++;
+        }
+
+        query.setLength(prefixLength);
+        for (int i = prefixLength; i < newLength; i++) {
+            append(newQuery.charAt(i));
+        }
+    }
+
+    /**
+     * @param candidateIndex The index of the candidate.
+     * @return The distance between the current query and the candidate.
+     */
+    public int getDistance(int candidateIndex) {
+        final int rowLength = candidates[candidateIndex].length + 1;
+        return rows[candidateIndex][query.length() * rowLength + rowLength - 1];
+    }
+
+    /**
+     * Copies the distances between the current query and all candidates into the given array.
+     *
+     * @param dest The destination array, which must have room for {@link #getCandidateCount()} distances.
+     * @return The given array.
+     */
+    @NonNull
+    public int[] getDistances(@NonNull int[] dest) {
+        final int queryLength = query.length();
+        for (int idx = 0; idx < candidates.length; idx++) {
+            final int rowLength = candidates[idx].length + 1;
+            dest[idx] = rows[idx][queryLength * rowLength + rowLength - 1];
+        }
+        return dest;
+    }
+}
@@ -3,30 +3,207 @@ package io.intrepid.commonutils;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
+import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.List;
 
 @SuppressWarnings("WeakerAccess")
 public class JavaUtils {
+    // The two hex digits of each byte value, at index 2 * (b & 0xFF)
+    private static final char[] HEX_PAIRS_LOWER = hexPairs("0123456789abcdef");
+    private static final char[] HEX_PAIRS_UPPER = hexPairs("0123456789ABCDEF");
+
+    // The value of each hex digit, or -1 for other ASCII characters
+    private static final byte[] HEX_VALUES = new byte[128];
+
+    static {
+        for (int i = 0; i < HEX_VALUES.length; i++) {
+            HEX_VALUES[i] = (byte) Character.digit((char) i, 16);
+        }
+    }
 
     /**
      * Returns the string representation of the input byte array. The resulting string will be
      * in the same order as the input array. Ex: if the input is [0xab,0x12], the resulting string
      * will be "ab12"
+     *
+     * @see HexDumpWriter
      */
     @NonNull
     public static String bytesToHexString(@NonNull byte[] bytes) {
-        StringBuilder builder = new StringBuilder();
-        for (byte b : bytes) {
-            builder.append(String.format("%02x", b));
+        return bytesToHexString(bytes, 0, bytes.length, false);
+    }
+
+    /**
+     * Same as {@link #bytesToHexString(byte[])}, but with a choice of upper- or lowercase digits.
+     *
+     * @param bytes     The bytes to encode.
+     * @param upperCase True for the digits A-F, false for a-f.
+     * @return The hex string.
+     */
+    @NonNull
+    public static String bytesToHexString(@NonNull byte[] bytes, boolean upperCase) {
+        return bytesToHexString(bytes, 0, bytes.length, upperCase);
+    }
+
+    /**
+     * Same as {@link #bytesToHexString(byte[], boolean)}, but only encodes a range of the bytes.
+     *
+     * @param bytes     The bytes to encode.
+     * @param offset    The index of the first byte to encode.
+     * @param length    The number of bytes to encode.
+     * @param upperCase True for the digits A-F, false for a-f.
+     * @return The hex string.
+     */
+    @NonNull
+    public static String bytesToHexString(@NonNull byte[] bytes, int offset, int length, boolean upperCase) {
+        checkRange(bytes.length, offset, length);
+        final BufferArena.CharArrayLease lease = BufferArena.acquireChars(length * 2);
+        try {
+            final char[] chars = lease.array();
+            final int end = bytesToHexChars(bytes, offset, length, chars, 0, upperCase);
+            return new String(chars, 0, end);
+        } finally {
+            lease.close();
+        }
+    }
+
+    /**
+     * Same as {@link #bytesToHexString(byte[], boolean)}, but encodes the remaining bytes of a buffer. The position
+     * of the buffer isn't changed.
+     *
+     * @param buffer    The bytes to encode.
+     * @param upperCase True for the digits A-F, false for a-f.
+     * @return The hex string.
+     */
+    @NonNull
+    public static String bytesToHexString(@NonNull ByteBuffer buffer, boolean upperCase) {
+        if (buffer.hasArray()) {
+            return bytesToHexString(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining(),
+                                    upperCase);
+        }
+
+        final char[] pairs = upperCase ? HEX_PAIRS_UPPER : HEX_PAIRS_LOWER;
+        final int start = buffer.position();
+        final int end = buffer.limit();
+        final BufferArena.CharArrayLease lease = BufferArena.acquireChars((end - start) * 2);
+        try {
+            final char[] chars = lease.array();
+            int pos = 0;
+            for (int i = start; i < end; i++) {
+                final int pair = (buffer.get(i) & 0xFF) << 1;
+                chars[pos++] = pairs[pair];
+                chars[pos++] = pairs[pair + 1];
+            }
+            return new String(chars, 0, pos);
+        } finally {
+            lease.close();
         }
-        return builder.toString();
+    }
+
+    /**
+     * Writes the hex digits of a range of bytes to a char array, two per byte.
+     *
+     * @param bytes      The bytes to encode.
+     * @param offset     The index of the first byte to encode.
+     * @param length     The number of bytes to encode.
+     * @param dest       The array to write to, which must have room for 2 * length chars.
+     * @param destOffset The index in the array of the first digit.
+     * @param upperCase  True for the digits A-F, false for a-f.
+     * @return The index in the array after the last digit.
+     */
+    public static int bytesToHexChars(@NonNull byte[] bytes, int offset, int length,
+                                      @NonNull char[] dest, int destOffset, boolean upperCase) {
+        checkRange(bytes.length, offset, length);
+        checkRange(dest.length, destOffset, length * 2);
+        final char[] pairs = upperCase ? HEX_PAIRS_UPPER : HEX_PAIRS_LOWER;
+        int pos = destOffset;
+        for (int i = offset, end = offset + length; i < end; i++) {
+            final int pair = (bytes[i] & 0xFF) << 1;
+            dest[pos++] = pairs[pair];
+            dest[pos++] = pairs[pair + 1];
+        }
+        return pos;
+    }
+
+    /**
+     * Returns the bytes of a hex string, the inverse of {@link #bytesToHexString(byte[])}. Both upper- and
+     * lowercase digits are accepted.
+     *
+     * @param hex The hex string, two digits per byte.
+     * @return The bytes.
+     * @throws IllegalArgumentException If the string has an odd length or contains a character that isn't a hex
+     *                                  digit.
+     */
+    @NonNull
+    public static byte[] hexToBytes(@NonNull CharSequence hex) {
+        final int length = hex.length();
+        if ((length & 1) != 0) {
+            throw new IllegalArgumentException("Hex string has an odd length: " + length);
+        }
+        final byte[] bytes = new byte[length >>> 1];
+        hexToBytes(hex, 0, length, bytes, 0);
+        return bytes;
+    }
+
+    /**
+     * Same as {@link #hexToBytes(CharSequence)}, but decodes a range of the string into an existing array.
+     *
+     * @param hex        The hex string, two digits per byte.
+     * @param start      The index of the first digit.
+     * @param end        The index after the last digit.
+     * @param dest       The array to write to, which must have room for (end - start) / 2 bytes.
+     * @param destOffset The index in the array of the first byte.
+     * @return The number of bytes written.
+     * @throws IllegalArgumentException If the range has an odd length or contains a character that isn't a hex
+     *                                  digit.
+     */
+    public static int hexToBytes(@NonNull CharSequence hex, int start, int end, @NonNull byte[] dest, int destOffset) {
+        if (start < 0 || start > end || end > hex.length()) {
+            throw new IndexOutOfBoundsException("start=" + start + ", end=" + end + ", length=" + hex.length());
+        }
+        if (((end - start) & 1) != 0) {
+            throw new IllegalArgumentException("Hex string has an odd length: " + (end - start));
+        }
+        final int count = (end - start) >>> 1;
+        checkRange(dest.length, destOffset, count);
+
+        int pos = destOffset;
+        for (int i = start; i < end; i += 2) {
+            dest[pos++] = (byte) ((hexValue(hex, i) << 4) | hexValue(hex, i + 1));
+        }
+        return count;
     }
 
     public static int byteToUnsignedInt(byte b) {
         return b & 0xff;
     }
 
+    private static char[] hexPairs(String digits) {
+        final char[] pairs = new char[512];
+        for (int b = 0; b < 256; b++) {
+            pairs[2 * b] = digits.charAt(b >>> 4);
+            pairs[2 * b + 1] = digits.charAt(b & 0xF);
+        }
+        return pairs;
+    }
+
+    private static int hexValue(CharSequence hex, int index) {
+        final char c = hex.charAt(index);
+        final int value = (c < HEX_VALUES.length) ? HEX_VALUES[c] : -1;
+        if (value < 0) {
+            throw new IllegalArgumentException("Invalid hex digit '" + c + "' at index " + index);
+        }
+        return value;
+    }
+
+    private static void checkRange(int arrayLength, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > arrayLength - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length
+                                                        + ", array length=" + arrayLength);
+        }
+    }
+
     /**
      * Returns a non-null string regardless of whether the input string is null
      *
@@ -47,6 +224,7 @@ public class JavaUtils {
      * @param list      The input list
      * @param fromIndex The index of the object that will be moved
      * @param toIndex   The destination index.
+     * @see ListDiff
      */
     public static void moveElementInList(@NonNull List<?> list, int fromIndex, int toIndex) {
         if (fromIndex == toIndex || fromIndex < 0 || toIndex > list.size() - 1) {
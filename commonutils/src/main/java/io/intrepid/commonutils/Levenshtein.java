@@ -0,0 +1,541 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.Executor;
+
+/**
+ * The Levenshtein distance kernels behind {@link StringUtils#getLevenshteinDistance(CharSequence, CharSequence)}.
+ * <p>
+ * Two kernels are used:
+ * <ul>
+ * <li>When the shorter string has at most 64 characters, the bit-parallel algorithm of Myers (in the formulation of
+ * Hyyr&ouml;) computes a whole column of the DP table with a handful of operations on a single {@code long}.</li>
+ * <li>Otherwise a banded DP only fills the cells of the table that are at most {@code maxDistance} away from the
+ * diagonal and exits as soon as every cell of a row exceeds {@code maxDistance}.</li>
+ * </ul>
+ * Both kernels use per-thread scratch arrays instead of allocating new ones on every call.
+ * <p>
+ * The batch methods compare one query with many candidates. The tables of the query are computed once and the
+ * candidates are split into chunks that are processed in parallel, see {@link Parallel}.
+ */
+final class Levenshtein {
+    /**
+     * The maximum length of the pattern of the bit-parallel kernel.
+     */
+    static final int MAX_PATTERN_LENGTH = 64;
+
+    /**
+     * Scratch arrays larger than this are not kept around after the call that needed them.
+     */
+    private static final int MAX_RETAINED_SCRATCH_LENGTH = 16 * 1024;
+
+    /**
+     * The minimum number of candidates per chunk of a batch; smaller batches aren't worth the synchronization.
+     */
+    private static final int MIN_CANDIDATES_PER_CHUNK = 512;
+
+    private static final ThreadLocal<Scratch> LOCAL_SCRATCH = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
+    private Levenshtein() {
+    }
+
+    /**
+     * @return The distance between the two strings.
+     */
+    static int distance(@NonNull CharSequence string1, @NonNull CharSequence string2) {
+        return distance(string1, string2, Math.max(string1.length(), string2.length()), LOCAL_SCRATCH.get());
+    }
+
+    /**
+     * @return The distance between the two strings, or -1 if it is larger than maxDistance.
+     */
+    static int distance(@NonNull CharSequence string1, @NonNull CharSequence string2, int maxDistance) {
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("maxDistance must not be negative: " + maxDistance);
+        }
+        return distance(string1, string2, maxDistance, LOCAL_SCRATCH.get());
+    }
+
+    static int distance(CharSequence string1, CharSequence string2, int maxDistance, Scratch scratch) {
+        // Make string1 the shorter of the two.
+        if (string1.length() > string2.length()) {
+            CharSequence swap = string1;
+            string1 = string2;
+            string2 = swap;
+        }
+
+        final int len1 = string1.length();
+        final int len2 = string2.length();
+        if (len2 - len1 > maxDistance) {
+            return -1;
+        }
+        // The distance can never be larger than the length of the longer string.
+        maxDistance = Math.min(maxDistance, len2);
+
+        if (len1 == 0) {
+            return len2;
+        }
+
+        if (len1 <= MAX_PATTERN_LENGTH) {
+            scratch.pattern.load(string1);
+            return bitParallelDistance(scratch.pattern, string2, maxDistance);
+        }
+
+        return bandedDistance(scratch.chars(string1), len1, string2, maxDistance, scratch);
+    }
+
+    /**
+     * @return The distances between the query and each of the candidates, or -1 for the candidates whose distance
+     * is larger than maxDistance.
+     */
+    static int[] distances(@NonNull CharSequence query, @NonNull List<? extends CharSequence> candidates,
+                           final int maxDistance, @Nullable Executor executor) {
+        if (maxDistance < 0) {
+            throw new IllegalArgumentException("maxDistance must not be negative: " + maxDistance);
+        }
+
+        final Query preparedQuery = new Query(query);
+        final List<? extends CharSequence> list = randomAccess(candidates);
+        final int[] distances = new int[list.size()];
+        final int chunkCount = Parallel.getChunkCount(distances.length, MIN_CANDIDATES_PER_CHUNK, executor);
+        Parallel.run(distances.length, chunkCount, executor, new Parallel.ChunkTask() {
+            @Override
+            public void run(int chunk, int start, int end) {
+                final Scratch scratch = LOCAL_SCRATCH.get();
+                for (int i = start; i < end; i++) {
+                    distances[i] = preparedQuery.distance(list.get(i), maxDistance, scratch);
+                }
+            }
+        });
+        return distances;
+    }
+
+    /**
+     * @return The indices of (at most) count candidates that are closest to the query, ordered by their distance.
+     * Candidates with the same distance are ordered by their index.
+     */
+    static int[] closest(@NonNull CharSequence query, @NonNull List<? extends CharSequence> candidates,
+                         final int count, @Nullable Executor executor) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        }
+
+        final Query preparedQuery = new Query(query);
+        final List<? extends CharSequence> list = randomAccess(candidates);
+        final int size = list.size();
+        final int chunkCount = (count == 0) ? 0 : Parallel.getChunkCount(size, MIN_CANDIDATES_PER_CHUNK, executor);
+        final TopK[] chunkResults = new TopK[chunkCount];
+        Parallel.run(size, chunkCount, executor, new Parallel.ChunkTask() {
+            @Override
+            public void run(int chunk, int start, int end) {
+                final Scratch scratch = LOCAL_SCRATCH.get();
+                final TopK topK = new TopK(Math.min(count, end - start));
+                for (int i = start; i < end; i++) {
+                    // The indices of a chunk increase, so a later candidate has to be strictly closer.
+                    final int maxDistance = topK.isFull() ? topK.worstDistance() - 1 : Integer.MAX_VALUE;
+                    if (maxDistance < 0) {
+                        break;
+                    }
+                    final int distance = preparedQuery.distance(list.get(i), maxDistance, scratch);
+                    if (distance >= 0) {
+                        topK.offer(distance, i);
+                    }
+                }
+                chunkResults[chunk] = topK;
+            }
+        });
+
+        final TopK result = new TopK(Math.min(count, size));
+        for (TopK chunkResult : chunkResults) {
+            for (int i = 0; i < chunkResult.size; i++) {
+                result.offer(chunkResult.distances[i], chunkResult.indices[i]);
+            }
+        }
+        return result.sortedIndices();
+    }
+
+    private static <T> List<? extends T> randomAccess(List<? extends T> list) {
+        return (list instanceof RandomAccess) ? list : new ArrayList<>(list);
+    }
+
+    /**
+     * Myers' bit-parallel algorithm for the global edit distance between the loaded pattern and the text.
+     * Bit i of the vertical delta vectors describes the difference between row i+1 and row i of the current column.
+     *
+     * @return The distance, or -1 if it is larger than maxDistance.
+     */
+    static int bitParallelDistance(PatternMasks pattern, CharSequence text, int maxDistance) {
+        final int textLength = text.length();
+        final long lastBit = 1L << (pattern.length - 1);
+
+        long positiveVertical = -1L;
+        long negativeVertical = 0L;
+        int score = pattern.length;
+
+        for (int j = 0; j < textLength; j++) {
+            final long equal = pattern.mask(text.charAt(j));
+            final long xv = equal | negativeVertical;
+            final long xh = (((equal & positiveVertical) + positiveVertical) ^ positiveVertical) | equal;
+            long positiveHorizontal = negativeVertical | ~(xh | positiveVertical);
+            long negativeHorizontal = positiveVertical & xh;
+
+            if ((positiveHorizontal & lastBit) != 0) {
+                score++;
+            } else if ((negativeHorizontal & lastBit) != 0) {
+                score--;
+            }
+
+            // Every remaining column can lower the score by at most one.
+            if (score - (textLength - j - 1) > maxDistance) {
+                return -1;
+            }
+
+            // The top row of the table is 0, 1, 2, ... so its horizontal delta is always +1.
+            positiveHorizontal = (positiveHorizontal << 1) | 1L;
+            negativeHorizontal <<= 1;
+            positiveVertical = negativeHorizontal | ~(xv | positiveHorizontal);
+            negativeVertical = positiveHorizontal & xv;
+        }
+
+        return (score <= maxDistance) ? score : -1;
+    }
+
+    /**
+     * DP that only computes the cells within maxDistance of the diagonal. Cells outside of the band, or whose
+     * cost exceeds maxDistance, hold maxDistance + 1.
+     *
+     * @return The distance, or -1 if it is larger than maxDistance.
+     */
+    private static int bandedDistance(char[] chars1, int len1, CharSequence string2, int maxDistance, Scratch scratch) {
+        final int len2 = string2.length();
+        final int infinity = maxDistance + 1;
+
+        int[] cost = scratch.row1(len1 + 1);
+        int[] newcost = scratch.row2(len1 + 1);
+
+        final int initialEnd = Math.min(len1, maxDistance);
+        for (int i = 0; i <= initialEnd; i++) {
+            cost[i] = i;
+        }
+        if (initialEnd < len1) {
+            cost[initialEnd + 1] = infinity;
+        }
+
+        for (int j = 1; j <= len2; j++) {
+            final char c2 = string2.charAt(j - 1);
+            final int start = Math.max(1, j - maxDistance);
+            final int end = Math.min(len1, j + maxDistance);
+
+            newcost[start - 1] = (start == 1) ? j : infinity;
+            int rowMinimum = newcost[start - 1];
+
+            for (int i = start; i <= end; i++) {
+                int value;
+                if (chars1[i - 1] == c2) {
+                    value = cost[i - 1];
+                } else {
+                    value = Math.min(Math.min(cost[i], newcost[i - 1]), cost[i - 1]) + 1;
+                    if (value > infinity) {
+                        value = infinity;
+                    }
+                }
+                newcost[i] = value;
+                if (value < rowMinimum) {
+                    rowMinimum = value;
+                }
+            }
+
+            if (rowMinimum > maxDistance) {
+                return -1;
+            }
+            // The next row reads one cell past the end of this band.
+            if (end < len1) {
+                newcost[end + 1] = infinity;
+            }
+
+            int[] swap = cost;
+            cost = newcost;
+            newcost = swap;
+        }
+
+        return (cost[len1] <= maxDistance) ? cost[len1] : -1;
+    }
+
+    /**
+     * Copies the characters of the string into the destination array.
+     */
+    static void getChars(CharSequence string, char[] dest) {
+        final int length = string.length();
+        if (string instanceof String) {
+            ((String) string).getChars(0, length, dest, 0);
+        } else {
+            for (int i = 0; i < length; i++) {
+                dest[i] = string.charAt(i);
+            }
+        }
+    }
+
+    static Scratch scratch() {
+        return LOCAL_SCRATCH.get();
+    }
+
+    /**
+     * For every character of a pattern of at most 64 characters, the bit-mask of positions at which it occurs.
+     * ASCII characters are looked up directly, all other characters in a small open-addressing hash table.
+     */
+    static final class PatternMasks {
+        private static final int TABLE_SIZE = 2 * MAX_PATTERN_LENGTH;
+
+        private final long[] asciiMasks = new long[128];
+        private final char[] tableKeys = new char[TABLE_SIZE];
+        private final long[] tableMasks = new long[TABLE_SIZE];
+        private final char[] patternChars = new char[MAX_PATTERN_LENGTH];
+        private final int[] usedSlots = new int[MAX_PATTERN_LENGTH];
+        private int usedSlotCount;
+        int length;
+
+        /**
+         * Loads the masks of the given pattern, replacing the masks of the previously loaded pattern.
+         */
+        void load(CharSequence pattern) {
+            clear();
+            final int patternLength = pattern.length();
+            if (patternLength > MAX_PATTERN_LENGTH) {
+                throw new IllegalArgumentException("Pattern is longer than " + MAX_PATTERN_LENGTH + " characters");
+            }
+
+            for (int i = 0; i < patternLength; i++) {
+                final char c = pattern.charAt(i);
+                patternChars[i] = c;
+                if (c < 128) {
+                    asciiMasks[c] |= 1L << i;
+                } else {
+                    final int slot = slot(c);
+                    if (tableKeys[slot] == 0) {
+                        tableKeys[slot] = c;
+                        usedSlots[usedSlotCount++] = slot;
+                    }
+                    tableMasks[slot] |= 1L << i;
+                }
+            }
+            length = patternLength;
+        }
+
+        long mask(char c) {
+            if (c < 128) {
+                return asciiMasks[c];
+            }
+            final int slot = slot(c);
+            return (tableKeys[slot] == c) ? tableMasks[slot] : 0L;
+        }
+
+        /**
+         * @return The slot that holds the given (non-ASCII) character or the empty slot where it would be inserted.
+         */
+        private int slot(char c) {
+            int slot = (c * 0x9E3779B1 >>> 25) & (TABLE_SIZE - 1);
+            while (tableKeys[slot] != 0 && tableKeys[slot] != c) {
+                slot = (slot + 1) & (TABLE_SIZE - 1);
+            }
+            return slot;
+        }
+
+        private void clear() {
+            for (int i = 0; i < length; i++) {
+                final char c = patternChars[i];
+                if (c < 128) {
+                    asciiMasks[c] = 0L;
+                }
+            }
+            for (int i = 0; i < usedSlotCount; i++) {
+                tableKeys[usedSlots[i]] = 0;
+                tableMasks[usedSlots[i]] = 0L;
+            }
+            usedSlotCount = 0;
+            length = 0;
+        }
+    }
+
+    /**
+     * A query whose tables are computed once, so that it can be compared with many candidates (concurrently).
+     */
+    static final class Query {
+        private final CharSequence string;
+        private final int length;
+        private final PatternMasks masks;
+        private final char[] chars;
+
+        Query(@NonNull CharSequence query) {
+            string = query;
+            length = query.length();
+            if (length <= MAX_PATTERN_LENGTH) {
+                masks = new PatternMasks();
+                masks.load(query);
+                chars = null;
+            } else {
+                masks = null;
+                chars = new char[length];
+                getChars(query, chars);
+            }
+        }
+
+        /**
+         * @return The distance between this query and the candidate, or -1 if it is larger than maxDistance.
+         */
+        int distance(@NonNull CharSequence candidate, int maxDistance, Scratch scratch) {
+            final int candidateLength = candidate.length();
+            if (Math.abs(candidateLength - length) > maxDistance) {
+                return -1;
+            }
+            maxDistance = Math.min(maxDistance, Math.max(candidateLength, length));
+
+            if (length == 0) {
+                return candidateLength;
+            } else if (candidateLength == 0) {
+                return length;
+            } else if (masks != null) {
+                return bitParallelDistance(masks, candidate, maxDistance);
+            } else if (candidateLength <= MAX_PATTERN_LENGTH) {
+                scratch.pattern.load(candidate);
+                return bitParallelDistance(scratch.pattern, string, maxDistance);
+            }
+            return bandedDistance(chars, length, candidate, maxDistance, scratch);
+        }
+    }
+
+    /**
+     * A bounded max-heap of (distance, index) pairs that keeps the pairs with the smallest distance (and, for
+     * equal distances, the smallest index).
+     */
+    private static final class TopK {
+        final int[] distances;
+        final int[] indices;
+        int size;
+
+        TopK(int capacity) {
+            distances = new int[capacity];
+            indices = new int[capacity];
+        }
+
+        boolean isFull() {
+            return size == distances.length;
+        }
+
+        int worstDistance() {
+            return distances[0];
+        }
+
+        void offer(int distance, int index) {
+            if (!isFull()) {
+                // Sift up
+                int child = size++;
+                while (child > 0) {
+                    final int parent = (child - 1) >>> 1;
+                    if (!isWorse(distance, index, distances[parent], indices[parent])) {
+                        break;
+                    }
+                    distances[child] = distances[parent];
+                    indices[child] = indices[parent];
+                    child = parent;
+                }
+                distances[child] = distance;
+                indices[child] = index;
+            } else if (size > 0 && isWorse(distances[0], indices[0], distance, index)) {
+                // Replace the root and sift down
+                int parent = 0;
+                while (true) {
+                    int child = 2 * parent + 1;
+                    if (child >= size) {
+                        break;
+                    }
+                    if (child + 1 < size && isWorse(distances[child + 1], indices[child + 1], distances[child],
+                                                    indices[child])) {
+                        child++;
+                    }
+                    if (!isWorse(distances[child], indices[child], distance, index)) {
+                        break;
+                    }
+                    distances[parent] = distances[child];
+                    indices[parent] = indices[child];
+                    parent = child;
+                }
+                distances[parent] = distance;
+                indices[parent] = index;
+            }
+        }
+
+        int[] sortedIndices() {
+            // Distances are small, so packing (distance, index) into a long keeps this allocation-light.
+            final long[] packed = new long[size];
+            for (int i = 0; i < size; i++) {
+                packed[i] = ((long) distances[i] << 32) | indices[i];
+            }
+            Arrays.sort(packed);
+            final int[] result = new int[size];
+            for (int i = 0; i < size; i++) {
+                result[i] = (int) packed[i];
+            }
+            return result;
+        }
+
+        private static boolean isWorse(int distance1, int index1, int distance2, int index2) {
+            return (distance1 != distance2) ? (distance1 > distance2) : (index1 > index2);
+        }
+    }
+
+    /**
+     * Per-thread (or per-worker) scratch space of the kernels.
+     */
+    static final class Scratch {
+        final PatternMasks pattern = new PatternMasks();
+        private int[] row1 = new int[0];
+        private int[] row2 = new int[0];
+        private char[] chars = new char[0];
+
+        int[] row1(int length) {
+            if (row1.length >= length) {
+                return row1;
+            }
+            final int[] row = new int[length];
+            if (length <= MAX_RETAINED_SCRATCH_LENGTH) {
+                row1 = row;
+            }
+            return row;
+        }
+
+        int[] row2(int length) {
+            if (row2.length >= length) {
+                return row2;
+            }
+            final int[] row = new int[length];
+            if (length <= MAX_RETAINED_SCRATCH_LENGTH) {
+                row2 = row;
+            }
+            return row;
+        }
+
+        char[] chars(CharSequence string) {
+            final int length = string.length();
+            char[] result = chars;
+            if (result.length < length) {
+                result = new char[length];
+                if (length <= MAX_RETAINED_SCRATCH_LENGTH) {
+                    chars = result;
+                }
+            }
+            getChars(string, result);
+            return result;
+        }
+    }
+}
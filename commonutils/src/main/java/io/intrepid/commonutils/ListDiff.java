@@ -0,0 +1,635 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The differences between an old and a new version of a list, as the insert, remove, move and change operations that
+ * turn the old list into the new one, e.g. to animate a RecyclerView with {@code notifyItemRangeInserted()} and its
+ * siblings instead of rebinding everything with {@code notifyDataSetChanged()}.
+ * <p>
+ * Items are matched with the caller's {@link ItemCallback}: items are the same if they represent the same entity,
+ * like rows with the same id, and their contents are the same if they display the same. The longest sequence of
+ * matching items that keep their order is found with Myers' O(ND) algorithm, in its linear-space variant that
+ * recursively finds the middle snake, so the time depends on the number of differences D rather than on the product
+ * of the list sizes. Optionally, the remaining removed items are then matched with the remaining inserted items, which
+ * turns those pairs into moves.
+ * <p>
+ * The positions of the items are kept in int arrays: the matching position in the other list and a few flags, per
+ * item. {@link #compute(List, List, ItemCallback)} only reads snapshots of the lists, so it can run on a background
+ * thread; {@link #dispatchUpdatesTo(UpdateListener)} should then be called on the thread that owns the adapter, right
+ * after the adapter's data has been replaced by the new list.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public final class ListDiff {
+    /**
+     * Returned by {@link #convertOldPositionToNew(int)} and {@link #convertNewPositionToOld(int)} for items that were
+     * removed or inserted.
+     */
+    public static final int NO_POSITION = -1;
+
+    // The flags of an item, in the low bits of its status; the position in the other list is in the high bits
+    private static final int FLAG_NOT_CHANGED = 1;
+    private static final int FLAG_CHANGED = 2;
+    private static final int FLAG_MOVED_NOT_CHANGED = 4;
+    private static final int FLAG_MOVED_CHANGED = 8;
+    private static final int FLAG_MOVED = FLAG_MOVED_NOT_CHANGED | FLAG_MOVED_CHANGED;
+    private static final int FLAG_BITS = 4;
+
+    private final int[] oldStatuses;
+    private final int[] newStatuses;
+    // Runs of items that kept their order, as (old start, new start, length) triples in increasing order
+    private final int[] diagonals;
+    private final int diagonalCount;
+
+    private ListDiff(int[] oldStatuses, int[] newStatuses, int[] diagonals, int diagonalCount) {
+        this.oldStatuses = oldStatuses;
+        this.newStatuses = newStatuses;
+        this.diagonals = diagonals;
+        this.diagonalCount = diagonalCount;
+    }
+
+    /**
+     * Same as {@link #compute(List, List, ItemCallback, boolean)} with move detection.
+     */
+    @NonNull
+    public static <T> ListDiff compute(@NonNull List<? extends T> oldList, @NonNull List<? extends T> newList,
+                                       @NonNull ItemCallback<? super T> callback) {
+        return compute(oldList, newList, callback, true);
+    }
+
+    /**
+     * Computes the differences between two lists.
+     *
+     * @param oldList     The old version of the list.
+     * @param newList     The new version of the list.
+     * @param callback    The callback that compares the items, which is called on the calling thread.
+     * @param detectMoves True to report items that changed their order as moves. This calls
+     *                    {@link ItemCallback#areItemsTheSame(Object, Object)} for each pair of a removed and an
+     *                    inserted item, so it is best left off when both lists change completely.
+     * @return The differences.
+     */
+    @NonNull
+    public static <T> ListDiff compute(@NonNull List<? extends T> oldList, @NonNull List<? extends T> newList,
+                                       @NonNull ItemCallback<? super T> callback, boolean detectMoves) {
+        final Differ<T> differ = new Differ<>(oldList.toArray(), newList.toArray(), callback);
+        differ.findDiagonals();
+        return differ.finish(detectMoves);
+    }
+
+    /**
+     * @return The number of items of the old list.
+     */
+    public int getOldListSize() {
+        return oldStatuses.length;
+    }
+
+    /**
+     * @return The number of items of the new list.
+     */
+    public int getNewListSize() {
+        return newStatuses.length;
+    }
+
+    /**
+     * @param oldPosition The position of an item in the old list.
+     * @return The position of the same item in the new list, or {@link #NO_POSITION} if it was removed.
+     */
+    public int convertOldPositionToNew(int oldPosition) {
+        if (oldPosition < 0 || oldPosition >= oldStatuses.length) {
+            throw new IndexOutOfBoundsException("position=" + oldPosition + ", size=" + oldStatuses.length);
+        }
+        final int status = oldStatuses[oldPosition];
+        return (status == 0) ? NO_POSITION : status >>> FLAG_BITS;
+    }
+
+    /**
+     * @param newPosition The position of an item in the new list.
+     * @return The position of the same item in the old list, or {@link #NO_POSITION} if it was inserted.
+     */
+    public int convertNewPositionToOld(int newPosition) {
+        if (newPosition < 0 || newPosition >= newStatuses.length) {
+            throw new IndexOutOfBoundsException("position=" + newPosition + ", size=" + newStatuses.length);
+        }
+        final int status = newStatuses[newPosition];
+        return (status == 0) ? NO_POSITION : status >>> FLAG_BITS;
+    }
+
+    /**
+     * Reports the operations that turn the old list into the new one. The position of each operation refers to the
+     * list as it is after all previous operations. Operations on adjacent items are merged into ranges.
+     *
+     * @param listener The listener, e.g. one that calls the {@code notifyItemRange*()} methods of an adapter.
+     */
+    public void dispatchUpdatesTo(@NonNull UpdateListener listener) {
+        final BatchingListener batching = new BatchingListener(listener);
+        // The updates of moved items whose other end hasn't been reached yet, as (position in their own list,
+        // distance from the end of the current list, 1 for removals) triples in the order they were added
+        int[] postponed = new int[3 * 4];
+        int postponedCount = 0;
+
+        // The operations are reported from the end of the list to the start, so the positions of the items before
+        // the current position never change
+        int currentSize = oldStatuses.length;
+        int posX = oldStatuses.length;
+        int posY = newStatuses.length;
+        // Empty diagonals at the end and at the start of the lists make sure all items are reached
+        for (int d = diagonalCount; d >= -1; d--) {
+            final boolean sentinel = d < 0 || d == diagonalCount;
+            final int diagonalX = sentinel ? ((d < 0) ? 0 : oldStatuses.length) : diagonals[3 * d];
+            final int diagonalY = sentinel ? ((d < 0) ? 0 : newStatuses.length) : diagonals[3 * d + 1];
+            final int length = sentinel ? 0 : diagonals[3 * d + 2];
+            final int endX = diagonalX + length;
+            final int endY = diagonalY + length;
+
+            while (posX > endX) {
+                posX--;
+                final int status = oldStatuses[posX];
+                if ((status & FLAG_MOVED) != 0) {
+                    final int index = findPostponed(postponed, postponedCount, status >>> FLAG_BITS, false);
+                    if (index >= 0) {
+                        // The item moves into the gap that was left for it
+                        final int toPosition = currentSize - postponed[3 * index + 1] - 1;
+                        batching.onMoved(posX, toPosition);
+                        if ((status & FLAG_MOVED_CHANGED) != 0) {
+                            batching.onChanged(toPosition, 1);
+                        }
+                        postponedCount = removePostponed(postponed, postponedCount, index, 1);
+                    } else {
+                        // The item stays until its new position is reached
+                        postponedCount = addPostponed(postponed = grow(postponed, postponedCount), postponedCount,
+                                                      posX, currentSize - posX - 1, true);
+                    }
+                } else {
+                    batching.onRemoved(posX, 1);
+                    currentSize--;
+                }
+            }
+
+            while (posY > endY) {
+                posY--;
+                final int status = newStatuses[posY];
+                if ((status & FLAG_MOVED) != 0) {
+                    final int index = findPostponed(postponed, postponedCount, status >>> FLAG_BITS, true);
+                    if (index >= 0) {
+                        // The item was left behind by its removal, and now moves here
+                        final int fromPosition = currentSize - postponed[3 * index + 1] - 1;
+                        batching.onMoved(fromPosition, posX);
+                        if ((status & FLAG_MOVED_CHANGED) != 0) {
+                            batching.onChanged(posX, 1);
+                        }
+                        postponedCount = removePostponed(postponed, postponedCount, index, -1);
+                    } else {
+                        // The item will be moved here once its old position is reached
+                        postponedCount = addPostponed(postponed = grow(postponed, postponedCount), postponedCount,
+                                                      posY, currentSize - posX, false);
+                    }
+                } else {
+                    batching.onInserted(posX, 1);
+                    currentSize++;
+                }
+            }
+
+            for (int i = 0; i < length; i++) {
+                if ((oldStatuses[diagonalX + i] & FLAG_CHANGED) != 0) {
+                    batching.onChanged(diagonalX + i, 1);
+                }
+            }
+            posX = diagonalX;
+            posY = diagonalY;
+        }
+        batching.flush();
+    }
+
+    /**
+     * @return The index of the postponed update of the given item, or -1 if there is none.
+     */
+    private static int findPostponed(int[] postponed, int count, int position, boolean removal) {
+        final int removalFlag = removal ? 1 : 0;
+        for (int i = 0; i < count; i++) {
+            if (postponed[3 * i] == position && postponed[3 * i + 2] == removalFlag) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Removes a postponed update and shifts the updates that were added after it, which are closer to the start of
+     * the list, by the given offset.
+     *
+     * @return The new number of postponed updates.
+     */
+    private static int removePostponed(int[] postponed, int count, int index, int offset) {
+        System.arraycopy(postponed, 3 * (index + 1), postponed, 3 * index, 3 * (count - index - 1));
+        for (int i = index; i < count - 1; i++) {
+            postponed[3 * i + 1] += offset;
+        }
+        return count - 1;
+    }
+
+    private static int addPostponed(int[] postponed, int count, int position, int distanceFromEnd, boolean removal) {
+        postponed[3 * count] = position;
+        postponed[3 * count + 1] = distanceFromEnd;
+        postponed[3 * count + 2] = removal ? 1 : 0;
+        return count + 1;
+    }
+
+    private static int[] grow(int[] array, int tripleCount) {
+        return (3 * tripleCount < array.length) ? array : Arrays.copyOf(array, 2 * array.length);
+    }
+
+    /**
+     * Compares the items of the two lists.
+     *
+     * @param <T> The type of the items.
+     */
+    public interface ItemCallback<T> {
+        /**
+         * @return True if the items represent the same entity, e.g. because they have the same id.
+         */
+        boolean areItemsTheSame(T oldItem, T newItem);
+
+        /**
+         * Only called for items that are the same.
+         *
+         * @return True if the items display the same, so the item doesn't need to be rebound.
+         */
+        boolean areContentsTheSame(T oldItem, T newItem);
+    }
+
+    /**
+     * Receives the operations that turn the old list into the new one.
+     */
+    public interface UpdateListener {
+        void onInserted(int position, int count);
+
+        void onRemoved(int position, int count);
+
+        void onMoved(int fromPosition, int toPosition);
+
+        void onChanged(int position, int count);
+    }
+
+    /**
+     * Merges consecutive operations of the same type on adjacent positions into one.
+     */
+    private static final class BatchingListener implements UpdateListener {
+        private static final int NONE = 0;
+        private static final int INSERTED = 1;
+        private static final int REMOVED = 2;
+        private static final int CHANGED = 3;
+
+        private final UpdateListener listener;
+        private int lastType = NONE;
+        private int lastPosition;
+        private int lastCount;
+
+        BatchingListener(UpdateListener listener) {
+            this.listener = listener;
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            if (lastType == INSERTED && position >= lastPosition && position <= lastPosition + lastCount) {
+                lastCount += count;
+                lastPosition = Math.min(position, lastPosition);
+                return;
+            }
+            start(INSERTED, position, count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            if (lastType == REMOVED && lastPosition >= position && lastPosition <= position + count) {
+                lastCount += count;
+                lastPosition = position;
+                return;
+            }
+            start(REMOVED, position, count);
+        }
+
+        @Override
+        public void onMoved(int fromPosition, int toPosition) {
+            flush();
+            listener.onMoved(fromPosition, toPosition);
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            if (lastType == CHANGED && position <= lastPosition + lastCount && position + count >= lastPosition) {
+                final int end = Math.max(lastPosition + lastCount, position + count);
+                lastPosition = Math.min(position, lastPosition);
+                lastCount = end - lastPosition;
+                return;
+            }
+            start(CHANGED, position, count);
+        }
+
+        void flush() {
+            switch (lastType) {
+                case INSERTED:
+                    listener.onInserted(lastPosition, lastCount);
+                    break;
+                case REMOVED:
+                    listener.onRemoved(lastPosition, lastCount);
+                    break;
+                case CHANGED:
+                    listener.onChanged(lastPosition, lastCount);
+                    break;
+                default:
+                    break;
+            }
+            lastType = NONE;
+        }
+
+        private void start(int type, int position, int count) {
+            flush();
+            lastType = type;
+            lastPosition = position;
+            lastCount = count;
+        }
+    }
+
+    /**
+     * Myers' linear-space algorithm: find the middle snake of a range, i.e. the diagonal run in the middle of an
+     * optimal path through the edit graph, by searching forward from the start and backward from the end until the
+     * searches overlap, and continue with the ranges before and after it.
+     */
+    private static final class Differ<T> {
+        // The items of lists of T, cast back one at a time by oldItem() and newItem()
+        private final Object[] oldItems;
+        private final Object[] newItems;
+        private final ItemCallback<? super T> callback;
+
+        // The furthest x reached on each diagonal k, at index k + offset
+        private final int[] forward;
+        private final int[] backward;
+        private final int offset;
+
+        private final int[] oldStatuses;
+        private final int[] newStatuses;
+
+        // The result of the last call to findMiddleSnake()
+        private int snakeStartX;
+        private int snakeStartY;
+        private int snakeEndX;
+        private int snakeEndY;
+        private boolean snakeReverse;
+
+        Differ(Object[] oldItems, Object[] newItems, ItemCallback<? super T> callback) {
+            this.oldItems = oldItems;
+            this.newItems = newItems;
+            this.callback = callback;
+            final int max = (oldItems.length + newItems.length + 1) / 2;
+            forward = new int[2 * max + 3];
+            backward = new int[2 * max + 3];
+            offset = max + 1;
+            oldStatuses = new int[oldItems.length];
+            newStatuses = new int[newItems.length];
+        }
+
+        @SuppressWarnings("unchecked")
+        private T oldItem(int x) {
+            return (T) oldItems[x];
+        }
+
+        @SuppressWarnings("unchecked")
+        private T newItem(int y) {
+            return (T) newItems[y];
+        }
+
+        /**
+         * Matches the items of the diagonals of an optimal path, marking them in the status arrays.
+         */
+        void findDiagonals() {
+            // Ranges still to be searched, as (old start, old end, new start, new end)
+            int[] stack = new int[4 * 16];
+            int size = 0;
+            stack[size++] = 0;
+            stack[size++] = oldItems.length;
+            stack[size++] = 0;
+            stack[size++] = newItems.length;
+
+            while (size > 0) {
+                final int newEnd = stack[--size];
+                final int newStart = stack[--size];
+                final int oldEnd = stack[--size];
+                final int oldStart = stack[--size];
+                if (!findMiddleSnake(oldStart, oldEnd, newStart, newEnd)) {
+                    continue;
+                }
+                markSnake();
+
+                if (size + 8 > stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * stack.length);
+                }
+                stack[size++] = oldStart;
+                stack[size++] = snakeStartX;
+                stack[size++] = newStart;
+                stack[size++] = snakeStartY;
+                stack[size++] = snakeEndX;
+                stack[size++] = oldEnd;
+                stack[size++] = snakeEndY;
+                stack[size++] = newEnd;
+            }
+        }
+
+        /**
+         * Checks the contents of the matched items, matches the removed items with inserted ones if requested, and
+         * collects the diagonals.
+         */
+        ListDiff finish(boolean detectMoves) {
+            int[] diagonals = new int[3 * 8];
+            int diagonalCount = 0;
+            int runStart = -1;
+            for (int x = 0; x <= oldItems.length; x++) {
+                final boolean matched = x < oldItems.length && oldStatuses[x] != 0;
+                if (matched) {
+                    final int y = oldStatuses[x] >>> FLAG_BITS;
+                    if (!callback.areContentsTheSame(oldItem(x), newItem(y))) {
+                        oldStatuses[x] = (y << FLAG_BITS) | FLAG_CHANGED;
+                        newStatuses[y] = (x << FLAG_BITS) | FLAG_CHANGED;
+                    }
+                }
+                // Runs of matched items end where the items before them didn't match, or matched out of order
+                if (runStart >= 0 && (!matched || (oldStatuses[x] >>> FLAG_BITS)
+                        != (oldStatuses[runStart] >>> FLAG_BITS) + x - runStart)) {
+                    if (3 * diagonalCount + 3 > diagonals.length) {
+                        diagonals = Arrays.copyOf(diagonals, 2 * diagonals.length);
+                    }
+                    diagonals[3 * diagonalCount] = runStart;
+                    diagonals[3 * diagonalCount + 1] = oldStatuses[runStart] >>> FLAG_BITS;
+                    diagonals[3 * diagonalCount + 2] = x - runStart;
+                    diagonalCount++;
+                    runStart = -1;
+                }
+                if (matched && runStart < 0) {
+                    runStart = x;
+                }
+            }
+
+            if (detectMoves) {
+                findMoves();
+            }
+            return new ListDiff(oldStatuses, newStatuses, diagonals, diagonalCount);
+        }
+
+        /**
+         * Matches each removed item with the first inserted item that is the same.
+         */
+        private void findMoves() {
+            final int[] inserted = new int[newItems.length];
+            int insertedCount = 0;
+            for (int y = 0; y < newItems.length; y++) {
+                if (newStatuses[y] == 0) {
+                    inserted[insertedCount++] = y;
+                }
+            }
+
+            // Matched entries are set to -1 and dropped from the front of the range
+            int first = 0;
+            for (int x = 0; x < oldItems.length && first < insertedCount; x++) {
+                if (oldStatuses[x] != 0) {
+                    continue;
+                }
+                for (int i = first; i < insertedCount; i++) {
+                    final int y = inserted[i];
+                    if (y >= 0 && callback.areItemsTheSame(oldItem(x), newItem(y))) {
+                        final int flag = callback.areContentsTheSame(oldItem(x), newItem(y))
+                                ? FLAG_MOVED_NOT_CHANGED : FLAG_MOVED_CHANGED;
+                        oldStatuses[x] = (y << FLAG_BITS) | flag;
+                        newStatuses[y] = (x << FLAG_BITS) | flag;
+                        inserted[i] = -1;
+                        while (first < insertedCount && inserted[first] < 0) {
+                            first++;
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Marks the diagonal part of the last middle snake as matched.
+         */
+        private void markSnake() {
+            final int length = Math.min(snakeEndX - snakeStartX, snakeEndY - snakeStartY);
+            if (length <= 0) {
+                return;
+            }
+            int x = snakeStartX;
+            int y = snakeStartY;
+            if (snakeEndX - snakeStartX != snakeEndY - snakeStartY && !snakeReverse) {
+                // A forward snake starts with the insertion or removal that leads to its diagonal
+                if (snakeEndY - snakeStartY > snakeEndX - snakeStartX) {
+                    y++;
+                } else {
+                    x++;
+                }
+            }
+            for (int i = 0; i < length; i++) {
+                // The flag tells matches at position 0 apart from unmatched items; finish() sets the actual flags
+                oldStatuses[x + i] = ((y + i) << FLAG_BITS) | FLAG_NOT_CHANGED;
+                newStatuses[y + i] = ((x + i) << FLAG_BITS) | FLAG_NOT_CHANGED;
+            }
+        }
+
+        /**
+         * @return False if either range is empty, so there is nothing to match.
+         */
+        private boolean findMiddleSnake(int oldStart, int oldEnd, int newStart, int newEnd) {
+            final int oldSize = oldEnd - oldStart;
+            final int newSize = newEnd - newStart;
+            if (oldSize < 1 || newSize < 1) {
+                return false;
+            }
+            final int max = (oldSize + newSize + 1) / 2;
+            forward[offset + 1] = oldStart;
+            backward[offset + 1] = oldEnd;
+            for (int d = 0; d < max; d++) {
+                if (searchForward(oldStart, oldEnd, newStart, newEnd, d)
+                        || searchBackward(oldStart, oldEnd, newStart, newEnd, d)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean searchForward(int oldStart, int oldEnd, int newStart, int newEnd, int d) {
+            final int delta = (oldEnd - oldStart) - (newEnd - newStart);
+            final boolean checkOverlap = (Math.abs(delta) & 1) == 1;
+            for (int k = -d; k <= d; k += 2) {
+                final int startX;
+                int x;
+                if (k == -d || (k != d && forward[offset + k + 1] > forward[offset + k - 1])) {
+                    // Down: an insertion
+                    startX = forward[offset + k + 1];
+                    x = startX;
+                } else {
+                    // Right: a removal
+                    startX = forward[offset + k - 1];
+                    x = startX + 1;
+                }
+                int y = newStart + (x - oldStart) - k;
+                final int startY = (d == 0 || x != startX) ? y : y - 1;
+                while (x < oldEnd && y < newEnd && callback.areItemsTheSame(oldItem(x), newItem(y))) {
+                    x++;
+                    y++;
+                }
+                forward[offset + k] = x;
+                if (checkOverlap) {
+                    final int backwardK = delta - k;
+                    if (backwardK >= -d + 1 && backwardK <= d - 1 && backward[offset + backwardK] <= x) {
+                        setSnake(startX, startY, x, y, false);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean searchBackward(int oldStart, int oldEnd, int newStart, int newEnd, int d) {
+            final int delta = (oldEnd - oldStart) - (newEnd - newStart);
+            final boolean checkOverlap = (Math.abs(delta) & 1) == 0;
+            for (int k = -d; k <= d; k += 2) {
+                final int startX;
+                int x;
+                if (k == -d || (k != d && backward[offset + k + 1] < backward[offset + k - 1])) {
+                    // Up: an insertion
+                    startX = backward[offset + k + 1];
+                    x = startX;
+                } else {
+                    // Left: a removal
+                    startX = backward[offset + k - 1];
+                    x = startX - 1;
+                }
+                int y = newEnd - ((oldEnd - x) - k);
+                final int startY = (d == 0 || x != startX) ? y : y + 1;
+                while (x > oldStart && y > newStart && callback.areItemsTheSame(oldItem(x - 1), newItem(y - 1))) {
+                    x--;
+                    y--;
+                }
+                backward[offset + k] = x;
+                if (checkOverlap) {
+                    final int forwardK = delta - k;
+                    if (forwardK >= -d && forwardK <= d && forward[offset + forwardK] >= x) {
+                        setSnake(x, y, startX, startY, true);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private void setSnake(int startX, int startY, int endX, int endY, boolean reverse) {
+            snakeStartX = startX;
+            snakeStartY = startY;
+            snakeEndX = endX;
+            snakeEndY = endY;
+            snakeReverse = reverse;
+        }
+    }
+}
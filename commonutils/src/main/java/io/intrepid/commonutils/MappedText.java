@@ -0,0 +1,366 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Arrays;
+
+/**
+ * A read-only {@link CharSequence} view of an encoded text, typically a memory-mapped file
+ * (see {@link #map(File, Charset)}). The text stays in the mapped file instead of on the Java heap, and characters
+ * are only decoded when they are accessed, so large files can be searched, compared and split with the
+ * {@link StringUtils} methods without loading them.
+ * <p>
+ * US-ASCII and ISO-8859-1 texts are indexed directly: character i is byte i. UTF-8 texts are split into pages of
+ * about 4 KB. The first access builds an index of the number of characters per page, pages that only contain ASCII
+ * are indexed directly as well, and the other pages are decoded when they are accessed. A few decoded pages are
+ * kept, so sequential access decodes every page only once. Malformed input is replaced, like
+ * {@link java.io.InputStreamReader} does.
+ * <p>
+ * {@link #toString()} and {@link #subSequence(int, int)}{@code .toString()} copy the characters onto the heap.
+ * <p>
+ * This class is not thread-safe.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public final class MappedText implements CharSequence {
+    private static final Charset UTF_8 = TextDecoder.UTF_8;
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    private static final int MODE_ASCII = 0;
+    private static final int MODE_LATIN1 = 1;
+    private static final int MODE_UTF8 = 2;
+
+    private static final int PAGE_SIZE = 4096;
+    private static final int CACHED_PAGES = 4;
+    private static final char REPLACEMENT_CHAR = '\uFFFD';
+
+    private final ByteBuffer bytes;
+    private final int mode;
+
+    // The page index of UTF-8 texts
+    private int[] pageByteStarts;
+    private int[] pageCharStarts;
+    private boolean[] asciiPages;
+    private int pageCount;
+    private int length = -1;
+
+    // The most recently accessed page
+    private int currentPage = -1;
+    private int currentCharStart;
+    private int currentCharEnd;
+    private char[] currentChars;
+
+    // Decoded pages, replaced round-robin
+    private CharsetDecoder decoder;
+    private final int[] cachedPageNumbers = new int[CACHED_PAGES];
+    private final char[][] cachedPages = new char[CACHED_PAGES][];
+    private int nextCacheSlot;
+
+    /**
+     * @param bytes   The encoded text. Its remaining bytes are used; the buffer must not be modified afterwards.
+     * @param charset The encoding of the text: UTF-8, US-ASCII or ISO-8859-1.
+     * @throws UnsupportedCharsetException If the charset isn't one of the supported ones.
+     */
+    public MappedText(@NonNull ByteBuffer bytes, @NonNull Charset charset) {
+        this.bytes = bytes.slice();
+        if (charset.equals(UTF_8)) {
+            mode = MODE_UTF8;
+        } else if (charset.equals(ISO_8859_1)) {
+            mode = MODE_LATIN1;
+        } else if (charset.equals(US_ASCII)) {
+            mode = MODE_ASCII;
+        } else {
+            throw new UnsupportedCharsetException(charset.name());
+        }
+        Arrays.fill(cachedPageNumbers, -1);
+    }
+
+    /**
+     * Maps a file into memory.
+     *
+     * @param file    The file.
+     * @param charset The encoding of the file: UTF-8, US-ASCII or ISO-8859-1.
+     * @return The text of the file.
+     * @throws IOException If the file can't be mapped.
+     */
+    @NonNull
+    public static MappedText map(@NonNull File file, @NonNull Charset charset) throws IOException {
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            return map(raf.getChannel(), charset);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Maps the contents of a channel into memory. The mapping stays valid after the channel is closed.
+     *
+     * @param channel The channel.
+     * @param charset The encoding of the file: UTF-8, US-ASCII or ISO-8859-1.
+     * @return The text of the channel.
+     * @throws IOException If the file can't be mapped or is larger than 2 GB.
+     */
+    @NonNull
+    public static MappedText map(@NonNull FileChannel channel, @NonNull Charset charset) throws IOException {
+        final long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("File is too large to be mapped: " + size + " bytes");
+        }
+        return new MappedText(channel.map(FileChannel.MapMode.READ_ONLY, 0, size), charset);
+    }
+
+    @Override
+    public int length() {
+        if (mode != MODE_UTF8) {
+            return bytes.limit();
+        }
+        if (length < 0) {
+            indexPages(Integer.MAX_VALUE);
+        }
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0) {
+            throw new IndexOutOfBoundsException("index=" + index);
+        }
+        if (mode == MODE_LATIN1) {
+            return (char) (bytes.get(index) & 0xFF);
+        } else if (mode == MODE_ASCII) {
+            final byte b = bytes.get(index);
+            return (b >= 0) ? (char) b : REPLACEMENT_CHAR;
+        }
+
+        if (index < currentCharStart || index >= currentCharEnd) {
+            selectPage(index);
+        }
+        return (currentChars != null)
+                ? currentChars[index - currentCharStart]
+                : (char) bytes.get(pageByteStarts[currentPage] + index - currentCharStart);
+    }
+
+    /**
+     * Copies characters into an array, like {@link String#getChars(int, int, char[], int)}.
+     *
+     * @param start     The index of the first character to copy.
+     * @param end       The index after the last character to copy.
+     * @param dest      The destination.
+     * @param destStart The index in the destination of the first character.
+     */
+    public void getChars(int start, int end, @NonNull char[] dest, int destStart) {
+        if (start < 0 || start > end || end > length() || destStart < 0 || destStart + end - start > dest.length) {
+            throw new IndexOutOfBoundsException("start=" + start + ", end=" + end + ", length=" + length());
+        }
+
+        if (mode != MODE_UTF8) {
+            for (int i = start; i < end; i++) {
+                dest[destStart++] = charAt(i);
+            }
+            return;
+        }
+
+        int pos = start;
+        while (pos < end) {
+            if (pos < currentCharStart || pos >= currentCharEnd) {
+                selectPage(pos);
+            }
+            final int count = Math.min(end, currentCharEnd) - pos;
+            if (currentChars != null) {
+                System.arraycopy(currentChars, pos - currentCharStart, dest, destStart, count);
+            } else {
+                final int byteStart = pageByteStarts[currentPage] + pos - currentCharStart;
+                for (int i = 0; i < count; i++) {
+                    dest[destStart + i] = (char) bytes.get(byteStart + i);
+                }
+            }
+            pos += count;
+            destStart += count;
+        }
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        if (start < 0 || start > end || end > length()) {
+            throw new IndexOutOfBoundsException("start=" + start + ", end=" + end + ", length=" + length());
+        }
+        return new Slice(this, start, end);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return toString(0, length());
+    }
+
+    String toString(int start, int end) {
+        final char[] chars = new char[end - start];
+        getChars(start, end, chars, 0);
+        return new String(chars);
+    }
+
+    /**
+     * Makes the page that contains the given character the current page.
+     */
+    private void selectPage(int index) {
+        indexPages(index);
+        if (index >= length && length >= 0) {
+            throw new IndexOutOfBoundsException("index=" + index + ", length=" + length);
+        }
+
+        int page = Arrays.binarySearch(pageCharStarts, 0, pageCount, index);
+        if (page < 0) {
+            page = -page - 2;
+        }
+
+        currentPage = page;
+        currentCharStart = pageCharStarts[page];
+        currentCharEnd = pageCharStarts[page + 1];
+        currentChars = asciiPages[page] ? null : decodedPage(page);
+    }
+
+    /**
+     * Extends the page index until it covers the given character or the whole text.
+     */
+    private void indexPages(int index) {
+        if (pageByteStarts == null) {
+            final int maxPages = bytes.limit() / PAGE_SIZE + 1;
+            pageByteStarts = new int[maxPages + 1];
+            pageCharStarts = new int[maxPages + 1];
+            asciiPages = new boolean[maxPages];
+        }
+
+        final int limit = bytes.limit();
+        while (length < 0 && (pageCount == 0 || pageCharStarts[pageCount] <= index)) {
+            final int start = pageByteStarts[pageCount];
+            final int end = pageEnd(start);
+
+            boolean ascii = true;
+            for (int i = start; i < end; i++) {
+                if (bytes.get(i) < 0) {
+                    ascii = false;
+                    break;
+                }
+            }
+
+            final int charCount;
+            if (ascii) {
+                charCount = end - start;
+            } else {
+                final char[] chars = decodePage(start, end);
+                cachePage(pageCount, chars);
+                charCount = chars.length;
+            }
+            asciiPages[pageCount] = ascii;
+            pageByteStarts[pageCount + 1] = end;
+            pageCharStarts[pageCount + 1] = pageCharStarts[pageCount] + charCount;
+            pageCount++;
+
+            if (end == limit) {
+                length = pageCharStarts[pageCount];
+            }
+        }
+    }
+
+    /**
+     * @return The end of the page that starts at the given byte, moved forward to the start of a character.
+     */
+    private int pageEnd(int start) {
+        final int limit = bytes.limit();
+        int end = (int) Math.min(limit, (long) start + PAGE_SIZE);
+        for (int i = 0; i < 3 && end < limit && (bytes.get(end) & 0xC0) == 0x80; i++) {
+            end++;
+        }
+        return end;
+    }
+
+    private char[] decodedPage(int page) {
+        for (int i = 0; i < CACHED_PAGES; i++) {
+            if (cachedPageNumbers[i] == page) {
+                return cachedPages[i];
+            }
+        }
+
+        final char[] chars = decodePage(pageByteStarts[page], pageByteStarts[page + 1]);
+        cachePage(page, chars);
+        return chars;
+    }
+
+    private void cachePage(int page, char[] chars) {
+        final int slot = nextCacheSlot;
+        nextCacheSlot = (slot + 1) % CACHED_PAGES;
+        cachedPageNumbers[slot] = page;
+        cachedPages[slot] = chars;
+    }
+
+    private char[] decodePage(int start, int end) {
+        if (decoder == null) {
+            decoder = UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        }
+
+        final ByteBuffer in = bytes.duplicate();
+        in.limit(end).position(start);
+        // UTF-8 never decodes to more chars than bytes
+        final CharBuffer out = CharBuffer.allocate(end - start);
+        decoder.reset();
+        decoder.decode(in, out, true);
+        decoder.flush(out);
+        return (out.position() == out.capacity()) ? out.array() : Arrays.copyOf(out.array(), out.position());
+    }
+
+    /**
+     * A range of the characters of a {@link MappedText}, which shares its characters.
+     */
+    private static final class Slice implements CharSequence {
+        private final MappedText text;
+        private final int start;
+        private final int end;
+
+        Slice(MappedText text, int start, int end) {
+            this.text = text;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (index < 0 || index >= end - start) {
+                throw new IndexOutOfBoundsException("index=" + index + ", length=" + (end - start));
+            }
+            return text.charAt(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int subStart, int subEnd) {
+            if (subStart < 0 || subStart > subEnd || subEnd > end - start) {
+                throw new IndexOutOfBoundsException("start=" + subStart + ", end=" + subEnd + ", length="
+                                                            + (end - start));
+            }
+            return new Slice(text, start + subStart, start + subEnd);
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return text.toString(start, end);
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Reads the fields of a binary packet, like a BLE characteristic value or a socket frame, from a byte array or a
+ * {@link ByteBuffer}, advancing a position as it goes.
+ * <p>
+ * The bytes aren't copied: {@link #skip(int)} only moves the position, and {@link #slice(int)} returns a reader over
+ * a range of the same bytes. Reading a field checks the bounds once for the whole field, and throws a
+ * {@link BufferUnderflowException} without moving the position if the field doesn't fit in the remaining bytes.
+ * <p>
+ * Multi-byte values are read in the byte order of the reader, which is big-endian (network order) by default.
+ * LEB128 values are always little-endian, as their encoding defines.
+ * <p>
+ * This class is not thread-safe.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public final class PacketReader {
+    // A 64-bit value takes at most 10 groups of 7 bits
+    static final int MAX_LEB128_BYTES = 10;
+
+    // Exactly one of array and buffer is set; positions are indices into either
+    private final byte[] array;
+    private final ByteBuffer buffer;
+    private final int start;
+    private final int limit;
+    private int position;
+    private boolean bigEndian = true;
+
+    /**
+     * @param bytes The bytes to read.
+     */
+    public PacketReader(@NonNull byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    /**
+     * @param bytes  The bytes to read.
+     * @param offset The index of the first byte to read.
+     * @param length The number of bytes to read.
+     */
+    public PacketReader(@NonNull byte[] bytes, int offset, int length) {
+        this(bytes, null, offset, length);
+        if (offset < 0 || length < 0 || offset > bytes.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", array length="
+                                                        + bytes.length);
+        }
+    }
+
+    /**
+     * Creates a reader over the remaining bytes of a buffer. The position of the buffer isn't changed, and the
+     * byte order of the reader is taken from the buffer.
+     *
+     * @param buffer The bytes to read.
+     */
+    public PacketReader(@NonNull ByteBuffer buffer) {
+        this(buffer.hasArray() ? buffer.array() : null, buffer.hasArray() ? null : buffer,
+             buffer.hasArray() ? buffer.arrayOffset() + buffer.position() : buffer.position(), buffer.remaining());
+        bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+    }
+
+    private PacketReader(byte[] array, ByteBuffer buffer, int start, int length) {
+        this.array = array;
+        this.buffer = buffer;
+        this.start = start;
+        this.limit = start + length;
+        this.position = start;
+    }
+
+    /**
+     * @param order The byte order of the multi-byte values that are read next.
+     * @return This reader.
+     */
+    @NonNull
+    public PacketReader order(@NonNull ByteOrder order) {
+        bigEndian = order == ByteOrder.BIG_ENDIAN;
+        return this;
+    }
+
+    /**
+     * @return The byte order of multi-byte values.
+     */
+    @NonNull
+    public ByteOrder order() {
+        return bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+    }
+
+    /**
+     * @return The number of bytes that have been read or skipped.
+     */
+    public int position() {
+        return position - start;
+    }
+
+    /**
+     * @param newPosition The number of bytes from the start of the packet at which to read next.
+     * @return This reader.
+     */
+    @NonNull
+    public PacketReader position(int newPosition) {
+        if (newPosition < 0 || newPosition > limit - start) {
+            throw new IndexOutOfBoundsException("position=" + newPosition + ", length=" + (limit - start));
+        }
+        position = start + newPosition;
+        return this;
+    }
+
+    /**
+     * @return The number of bytes that haven't been read yet.
+     */
+    public int remaining() {
+        return limit - position;
+    }
+
+    /**
+     * @return True if there are bytes that haven't been read yet.
+     */
+    public boolean hasRemaining() {
+        return position < limit;
+    }
+
+    /**
+     * Moves the position past the given number of bytes.
+     *
+     * @param count The number of bytes to skip.
+     * @return This reader.
+     * @throws BufferUnderflowException If fewer bytes remain.
+     */
+    @NonNull
+    public PacketReader skip(int count) {
+        require(count);
+        position += count;
+        return this;
+    }
+
+    /**
+     * Returns a reader over the next bytes, which share the bytes of this reader, and moves the position past them.
+     * The new reader has the same byte order.
+     *
+     * @param length The number of bytes of the new reader.
+     * @return The new reader.
+     * @throws BufferUnderflowException If fewer bytes remain.
+     */
+    @NonNull
+    public PacketReader slice(int length) {
+        require(length);
+        final PacketReader slice = new PacketReader(array, buffer, position, length);
+        slice.bigEndian = bigEndian;
+        position += length;
+        return slice;
+    }
+
+    /**
+     * @return The next byte, as a signed value.
+     * @throws BufferUnderflowException If no bytes remain.
+     */
+    public byte readByte() {
+        require(1);
+        return (byte) byteAt(position++);
+    }
+
+    /**
+     * @return The next byte, as an unsigned value.
+     * @throws BufferUnderflowException If no bytes remain.
+     */
+    public int readU8() {
+        require(1);
+        return byteAt(position++);
+    }
+
+    /**
+     * @return The next 2 bytes, as an unsigned value.
+     * @throws BufferUnderflowException If fewer bytes remain.
+     */
+    public int readU16() {
+        return (int) readUnsigned(2);
+    }
+
+    /**
+     * @return The next 2 bytes, as a signed value.
+     * @throws BufferUnderflowException If fewer bytes remain.
+     */
+    public short readShort() {
+        return (short) readUnsigned(2);
+    }
+
+    /**
+     * @return The next 3 bytes, as an unsigned value.
+     * @throws BufferUnderflowException If fewer bytes remain.
+     */
+    public int readU24() {
+        return (int) readUnsigned(3);
+    }
+
+    /**
+     * @return The next 4 bytes, as an unsigned value.
+     * @throws BufferUnderflowException If fewer bytes remain.
+     */
+    public long readU32() {
+        return readUnsigned(4);
+    }
+
+    /**
+     * @return The next 4 bytes, as a signed value.
+     * @throws BufferUnderflowException If fewer bytes remain.
+     */
+    public int readInt() {
+        return (int) readUnsigned(4);
+    }
+
+    /**
+     * @return The next 8 bytes, as a signed value.
+     * @throws BufferUnderflowException If fewer bytes remain.
+     */
+    public long readLong() {
+        return readUnsigned(8);
+    }
+
+    /**
+     * Reads an unsigned LEB128 value: groups of 7 bits, least significant first, with the high bit of each byte set
+     * if another byte follows.
+     *
+     * @return The value. Values of more than 63 bits wrap around to negative numbers.
+     * @throws BufferUnderflowException If the value doesn't end before the remaining bytes do.
+     * @throws IllegalArgumentException If the value is longer than 10 bytes.
+     */
+    public long readUleb128() {
+        final int end = findLeb128End();
+        long value = 0;
+        int shift = 0;
+        for (int i = position; i < end; i++) {
+            value |= (long) (byteAt(i) & 0x7F) << shift;
+            shift += 7;
+        }
+        position = end;
+        return value;
+    }
+
+    /**
+     * Reads a signed LEB128 value, in which the highest bit of the last group is the sign bit.
+     *
+     * @return The value.
+     * @throws BufferUnderflowException If the value doesn't end before the remaining bytes do.
+     * @throws IllegalArgumentException If the value is longer than 10 bytes.
+     */
+    public long readSleb128() {
+        final int end = findLeb128End();
+        long value = 0;
+        int shift = 0;
+        int b = 0;
+        for (int i = position; i < end; i++) {
+            b = byteAt(i);
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        }
+        if (shift < 64 && (b & 0x40) != 0) {
+            value |= -1L << shift;
+        }
+        position = end;
+        return value;
+    }
+
+    /**
+     * Copies the next bytes into an array.
+     *
+     * @param dest   The array to copy to.
+     * @param offset The index in the array of the first byte.
+     * @param length The number of bytes to copy.
+     * @return This reader.
+     * @throws BufferUnderflowException If fewer bytes remain.
+     */
+    @NonNull
+    public PacketReader readBytes(@NonNull byte[] dest, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > dest.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", array length="
+                                                        + dest.length);
+        }
+        require(length);
+        if (array != null) {
+            System.arraycopy(array, position, dest, offset, length);
+        } else {
+            for (int i = 0; i < length; i++) {
+                dest[offset + i] = buffer.get(position + i);
+            }
+        }
+        position += length;
+        return this;
+    }
+
+    /**
+     * Reads an unsigned value of the given number of bytes, with a single bounds check.
+     */
+    private long readUnsigned(int size) {
+        require(size);
+        final int first = position;
+        long value = 0;
+        if (bigEndian) {
+            for (int i = first; i < first + size; i++) {
+                value = (value << 8) | byteAt(i);
+            }
+        } else {
+            for (int i = first + size - 1; i >= first; i--) {
+                value = (value << 8) | byteAt(i);
+            }
+        }
+        position = first + size;
+        return value;
+    }
+
+    /**
+     * @return The index after the last byte of the LEB128 value at the position.
+     */
+    private int findLeb128End() {
+        final int max = Math.min(limit, position + MAX_LEB128_BYTES);
+        for (int i = position; i < max; i++) {
+            if ((byteAt(i) & 0x80) == 0) {
+                return i + 1;
+            }
+        }
+        if (max == limit && limit - position < MAX_LEB128_BYTES) {
+            throw new BufferUnderflowException();
+        }
+        throw new IllegalArgumentException("LEB128 value at position " + position() + " is longer than "
+                                                   + MAX_LEB128_BYTES + " bytes");
+    }
+
+    private void require(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("count must not be negative: " + count);
+        }
+        if (count > limit - position) {
+            throw new BufferUnderflowException();
+        }
+    }
+
+    private int byteAt(int index) {
+        return JavaUtils.byteToUnsignedInt((array != null) ? array[index] : buffer.get(index));
+    }
+}
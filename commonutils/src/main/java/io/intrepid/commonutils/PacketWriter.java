@@ -0,0 +1,272 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * Writes the fields of a binary packet, the counterpart of {@link PacketReader}.
+ * <p>
+ * A writer either grows its own array as needed, or writes into a fixed range of an existing array, like a buffer
+ * of the maximum frame size. Writing a field checks the bounds once for the whole field; a fixed writer throws a
+ * {@link BufferOverflowException} without writing anything if the field doesn't fit.
+ * <p>
+ * Multi-byte values are written in the byte order of the writer, which is big-endian (network order) by default.
+ * Values are truncated to the size of the field, like {@link java.io.DataOutputStream} does.
+ * <p>
+ * This class is not thread-safe.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public final class PacketWriter {
+    private static final int DEFAULT_CAPACITY = 32;
+
+    private byte[] array;
+    private final int start;
+    private int limit;
+    private final boolean growable;
+    private int position;
+    private boolean bigEndian = true;
+
+    /**
+     * Creates a writer that grows its own array as needed.
+     */
+    public PacketWriter() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a writer that grows its own array as needed.
+     *
+     * @param initialCapacity The initial size of the array.
+     */
+    public PacketWriter(int initialCapacity) {
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity must not be negative: " + initialCapacity);
+        }
+        array = new byte[initialCapacity];
+        start = 0;
+        limit = initialCapacity;
+        growable = true;
+    }
+
+    /**
+     * Creates a writer that writes into a fixed range of an array.
+     *
+     * @param dest   The array to write to.
+     * @param offset The index of the first byte to write.
+     * @param length The maximum number of bytes to write.
+     */
+    public PacketWriter(@NonNull byte[] dest, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > dest.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", array length="
+                                                        + dest.length);
+        }
+        array = dest;
+        start = offset;
+        limit = offset + length;
+        growable = false;
+        position = offset;
+    }
+
+    /**
+     * @param order The byte order of the multi-byte values that are written next.
+     * @return This writer.
+     */
+    @NonNull
+    public PacketWriter order(@NonNull ByteOrder order) {
+        bigEndian = order == ByteOrder.BIG_ENDIAN;
+        return this;
+    }
+
+    /**
+     * @return The byte order of multi-byte values.
+     */
+    @NonNull
+    public ByteOrder order() {
+        return bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+    }
+
+    /**
+     * @return The number of bytes that have been written.
+     */
+    public int position() {
+        return position - start;
+    }
+
+    /**
+     * Discards the bytes that have been written, so that the writer can be reused for the next packet.
+     *
+     * @return This writer.
+     */
+    @NonNull
+    public PacketWriter reset() {
+        position = start;
+        return this;
+    }
+
+    /**
+     * @param value The byte to write; only the low 8 bits are written.
+     * @return This writer.
+     */
+    @NonNull
+    public PacketWriter writeU8(int value) {
+        ensure(1);
+        array[position++] = (byte) value;
+        return this;
+    }
+
+    /**
+     * @param value The value to write; only the low 16 bits are written.
+     * @return This writer.
+     */
+    @NonNull
+    public PacketWriter writeU16(int value) {
+        return writeUnsigned(value, 2);
+    }
+
+    /**
+     * @param value The value to write; only the low 24 bits are written.
+     * @return This writer.
+     */
+    @NonNull
+    public PacketWriter writeU24(int value) {
+        return writeUnsigned(value, 3);
+    }
+
+    /**
+     * @param value The value to write; only the low 32 bits are written, so both unsigned values and negative
+     *              ints can be passed.
+     * @return This writer.
+     */
+    @NonNull
+    public PacketWriter writeU32(long value) {
+        return writeUnsigned(value, 4);
+    }
+
+    /**
+     * @param value The value to write, in 8 bytes.
+     * @return This writer.
+     */
+    @NonNull
+    public PacketWriter writeLong(long value) {
+        return writeUnsigned(value, 8);
+    }
+
+    /**
+     * Writes an unsigned LEB128 value, as read by {@link PacketReader#readUleb128()}.
+     *
+     * @param value The value to write, which is treated as unsigned.
+     * @return This writer.
+     */
+    @NonNull
+    public PacketWriter writeUleb128(long value) {
+        final int size = Math.max(1, (64 - Long.numberOfLeadingZeros(value) + 6) / 7);
+        ensure(size);
+        for (int i = 1; i < size; i++) {
+            array[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        array[position++] = (byte) value;
+        return this;
+    }
+
+    /**
+     * Writes a signed LEB128 value, as read by {@link PacketReader#readSleb128()}.
+     *
+     * @param value The value to write.
+     * @return This writer.
+     */
+    @NonNull
+    public PacketWriter writeSleb128(long value) {
+        // The significant bits plus the sign bit
+        final int bits = 65 - Long.numberOfLeadingZeros((value < 0) ? ~value : value);
+        final int size = (bits + 6) / 7;
+        ensure(size);
+        for (int i = 1; i < size; i++) {
+            array[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>= 7;
+        }
+        array[position++] = (byte) (value & 0x7F);
+        return this;
+    }
+
+    /**
+     * @param src    The array to copy from.
+     * @param offset The index in the array of the first byte.
+     * @param length The number of bytes to copy.
+     * @return This writer.
+     */
+    @NonNull
+    public PacketWriter writeBytes(@NonNull byte[] src, int offset, int length) {
+        if (offset < 0 || length < 0 || offset > src.length - length) {
+            throw new IndexOutOfBoundsException("offset=" + offset + ", length=" + length + ", array length="
+                                                        + src.length);
+        }
+        ensure(length);
+        System.arraycopy(src, offset, array, position, length);
+        position += length;
+        return this;
+    }
+
+    /**
+     * @return A copy of the bytes that have been written.
+     */
+    @NonNull
+    public byte[] toByteArray() {
+        return Arrays.copyOfRange(array, start, position);
+    }
+
+    /**
+     * @return A buffer over the bytes that have been written, which shares the array of the writer. The buffer has
+     * the byte order of the writer.
+     */
+    @NonNull
+    public ByteBuffer toByteBuffer() {
+        return ByteBuffer.wrap(array, start, position - start).slice().order(order());
+    }
+
+    /**
+     * @return A reader over the bytes that have been written, which shares the array of the writer. The reader has
+     * the byte order of the writer.
+     */
+    @NonNull
+    public PacketReader toReader() {
+        return new PacketReader(array, start, position - start).order(order());
+    }
+
+    private PacketWriter writeUnsigned(long value, int size) {
+        ensure(size);
+        final int first = position;
+        if (bigEndian) {
+            for (int i = first + size - 1; i >= first; i--) {
+                array[i] = (byte) value;
+                value >>>= 8;
+            }
+        } else {
+            for (int i = first; i < first + size; i++) {
+                array[i] = (byte) value;
+                value >>>= 8;
+            }
+        }
+        position = first + size;
+        return this;
+    }
+
+    private void ensure(int count) {
+        if (count <= limit - position) {
+            return;
+        }
+        if (!growable) {
+            throw new BufferOverflowException();
+        }
+        final int required = position + count;
+        if (required < 0) {
+            throw new OutOfMemoryError("Packet too large");
+        }
+        array = Arrays.copyOf(array, Math.max(required, Math.max(DEFAULT_CAPACITY, 2 * array.length)));
+        limit = array.length;
+    }
+}
@@ -0,0 +1,161 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Splits data-parallel work into chunks and runs them on an {@link Executor}.
+ * <p>
+ * {@link java.util.concurrent.ForkJoinPool} is only available from API level 21 on, so this uses a plain executor
+ * instead. The calling thread works on the chunks as well and the workers pull the next chunk from a shared counter,
+ * so the work finishes even if the executor is busy or rejects the workers.
+ */
+final class Parallel {
+    private static final int PARALLELISM = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The number of chunks per thread, so that threads that finish early can help out with the remaining chunks.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static volatile Executor defaultExecutor;
+
+    private Parallel() {
+    }
+
+    interface ChunkTask {
+        /**
+         * Processes the items from start (inclusive) to end (exclusive), which make up the given chunk.
+         */
+        void run(int chunk, int start, int end);
+    }
+
+    /**
+     * @return The executor used when the caller doesn't provide one. Its threads are daemon threads that time out
+     * when they are idle.
+     */
+    static Executor getDefaultExecutor() {
+        Executor executor = defaultExecutor;
+        if (executor == null) {
+            synchronized (Parallel.class) {
+                executor = defaultExecutor;
+                if (executor == null) {
+                    final int threads = Math.max(1, PARALLELISM - 1);
+                    final ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                                                                           new LinkedBlockingQueue<Runnable>(),
+                                                                           new WorkerThreadFactory());
+                    pool.allowCoreThreadTimeOut(true);
+                    defaultExecutor = executor = pool;
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * @return The number of chunks to split the given number of items into, if every chunk should contain at least
+     * minChunkSize items.
+     */
+    static int getChunkCount(int size, int minChunkSize, @Nullable Executor executor) {
+        if (executor == null || PARALLELISM == 1) {
+            return 1;
+        }
+        return Math.max(1, Math.min(PARALLELISM * CHUNKS_PER_THREAD, size / minChunkSize));
+    }
+
+    /**
+     * Splits the items 0...size into chunkCount chunks of (almost) equal size and runs the task for each of them.
+     * Returns when all chunks have been processed.
+     *
+     * @param executor The executor that runs the chunks, or null to process all chunks on the calling thread.
+     * @throws RuntimeException If the task threw an exception for any of the chunks.
+     */
+    static void run(final int size, final int chunkCount, @Nullable Executor executor, @NonNull final ChunkTask task) {
+        if (chunkCount <= 1 || executor == null) {
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                task.run(chunk, chunkStart(size, chunkCount, chunk), chunkStart(size, chunkCount, chunk + 1));
+            }
+            return;
+        }
+
+        final AtomicInteger nextChunk = new AtomicInteger();
+        final CountDownLatch finished = new CountDownLatch(chunkCount);
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        final Runnable worker = new Runnable() {
+            @Override
+            public void run() {
+                int chunk;
+                while ((chunk = nextChunk.getAndIncrement()) < chunkCount) {
+                    try {
+                        if (failure.get() == null) {
+                            task.run(chunk, chunkStart(size, chunkCount, chunk),
+                                     chunkStart(size, chunkCount, chunk + 1));
+                        }
+                    } catch (Throwable t) {
+                        failure.compareAndSet(null, t);
+                    } finally {
+                        finished.countDown();
+                    }
+                }
+            }
+        };
+
+        final int workers = Math.min(chunkCount, PARALLELISM) - 1;
+        for (int i = 0; i < workers; i++) {
+            try {
+                executor.execute(worker);
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        worker.run();
+
+        boolean interrupted = false;
+        while (true) {
+            try {
+                finished.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        final Throwable t = failure.get();
+        if (t instanceof RuntimeException) {
+            throw (RuntimeException) t;
+        } else if (t instanceof Error) {
+            throw (Error) t;
+        } else if (t != null) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    private static int chunkStart(int size, int chunkCount, int chunk) {
+        return (int) ((long) size * chunk / chunkCount);
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger threadCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(@NonNull Runnable runnable) {
+            final Thread thread = new Thread(runnable, "commonutils-worker-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.regex.Pattern;
+
+/**
+ * A size-bounded cache of compiled regular expressions, keyed by the expression and the {@link Pattern} flags.
+ * <p>
+ * Patterns are immutable and thread-safe, so one compiled pattern can be shared by all threads. A pattern is compiled
+ * the first time it is requested; threads that request it at the same time wait for that compilation instead of
+ * compiling it as well. Requesting a pattern that has been compiled already reads a concurrent map and counts a hit;
+ * hits are counted in one of several padded slots picked by the thread, so threads that use the cache at the same
+ * time rarely write to the same cache line. The entry's recency is written at most once between two compilations.
+ * <p>
+ * When the cache is full, compiling a new pattern evicts the pattern that was used least recently. The recency is
+ * only tracked between compilations, so patterns that are used between the same two compilations count as equally
+ * recent.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public final class PatternCache {
+    static final int DEFAULT_MAX_SIZE = 64;
+
+    private static final PatternCache DEFAULT = new PatternCache(DEFAULT_MAX_SIZE);
+
+    private final int maxSize;
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+
+    // Advanced by each new entry, and copied into the entries that are used
+    private final AtomicLong clock = new AtomicLong();
+
+    private final StripedCounter hits = new StripedCounter();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong compileNanos = new AtomicLong();
+
+    /**
+     * @param maxSize The maximum number of patterns in the cache.
+     */
+    public PatternCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive: " + maxSize);
+        }
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * @return The cache that is shared by the whole process.
+     */
+    @NonNull
+    public static PatternCache getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Same as {@link Pattern#compile(String)}, but returns the pattern from the shared cache.
+     *
+     * @param regex The expression to compile.
+     * @return The compiled pattern.
+     * @throws java.util.regex.PatternSyntaxException If the expression's syntax is invalid.
+     */
+    @NonNull
+    public static Pattern compile(@NonNull String regex) {
+        return DEFAULT.get(regex, 0);
+    }
+
+    /**
+     * Same as {@link Pattern#compile(String, int)}, but returns the pattern from the shared cache.
+     *
+     * @param regex The expression to compile.
+     * @param flags The match flags.
+     * @return The compiled pattern.
+     * @throws java.util.regex.PatternSyntaxException If the expression's syntax is invalid.
+     */
+    @NonNull
+    public static Pattern compile(@NonNull String regex, int flags) {
+        return DEFAULT.get(regex, flags);
+    }
+
+    /**
+     * @param regex The expression to compile.
+     * @param flags The match flags.
+     * @return The cached pattern, or the newly compiled pattern, which is added to the cache. Invalid expressions
+     * aren't cached.
+     * @throws java.util.regex.PatternSyntaxException If the expression's syntax is invalid.
+     */
+    @NonNull
+    public Pattern get(@NonNull String regex, int flags) {
+        final Key key = new Key(regex, flags);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            final Entry created = new Entry(key, clock.incrementAndGet());
+            entry = entries.putIfAbsent(key, created);
+            if (entry == null) {
+                entry = created;
+                evictIfFull(created);
+            }
+        } else {
+            // Only written once per tick, so that threads that use the same pattern don't keep writing to it
+            final long now = clock.get();
+            if (entry.lastUsed != now) {
+                entry.lastUsed = now;
+            }
+        }
+
+        final Pattern pattern = entry.pattern;
+        if (pattern != null) {
+            hits.increment();
+            return pattern;
+        }
+        return entry.compile();
+    }
+
+    /**
+     * @return The number of patterns in the cache.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all patterns from the cache. The counters aren't reset.
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * @return A snapshot of the counters of the cache.
+     */
+    @NonNull
+    public Stats getStats() {
+        return new Stats(hits.sum(), misses.get(), evictions.get(), compileNanos.get());
+    }
+
+    private void evictIfFull(Entry added) {
+        while (entries.size() > maxSize) {
+            Entry eldest = null;
+            for (Entry entry : entries.values()) {
+                if (entry != added && (eldest == null || entry.lastUsed < eldest.lastUsed)) {
+                    eldest = entry;
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            if (entries.remove(eldest.key, eldest)) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * A counter that is spread over several slots, each on its own cache line, so that threads that count at the same
+     * time don't contend on one atomic variable. Threads pick a slot by their ID.
+     */
+    private static final class StripedCounter {
+        // Longs per slot, so that each slot fills a cache line of 64 bytes
+        private static final int PADDING = 8;
+        private static final int SLOTS = Math.min(64, Integer.highestOneBit(
+                Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1);
+
+        private final AtomicLongArray slots = new AtomicLongArray(SLOTS * PADDING);
+
+        void increment() {
+            final int slot = (int) Thread.currentThread().getId() & (SLOTS - 1);
+            slots.incrementAndGet(slot * PADDING);
+        }
+
+        long sum() {
+            long sum = 0;
+            for (int i = 0; i < SLOTS; i++) {
+                sum += slots.get(i * PADDING);
+            }
+            return sum;
+        }
+    }
+
+    private static final class Key {
+        final String regex;
+        final int flags;
+
+        Key(String regex, int flags) {
+            this.regex = regex;
+            this.flags = flags;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            final Key other = (Key) o;
+            return flags == other.flags && regex.equals(other.regex);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * regex.hashCode() + flags;
+        }
+    }
+
+    private final class Entry {
+        final Key key;
+        volatile Pattern pattern;
+        volatile long lastUsed;
+
+        Entry(Key key, long lastUsed) {
+            this.key = key;
+            this.lastUsed = lastUsed;
+        }
+
+        synchronized Pattern compile() {
+            Pattern compiled = pattern;
+            if (compiled != null) {
+                // Another thread compiled it while this one was waiting
+                hits.increment();
+                return compiled;
+            }
+
+            misses.incrementAndGet();
+            final long start = System.nanoTime();
+            try {
+                compiled = Pattern.compile(key.regex, key.flags);
+            } catch (RuntimeException e) {
+                entries.remove(key, this);
+                throw e;
+            } finally {
+                compileNanos.addAndGet(System.nanoTime() - start);
+            }
+            pattern = compiled;
+            return compiled;
+        }
+    }
+
+    /**
+     * The counters of a cache.
+     */
+    public static final class Stats {
+        private final long hits;
+        private final long misses;
+        private final long evictions;
+        private final long compileNanos;
+
+        Stats(long hits, long misses, long evictions, long compileNanos) {
+            this.hits = hits;
+            this.misses = misses;
+            this.evictions = evictions;
+            this.compileNanos = compileNanos;
+        }
+
+        /**
+         * @return The number of requests for a pattern that had been compiled already.
+         */
+        public long getHits() {
+            return hits;
+        }
+
+        /**
+         * @return The number of requests for which a pattern had to be compiled.
+         */
+        public long getMisses() {
+            return misses;
+        }
+
+        /**
+         * @return The number of patterns that were evicted to make room for new ones.
+         */
+        public long getEvictions() {
+            return evictions;
+        }
+
+        /**
+         * @return The total time spent compiling patterns, in nanoseconds.
+         */
+        public long getCompileNanos() {
+            return compileNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "Stats{hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + ", compileNanos="
+                    + compileNanos + '}';
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A streaming parser for separated-value files, such as CSV (RFC 4180) and TSV files.
+ * <p>
+ * The input is read in chunks of a fixed size and every record is handed to a {@link RecordHandler} as soon as it
+ * is complete, so the memory use depends on the length of the longest record instead of the size of the input, and
+ * the records can be processed while the rest of the input is still being read.
+ * <p>
+ * The parser follows RFC 4180, but is lenient where the RFC is strict:
+ * <ul>
+ * <li>Records can end with CRLF, LF or CR.</li>
+ * <li>Fields that start with the quote character may contain separators, line breaks and quotes (written as two
+ * quote characters). Characters after the closing quote are added to the field.</li>
+ * <li>Quote characters inside an unquoted field are part of the field.</li>
+ * <li>Empty lines are skipped.</li>
+ * </ul>
+ * Whitespace around the fields is kept, as required by the RFC.
+ * <p>
+ * A parser can be used for any number of inputs, but only by one thread at a time.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public class RecordParser {
+    private static final int DEFAULT_CHUNK_SIZE = 8192;
+
+    private static final int FIELD_START = 0;
+    private static final int UNQUOTED = 1;
+    private static final int QUOTED = 2;
+    private static final int QUOTE_IN_QUOTED = 3;
+
+    private final char separator;
+    private final char quote;
+    private final int chunkSize;
+
+    /**
+     * Creates a parser for fields that are separated by the given character and quoted with double quotes.
+     *
+     * @param separator The character that separates the fields of a record.
+     */
+    public RecordParser(char separator) {
+        this(separator, '"', DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param separator The character that separates the fields of a record.
+     * @param quote     The character that encloses fields that contain special characters.
+     * @param chunkSize The number of characters that are read from the input at a time.
+     */
+    public RecordParser(char separator, char quote, int chunkSize) {
+        if (separator == quote || isLineBreak(separator) || isLineBreak(quote)) {
+            throw new IllegalArgumentException("The separator and quote must be different and not be line breaks");
+        }
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+        this.separator = separator;
+        this.quote = quote;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * @return A parser for comma separated values.
+     */
+    @NonNull
+    public static RecordParser csv() {
+        return new RecordParser(',');
+    }
+
+    /**
+     * @return A parser for tab separated values.
+     */
+    @NonNull
+    public static RecordParser tsv() {
+        return new RecordParser('\t');
+    }
+
+    /**
+     * Parses UTF-8 encoded records. The stream is not closed.
+     *
+     * @param is      The input.
+     * @param handler Receives the records.
+     * @return The number of records that were handed to the handler.
+     * @throws IOException If the input can't be read or ends inside a quoted field.
+     */
+    public long parse(@NonNull InputStream is, @NonNull RecordHandler handler) throws IOException {
+        return parse(is, "UTF-8", handler);
+    }
+
+    /**
+     * Parses records in the given encoding. The stream is not closed.
+     *
+     * @param is          The input.
+     * @param charsetName The name of the encoding of the input.
+     * @param handler     Receives the records.
+     * @return The number of records that were handed to the handler.
+     * @throws IOException If the input can't be read or ends inside a quoted field.
+     */
+    public long parse(@NonNull InputStream is, @NonNull String charsetName, @NonNull RecordHandler handler)
+            throws IOException {
+        return parse(new InputStreamReader(is, charsetName), handler);
+    }
+
+    /**
+     * Parses records. The reader is not closed.
+     *
+     * @param reader  The input.
+     * @param handler Receives the records.
+     * @return The number of records that were handed to the handler.
+     * @throws IOException If the input can't be read or ends inside a quoted field.
+     */
+    public long parse(@NonNull Reader reader, @NonNull RecordHandler handler) throws IOException {
+        final char[] chunk = new char[chunkSize];
+        final Record record = new Record();
+
+        int state = FIELD_START;
+        boolean recordStarted = false;
+        boolean skipLineFeed = false;
+        long line = 1;
+
+        int n;
+        while ((n = reader.read(chunk)) != -1) {
+            int i = 0;
+            while (i < n) {
+                final char c = chunk[i];
+                if (skipLineFeed) {
+                    skipLineFeed = false;
+                    if (c == '\n') {
+                        i++;
+                        continue;
+                    }
+                }
+
+                if (state == QUOTED) {
+                    // Copy everything up to the next quote at once
+                    int end = i;
+                    while (end < n && chunk[end] != quote) {
+                        if (chunk[end] == '\n') {
+                            line++;
+                        }
+                        end++;
+                    }
+                    record.append(chunk, i, end - i);
+                    if (end < n) {
+                        state = QUOTE_IN_QUOTED;
+                        end++;
+                    }
+                    i = end;
+                    continue;
+                }
+
+                if (state == QUOTE_IN_QUOTED) {
+                    state = UNQUOTED;
+                    if (c == quote) {
+                        // An escaped quote
+                        record.append(quote);
+                        state = QUOTED;
+                        i++;
+                        continue;
+                    }
+                } else if (state == FIELD_START && c == quote) {
+                    recordStarted = true;
+                    state = QUOTED;
+                    i++;
+                    continue;
+                }
+
+                if (c == separator) {
+                    recordStarted = true;
+                    record.endField();
+                    state = FIELD_START;
+                    i++;
+                } else if (isLineBreak(c)) {
+                    skipLineFeed = (c == '\r');
+                    if (recordStarted) {
+                        record.endField();
+                        final boolean proceed = handler.onRecord(record);
+                        record.reset();
+                        if (!proceed) {
+                            return record.number;
+                        }
+                    }
+                    recordStarted = false;
+                    state = FIELD_START;
+                    line++;
+                    i++;
+                } else {
+                    // Copy everything up to the next special character at once
+                    int end = i + 1;
+                    while (end < n && chunk[end] != separator && !isLineBreak(chunk[end])) {
+                        end++;
+                    }
+                    recordStarted = true;
+                    record.append(chunk, i, end - i);
+                    state = UNQUOTED;
+                    i = end;
+                }
+            }
+        }
+
+        if (state == QUOTED) {
+            throw new IOException("Unterminated quoted field on line " + line);
+        }
+        if (recordStarted) {
+            record.endField();
+            handler.onRecord(record);
+            record.reset();
+        }
+        return record.number;
+    }
+
+    /**
+     * Parses all records of a string.
+     *
+     * @param input The input.
+     * @return The fields of each record.
+     * @throws IllegalArgumentException If the input ends inside a quoted field.
+     */
+    @NonNull
+    public List<List<String>> parse(@NonNull CharSequence input) {
+        final List<List<String>> records = new ArrayList<>();
+        try {
+            parse(new StringReader(input.toString()), new RecordHandler() {
+                @Override
+                public boolean onRecord(@NonNull Record record) {
+                    records.add(record.toList());
+                    return true;
+                }
+            });
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        return records;
+    }
+
+    private static boolean isLineBreak(char c) {
+        return c == '\n' || c == '\r';
+    }
+
+    /**
+     * Receives the records of the input.
+     */
+    public interface RecordHandler {
+        /**
+         * Called for each record. The record and its contents are only valid during this call, since the same
+         * buffers are reused for the next record.
+         *
+         * @param record The record.
+         * @return True to continue parsing, false to stop.
+         */
+        boolean onRecord(@NonNull Record record);
+    }
+
+    /**
+     * The fields of a record. The characters of all fields are stored in one buffer, with the quotes removed.
+     */
+    public static final class Record {
+        private char[] chars = new char[256];
+        private int length;
+        private int[] offsets = new int[32];
+        private int fieldCount;
+        private int fieldStart;
+        private long number;
+
+        Record() {
+        }
+
+        /**
+         * @return The index of this record in the input, starting at 0. Skipped empty lines are not counted.
+         */
+        public long getIndex() {
+            return number;
+        }
+
+        /**
+         * @return The number of fields of this record.
+         */
+        public int getFieldCount() {
+            return fieldCount;
+        }
+
+        /**
+         * @return The buffer containing the characters of the fields.
+         */
+        @NonNull
+        public char[] getChars() {
+            return chars;
+        }
+
+        /**
+         * @param field The index of the field.
+         * @return The index in {@link #getChars()} at which the field starts.
+         */
+        public int getFieldStart(int field) {
+            checkField(field);
+            return offsets[field * 2];
+        }
+
+        /**
+         * @param field The index of the field.
+         * @return The index in {@link #getChars()} at which the field ends (exclusive).
+         */
+        public int getFieldEnd(int field) {
+            checkField(field);
+            return offsets[field * 2 + 1];
+        }
+
+        /**
+         * @param field The index of the field.
+         * @return A view of the characters of the field, which is only valid while the record is being handled.
+         */
+        @NonNull
+        public CharSequence getField(int field) {
+            final int start = getFieldStart(field);
+            return CharBuffer.wrap(chars, start, getFieldEnd(field) - start);
+        }
+
+        /**
+         * @param field The index of the field.
+         * @return The field as a string.
+         */
+        @NonNull
+        public String getString(int field) {
+            final int start = getFieldStart(field);
+            return new String(chars, start, getFieldEnd(field) - start);
+        }
+
+        /**
+         * @return The fields as strings.
+         */
+        @NonNull
+        public List<String> toList() {
+            final List<String> fields = new ArrayList<>(fieldCount);
+            for (int i = 0; i < fieldCount; i++) {
+                fields.add(getString(i));
+            }
+            return fields;
+        }
+
+        @Override
+        public String toString() {
+            return toList().toString();
+        }
+
+        void append(char c) {
+            if (length == chars.length) {
+                chars = Arrays.copyOf(chars, length * 2);
+            }
+            chars[length++] = c;
+        }
+
+        void append(char[] src, int start, int count) {
+            if (length + count > chars.length) {
+                chars = Arrays.copyOf(chars, Math.max(length + count, chars.length * 2));
+            }
+            System.arraycopy(src, start, chars, length, count);
+            length += count;
+        }
+
+        void endField() {
+            if (fieldCount * 2 == offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[fieldCount * 2] = fieldStart;
+            offsets[fieldCount * 2 + 1] = length;
+            fieldCount++;
+            fieldStart = length;
+        }
+
+        void reset() {
+            length = 0;
+            fieldCount = 0;
+            fieldStart = 0;
+            number++;
+        }
+
+        private void checkField(int field) {
+            if (field < 0 || field >= fieldCount) {
+                throw new IndexOutOfBoundsException("Field " + field + " of " + fieldCount);
+            }
+        }
+    }
+}
@@ -0,0 +1,441 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A {@link CharSequence} that is a concatenation of other CharSequences, without copying their characters.
+ * <p>
+ * The pieces are kept in a binary tree that is balanced like an AVL tree, so {@link #charAt(int)} takes O(log n) time
+ * for n pieces, and concatenating, slicing and repeating take O(log n) time and memory as well. Concatenating only
+ * creates new nodes along the edge of the taller tree, so the subtrees of both trees are shared, never copied.
+ * Consecutive calls to
+ * {@link #charAt(int)} within the same piece don't have to walk the tree. The characters are only copied by
+ * {@link #toString()}, whose result is kept, and by {@link #getChars(int, int, char[], int)}.
+ * <p>
+ * The pieces must not be modified while the rope is in use. Ropes are immutable, and like StringBuilders they don't
+ * override {@link #equals(Object)}; use {@link StringUtils#equals(CharSequence, CharSequence)} instead.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public final class Rope implements CharSequence {
+    private static final Rope EMPTY = new Rope(new Leaf("", 0, 0));
+
+    private final Node root;
+    private Cursor cursor;
+    private String flattened;
+
+    private Rope(Node root) {
+        this.root = root;
+    }
+
+    /**
+     * @param s The characters of the rope, which are not copied.
+     * @return A rope of the given characters.
+     */
+    @NonNull
+    public static Rope of(@Nullable CharSequence s) {
+        if (s instanceof Rope) {
+            return (Rope) s;
+        }
+        if (s == null || s.length() == 0) {
+            return EMPTY;
+        }
+        return new Rope(new Leaf(s, 0, s.length()));
+    }
+
+    /**
+     * @param pieces The pieces to concatenate. Null pieces are skipped.
+     * @return The concatenation of the pieces.
+     */
+    @NonNull
+    public static Rope concat(@NonNull CharSequence... pieces) {
+        final Node[] nodes = new Node[pieces.length];
+        int count = 0;
+        for (CharSequence piece : pieces) {
+            if (piece != null && piece.length() > 0) {
+                nodes[count++] = nodeOf(piece);
+            }
+        }
+        return (count == 0) ? EMPTY : new Rope(balanced(nodes, 0, count));
+    }
+
+    /**
+     * Same as {@link StringUtils#separateItemsWith(CharSequence, List)}, but returns a rope that references the
+     * items and the separator instead of copying them.
+     *
+     * @param separator The string with which to separate the items.
+     * @param items     The items that appear in the list. Items that are null or empty are skipped.
+     * @return The rope of items.
+     */
+    @NonNull
+    public static Rope separateItemsWith(@Nullable CharSequence separator,
+                                         @Nullable List<? extends CharSequence> items) {
+        if (items == null || items.isEmpty()) {
+            return EMPTY;
+        }
+
+        // Like StringBuilder.append(), a null separator is appended as "null"
+        final CharSequence separatorChars = (separator != null) ? separator : "null";
+        final Node separatorNode = (separatorChars.length() > 0) ? nodeOf(separatorChars) : null;
+        final Node[] nodes = new Node[(separatorNode != null) ? items.size() * 2 : items.size()];
+        int count = 0;
+        long length = 0;
+
+        final boolean randomAccess = items instanceof RandomAccess;
+        final Iterator<? extends CharSequence> it = randomAccess ? null : items.iterator();
+        for (int i = 0, n = items.size(); i < n; i++) {
+            final CharSequence item = randomAccess ? items.get(i) : it.next();
+            if (StringUtils.isEmpty(item)) {
+                continue;
+            }
+            if (count > 0 && separatorNode != null) {
+                nodes[count++] = separatorNode;
+                length += separatorNode.length;
+            }
+            final Node node = nodeOf(item);
+            nodes[count++] = node;
+            length += node.length;
+        }
+
+        checkLength(length);
+        return (count == 0) ? EMPTY : new Rope(balanced(nodes, 0, count));
+    }
+
+    /**
+     * Same as {@link StringUtils#repeat(CharSequence, CharSequence, int)}, but returns a rope that references the
+     * string and the separator instead of copying them. The rope takes O(log repeatCount) memory.
+     *
+     * @param string      The string to repeat.
+     * @param separator   The separator between repetitions.
+     * @param repeatCount The times that the given string should be repeated.
+     * @return The repeated string.
+     */
+    @NonNull
+    public static Rope repeat(@Nullable CharSequence string, @Nullable CharSequence separator, int repeatCount) {
+        if (repeatCount < 1) {
+            return EMPTY;
+        }
+
+        final Rope item = of(string);
+        if (repeatCount == 1) {
+            return item;
+        }
+
+        // string + (separator + string) * (repeatCount - 1)
+        final Rope unit = (separator != null && separator.length() > 0) ? concat(separator, item) : item;
+        checkLength(item.length() + (long) unit.length() * (repeatCount - 1));
+        if (unit.length() == 0) {
+            return EMPTY;
+        }
+
+        // Square-and-multiply, which shares the subtrees, so the tree is a DAG of O(log repeatCount) nodes
+        Node result = item.root;
+        Node power = unit.root;
+        int remaining = repeatCount - 1;
+        while (true) {
+            if ((remaining & 1) != 0) {
+                result = concatNodes(result, power);
+            }
+            remaining >>>= 1;
+            if (remaining == 0) {
+                break;
+            }
+            power = concatNodes(power, power);
+        }
+        return new Rope(result);
+    }
+
+    /**
+     * @param other The characters to append.
+     * @return The concatenation of this rope and the given characters.
+     */
+    @NonNull
+    public Rope append(@Nullable CharSequence other) {
+        if (other == null || other.length() == 0) {
+            return this;
+        }
+        if (root.length == 0) {
+            return of(other);
+        }
+        checkLength((long) root.length + other.length());
+        return new Rope(concatNodes(root, nodeOf(other)));
+    }
+
+    @Override
+    public int length() {
+        return root.length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= root.length) {
+            throw new IndexOutOfBoundsException("index=" + index + ", length=" + root.length);
+        }
+
+        final Cursor current = cursor;
+        if (current != null && index >= current.start && index < current.start + current.leaf.length) {
+            return current.leaf.charAt(index - current.start);
+        }
+
+        Node node = root;
+        int start = 0;
+        while (node instanceof Concat) {
+            final Concat concat = (Concat) node;
+            if (index - start < concat.left.length) {
+                node = concat.left;
+            } else {
+                start += concat.left.length;
+                node = concat.right;
+            }
+        }
+        final Leaf leaf = (Leaf) node;
+        cursor = new Cursor(leaf, start);
+        return leaf.charAt(index - start);
+    }
+
+    /**
+     * Copies characters into an array, like {@link String#getChars(int, int, char[], int)}.
+     *
+     * @param start     The index of the first character to copy.
+     * @param end       The index after the last character to copy.
+     * @param dest      The destination.
+     * @param destStart The index in the destination of the first character.
+     */
+    public void getChars(int start, int end, @NonNull char[] dest, int destStart) {
+        if (start < 0 || start > end || end > root.length || destStart < 0 || destStart + end - start > dest.length) {
+            throw new IndexOutOfBoundsException("start=" + start + ", end=" + end + ", length=" + root.length);
+        }
+        final String s = flattened;
+        if (s != null) {
+            s.getChars(start, end, dest, destStart);
+        } else {
+            root.getChars(start, end, dest, destStart);
+        }
+    }
+
+    @Override
+    public Rope subSequence(int start, int end) {
+        if (start < 0 || start > end || end > root.length) {
+            throw new IndexOutOfBoundsException("start=" + start + ", end=" + end + ", length=" + root.length);
+        }
+        if (start == 0 && end == root.length) {
+            return this;
+        }
+        return (start == end) ? EMPTY : new Rope(slice(root, start, end));
+    }
+
+    /**
+     * @return The characters of this rope. They are copied once; later calls return the same String.
+     */
+    @NonNull
+    @Override
+    public String toString() {
+        String s = flattened;
+        if (s == null) {
+            final BufferArena.CharArrayLease lease = BufferArena.acquireChars(root.length);
+            try {
+                final char[] chars = lease.array();
+                root.getChars(0, root.length, chars, 0);
+                s = new String(chars, 0, root.length);
+            } finally {
+                lease.close();
+            }
+            flattened = s;
+        }
+        return s;
+    }
+
+    /**
+     * @return The depth of the tree of pieces.
+     */
+    int getDepth() {
+        return root.depth;
+    }
+
+    private static Node nodeOf(CharSequence s) {
+        return (s instanceof Rope) ? ((Rope) s).root : new Leaf(s, 0, s.length());
+    }
+
+    private static Node balanced(Node[] nodes, int start, int end) {
+        if (end - start == 1) {
+            return nodes[start];
+        }
+        final int middle = (start + end) >>> 1;
+        return concatNodes(balanced(nodes, start, middle), balanced(nodes, middle, end));
+    }
+
+    /**
+     * Concatenates two balanced trees into a balanced tree, in O(|left.depth - right.depth| + 1) time and new nodes.
+     * The shorter tree is attached to the edge of the taller tree at the level of its own depth, and the nodes above
+     * it are rebuilt with AVL rotations where needed, so the subtrees of both trees are reused as they are.
+     */
+    private static Node concatNodes(Node left, Node right) {
+        if (left.length == 0) {
+            return right;
+        }
+        if (right.length == 0) {
+            return left;
+        }
+        if (left.depth > right.depth + 1) {
+            return joinRight((Concat) left, right);
+        }
+        if (right.depth > left.depth + 1) {
+            return joinLeft(left, (Concat) right);
+        }
+        return new Concat(left, right);
+    }
+
+    /**
+     * Attaches a shorter tree along the right edge of a taller one.
+     */
+    private static Node joinRight(Concat left, Node right) {
+        final Node outer = left.left;
+        final Node inner = left.right;
+        if (inner.depth <= right.depth + 1) {
+            final Concat joined = new Concat(inner, right);
+            if (joined.depth <= outer.depth + 1) {
+                return new Concat(outer, joined);
+            }
+            return rotateLeft(new Concat(outer, rotateRight(joined)));
+        }
+        final Node joined = joinRight((Concat) inner, right);
+        final Concat result = new Concat(outer, joined);
+        return (joined.depth <= outer.depth + 1) ? result : rotateLeft(result);
+    }
+
+    /**
+     * Attaches a shorter tree along the left edge of a taller one.
+     */
+    private static Node joinLeft(Node left, Concat right) {
+        final Node outer = right.right;
+        final Node inner = right.left;
+        if (inner.depth <= left.depth + 1) {
+            final Concat joined = new Concat(left, inner);
+            if (joined.depth <= outer.depth + 1) {
+                return new Concat(joined, outer);
+            }
+            return rotateRight(new Concat(rotateLeft(joined), outer));
+        }
+        final Node joined = joinLeft(left, (Concat) inner);
+        final Concat result = new Concat(joined, outer);
+        return (joined.depth <= outer.depth + 1) ? result : rotateRight(result);
+    }
+
+    /**
+     * (a, (b, c)) becomes ((a, b), c).
+     */
+    private static Concat rotateLeft(Concat node) {
+        final Concat right = (Concat) node.right;
+        return new Concat(new Concat(node.left, right.left), right.right);
+    }
+
+    /**
+     * ((a, b), c) becomes (a, (b, c)).
+     */
+    private static Concat rotateRight(Concat node) {
+        final Concat left = (Concat) node.left;
+        return new Concat(left.left, new Concat(left.right, node.right));
+    }
+
+    private static Node slice(Node node, int start, int end) {
+        if (start == 0 && end == node.length) {
+            return node;
+        }
+        if (node instanceof Leaf) {
+            final Leaf leaf = (Leaf) node;
+            return new Leaf(leaf.chars, leaf.start + start, leaf.start + end);
+        }
+
+        final Concat concat = (Concat) node;
+        final int leftLength = concat.left.length;
+        if (end <= leftLength) {
+            return slice(concat.left, start, end);
+        }
+        if (start >= leftLength) {
+            return slice(concat.right, start - leftLength, end - leftLength);
+        }
+        return concatNodes(slice(concat.left, start, leftLength), slice(concat.right, 0, end - leftLength));
+    }
+
+    private static void checkLength(long length) {
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("The length of a rope can't exceed Integer.MAX_VALUE: " + length);
+        }
+    }
+
+    private abstract static class Node {
+        final int length;
+        final int depth;
+
+        Node(int length, int depth) {
+            this.length = length;
+            this.depth = depth;
+        }
+
+        abstract void getChars(int start, int end, char[] dest, int destStart);
+    }
+
+    /**
+     * A range of the characters of a piece.
+     */
+    private static final class Leaf extends Node {
+        final CharSequence chars;
+        final int start;
+
+        Leaf(CharSequence chars, int start, int end) {
+            super(end - start, 0);
+            this.chars = chars;
+            this.start = start;
+        }
+
+        char charAt(int index) {
+            return chars.charAt(start + index);
+        }
+
+        @Override
+        void getChars(int from, int to, char[] dest, int destStart) {
+            StringUtils.getChars(chars, start + from, start + to, dest, destStart);
+        }
+    }
+
+    private static final class Concat extends Node {
+        final Node left;
+        final Node right;
+
+        Concat(Node left, Node right) {
+            super(left.length + right.length, Math.max(left.depth, right.depth) + 1);
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        void getChars(int start, int end, char[] dest, int destStart) {
+            final int leftLength = left.length;
+            if (start < leftLength) {
+                final int leftEnd = Math.min(end, leftLength);
+                left.getChars(start, leftEnd, dest, destStart);
+                destStart += leftEnd - start;
+            }
+            if (end > leftLength) {
+                right.getChars(Math.max(0, start - leftLength), end - leftLength, dest, destStart);
+            }
+        }
+    }
+
+    /**
+     * The leaf of the most recent {@link #charAt(int)} and the index of its first character.
+     */
+    private static final class Cursor {
+        final Leaf leaf;
+        final int start;
+
+        Cursor(Leaf leaf, int start) {
+            this.leaf = leaf;
+            this.start = start;
+        }
+    }
+}
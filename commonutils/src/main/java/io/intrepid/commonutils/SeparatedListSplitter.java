@@ -0,0 +1,237 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+
+import java.nio.CharBuffer;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Splits separated lists without regular expressions. The result is exactly the same as that of
+ * {@code stripSurroundingWhiteSpace(list).split("\\s*" + Pattern.quote(separator) + "\\s*")}, which is what
+ * {@link StringUtils#parseSeparatedArray(String, String)} used to do:
+ * <ul>
+ * <li>The list is trimmed with {@link Character#isWhitespace(char)}, but the whitespace around the separators is
+ * the regular expression whitespace {@code [ \t\n\x0B\f\r]}.</li>
+ * <li>Trailing empty elements are dropped, unless the list doesn't contain a separator at all.</li>
+ * </ul>
+ * The separator must not be empty.
+ */
+final class SeparatedListSplitter {
+    private static final long NOT_FOUND = -1L;
+
+    private SeparatedListSplitter() {
+    }
+
+    /**
+     * Writes the start (inclusive) and end (exclusive) offset of each element to the offsets array, as long as there
+     * is room for them.
+     *
+     * @return The number of elements, which may be larger than the number of offset pairs that have been written.
+     */
+    static int split(@NonNull CharSequence list, @NonNull String separator, @NonNull int[] offsets) {
+        final int start = trimStart(list);
+        final int end = trimEnd(list, start);
+
+        int count = 0;
+        int nonEmptyCount = 0;
+        int fieldStart = start;
+        long match;
+        while ((match = findSeparator(list, fieldStart, end, separator)) != NOT_FOUND) {
+            final int matchStart = (int) (match >>> 32);
+            count = addField(offsets, count, fieldStart, matchStart);
+            if (matchStart > fieldStart) {
+                nonEmptyCount = count;
+            }
+            fieldStart = (int) match;
+        }
+
+        if (count == 0) {
+            // Without any separator, the (possibly empty) list itself is the only element.
+            return addField(offsets, 0, start, end);
+        }
+
+        count = addField(offsets, count, fieldStart, end);
+        return (end > fieldStart) ? count : nonEmptyCount;
+    }
+
+    /**
+     * @return A lazy view of the elements of the list. The elements are views of the list that don't copy the
+     * characters.
+     */
+    static Iterable<CharSequence> iterable(@NonNull final CharSequence list, @NonNull final String separator) {
+        return new Iterable<CharSequence>() {
+            @Override
+            public Iterator<CharSequence> iterator() {
+                return new ElementIterator(list, separator);
+            }
+        };
+    }
+
+    /**
+     * Finds the first match of {@code \s*separator\s*} that starts at or after 'from', just like
+     * {@link java.util.regex.Matcher#find(int)} would: the leftmost start, the longest leading whitespace for which
+     * the separator still follows, and all of the trailing whitespace.
+     *
+     * @return The start of the match in the upper and the end of the match in the lower 32 bits, or
+     * {@link #NOT_FOUND}.
+     */
+    static long findSeparator(CharSequence s, int from, int end, String separator) {
+        final int separatorLength = separator.length();
+        int pos = from;
+        while (pos + separatorLength <= end) {
+            int whiteSpaceEnd = pos;
+            while (whiteSpaceEnd < end && isPatternWhiteSpace(s.charAt(whiteSpaceEnd))) {
+                whiteSpaceEnd++;
+            }
+
+            for (int separatorStart = whiteSpaceEnd; separatorStart >= pos; separatorStart--) {
+                if (regionMatches(s, separatorStart, end, separator)) {
+                    int matchEnd = separatorStart + separatorLength;
+                    while (matchEnd < end && isPatternWhiteSpace(s.charAt(matchEnd))) {
+                        matchEnd++;
+                    }
+                    return ((long) pos << 32) | matchEnd;
+                }
+            }
+
+            // A match can't start anywhere in this whitespace run either; all of its candidates have been tried.
+            pos = whiteSpaceEnd + 1;
+        }
+        return NOT_FOUND;
+    }
+
+    /**
+     * @return True for the characters matched by {@code \s} in a regular expression.
+     */
+    private static boolean isPatternWhiteSpace(char c) {
+        return c == ' ' || (c >= '\t' && c <= '\r');
+    }
+
+    private static boolean regionMatches(CharSequence s, int start, int end, String separator) {
+        final int length = separator.length();
+        if (start + length > end) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (s.charAt(start + i) != separator.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int trimStart(CharSequence s) {
+        final int length = s.length();
+        int start = 0;
+        while (start < length && Character.isWhitespace(s.charAt(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private static int trimEnd(CharSequence s, int start) {
+        int end = s.length();
+        while (end > start && Character.isWhitespace(s.charAt(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static int addField(int[] offsets, int count, int start, int end) {
+        final int idx = count * 2;
+        if (idx + 1 < offsets.length) {
+            offsets[idx] = start;
+            offsets[idx + 1] = end;
+        }
+        return count + 1;
+    }
+
+    private static final class ElementIterator implements Iterator<CharSequence> {
+        private final CharSequence list;
+        private final String separator;
+        private final int start;
+        private final int end;
+
+        /**
+         * The start of the element after the last one that was scanned, or -1 when the last element has been scanned.
+         */
+        private int scanPos;
+        private boolean foundSeparator;
+
+        /**
+         * The number of empty elements that precede the element at nextStart...nextEnd.
+         */
+        private int pendingEmptyCount;
+        private int nextStart = -1;
+        private int nextEnd;
+
+        ElementIterator(CharSequence list, String separator) {
+            this.list = list;
+            this.separator = separator;
+            start = trimStart(list);
+            end = trimEnd(list, start);
+            scanPos = start;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pendingEmptyCount > 0 || nextStart >= 0 || scanToNonEmptyElement();
+        }
+
+        @Override
+        public CharSequence next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (pendingEmptyCount > 0) {
+                pendingEmptyCount--;
+                return "";
+            }
+            final CharSequence element = CharBuffer.wrap(list, nextStart, nextEnd);
+            nextStart = -1;
+            return element;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Scans until the next non-empty element, counting the empty elements before it. Empty elements that aren't
+         * followed by a non-empty one are trailing elements and are dropped.
+         */
+        private boolean scanToNonEmptyElement() {
+            int emptyCount = 0;
+            while (scanPos >= 0) {
+                final int fieldStart = scanPos;
+                final int fieldEnd;
+                final long match = findSeparator(list, fieldStart, end, separator);
+                if (match != NOT_FOUND) {
+                    foundSeparator = true;
+                    fieldEnd = (int) (match >>> 32);
+                    scanPos = (int) match;
+                } else {
+                    fieldEnd = end;
+                    scanPos = -1;
+                    if (!foundSeparator) {
+                        // The list without any separator is the only element, even if it is empty.
+                        nextStart = fieldStart;
+                        nextEnd = fieldEnd;
+                        return true;
+                    }
+                }
+
+                if (fieldEnd > fieldStart) {
+                    pendingEmptyCount = emptyCount;
+                    nextStart = fieldStart;
+                    nextEnd = fieldEnd;
+                    return true;
+                }
+                emptyCount++;
+            }
+            return false;
+        }
+    }
+}
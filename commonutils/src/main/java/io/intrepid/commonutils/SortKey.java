@@ -0,0 +1,375 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+import android.support.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+/**
+ * A precomputed key that sorts a string without looking at the string again.
+ * <p>
+ * A string is turned into a sequence of 16-bit units once, so that comparing the units in order gives the wanted
+ * ordering. The first four units are packed into a {@code long}, which decides most comparisons with a single
+ * instruction, and the rest is kept in a tail array. Sorting n strings by their keys converts each string once,
+ * instead of walking both strings in each of the O(n log n) comparisons of
+ * {@link StringUtils#compare(CharSequence, CharSequence)}.
+ * <p>
+ * Without flags, keys are ordered like {@link String#compareTo(String)}. The flags add:
+ * <ul>
+ * <li>{@link #IGNORE_CASE}: the ordering of {@link String#CASE_INSENSITIVE_ORDER}.</li>
+ * <li>{@link #NATURAL}: runs of the ASCII digits 0-9 are compared by their numeric value, so "item2" sorts before
+ * "item10". Numbers that only differ in leading zeros are equal.</li>
+ * </ul>
+ * Null sorts before all other strings.
+ */
+@SuppressWarnings({ "unused", "WeakerAccess" })
+public final class SortKey implements Comparable<SortKey> {
+    public static final int IGNORE_CASE = 1;
+    public static final int NATURAL = 2;
+
+    /**
+     * Lists smaller than this are sorted on the calling thread.
+     */
+    private static final int MIN_ITEMS_PER_CHUNK = 4096;
+
+    private static final int PREFIX_UNITS = 4;
+    private static final char[] EMPTY_TAIL = new char[0];
+    private static final SortKey NULL_KEY = new SortKey(Long.MIN_VALUE, EMPTY_TAIL, -1);
+
+    private final long prefix;
+    private final char[] tail;
+    private final int length;
+
+    private SortKey(long prefix, char[] tail, int length) {
+        this.prefix = prefix;
+        this.tail = tail;
+        this.length = length;
+    }
+
+    /**
+     * @param s     The string to create a key for.
+     * @param flags A combination of {@link #IGNORE_CASE} and {@link #NATURAL}, or 0.
+     * @return The key of the string.
+     */
+    @NonNull
+    public static SortKey of(@Nullable CharSequence s, int flags) {
+        if (s == null) {
+            return NULL_KEY;
+        }
+
+        // A number of n digits takes at most n + 2 units, so a string of single digits separated by single
+        // characters takes the most
+        final int length = s.length();
+        final int capacity = ((flags & NATURAL) != 0) ? 2 * length + 2 : length;
+        final BufferArena.CharArrayLease lease = BufferArena.acquireChars(Math.max(PREFIX_UNITS, capacity));
+        try {
+            final char[] units = lease.array();
+            final int unitCount = encode(s, flags, units);
+
+            long prefix = 0;
+            for (int i = 0; i < PREFIX_UNITS; i++) {
+                prefix = (prefix << 16) | ((i < unitCount) ? units[i] : 0);
+            }
+            final char[] tail = (unitCount > PREFIX_UNITS)
+                    ? Arrays.copyOfRange(units, PREFIX_UNITS, unitCount) : EMPTY_TAIL;
+
+            // Flipping the sign bit makes the signed comparison of the prefixes an unsigned one
+            return new SortKey(prefix ^ Long.MIN_VALUE, tail, unitCount);
+        } finally {
+            lease.close();
+        }
+    }
+
+    /**
+     * Sorts a list by the keys of its elements. Large lists are split up and sorted in parallel on a shared pool of
+     * worker threads. The sort is stable.
+     *
+     * @param list  The list to sort.
+     * @param flags A combination of {@link #IGNORE_CASE} and {@link #NATURAL}, or 0.
+     */
+    public static <T extends CharSequence> void sort(@NonNull List<T> list, int flags) {
+        sort(list, flags, null, Parallel.getDefaultExecutor());
+    }
+
+    /**
+     * Same as {@link #sort(List, int)}, but the work is split up on the given executor.
+     *
+     * @param list     The list to sort.
+     * @param flags    A combination of {@link #IGNORE_CASE} and {@link #NATURAL}, or 0.
+     * @param executor The executor on which the work is split up, or null to do all the work on the calling thread.
+     */
+    public static <T extends CharSequence> void sort(@NonNull List<T> list, int flags, @Nullable Executor executor) {
+        sort(list, flags, null, executor);
+    }
+
+    /**
+     * Same as {@link #sort(List, int, Executor)}, but reuses the keys of the strings in the cache and adds the keys
+     * of the other strings to it, so re-sorting a list that mostly contains the same strings only creates keys for
+     * the new ones.
+     *
+     * @param list     The list to sort.
+     * @param cache    The cache of keys, which also determines the flags.
+     * @param executor The executor on which the work is split up, or null to do all the work on the calling thread.
+     */
+    public static <T extends CharSequence> void sort(@NonNull List<T> list, @NonNull Cache cache,
+                                                     @Nullable Executor executor) {
+        sort(list, cache.flags, cache, executor);
+    }
+
+    @Override
+    public int compareTo(@NonNull SortKey other) {
+        if (prefix != other.prefix) {
+            return (prefix < other.prefix) ? -1 : 1;
+        }
+        final char[] otherTail = other.tail;
+        for (int i = 0, n = Math.min(tail.length, otherTail.length); i < n; i++) {
+            if (tail[i] != otherTail[i]) {
+                return tail[i] - otherTail[i];
+            }
+        }
+        return (length < other.length) ? -1 : ((length == other.length) ? 0 : 1);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof SortKey)) {
+            return false;
+        }
+        final SortKey other = (SortKey) o;
+        return prefix == other.prefix && length == other.length && Arrays.equals(tail, other.tail);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * (int) (prefix ^ (prefix >>> 32)) + Arrays.hashCode(tail)) + length;
+    }
+
+    /**
+     * Writes the units of the string to the array.
+     *
+     * @return The number of units.
+     */
+    private static int encode(CharSequence s, int flags, char[] units) {
+        final boolean ignoreCase = (flags & IGNORE_CASE) != 0;
+        final boolean natural = (flags & NATURAL) != 0;
+        final int length = s.length();
+
+        int count = 0;
+        int i = 0;
+        while (i < length) {
+            char c = s.charAt(i);
+            if (natural && c >= '0' && c <= '9') {
+                // '0', the number of significant digits and the significant digits, so a number sorts like a digit
+                // against other characters and by its value against other numbers
+                int start = i;
+                while (start < length && s.charAt(start) == '0') {
+                    start++;
+                }
+                int end = start;
+                while (end < length && (c = s.charAt(end)) >= '0' && c <= '9') {
+                    end++;
+                }
+                units[count++] = '0';
+                units[count++] = (char) Math.min(end - start, Character.MAX_VALUE);
+                for (int j = start; j < end; j++) {
+                    units[count++] = s.charAt(j);
+                }
+                i = end;
+            } else {
+                // The same folding as String.CASE_INSENSITIVE_ORDER
+                units[count++] = ignoreCase ? Character.toLowerCase(Character.toUpperCase(c)) : c;
+                i++;
+            }
+        }
+        return count;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends CharSequence> void sort(@NonNull final List<T> list, final int flags,
+                                                      @Nullable Cache cache, @Nullable Executor executor) {
+        final int size = list.size();
+        if (size < 2) {
+            return;
+        }
+
+        final Entry[] entries = new Entry[size];
+        int index = 0;
+        for (T item : list) {
+            entries[index++] = new Entry(item, (cache != null) ? cache.lookup(item) : null);
+        }
+
+        final int chunkCount = Parallel.getChunkCount(size, MIN_ITEMS_PER_CHUNK, executor);
+        final int[] bounds = new int[chunkCount + 1];
+        bounds[chunkCount] = size;
+        Parallel.run(size, chunkCount, executor, new Parallel.ChunkTask() {
+            @Override
+            public void run(int chunk, int start, int end) {
+                bounds[chunk] = start;
+                for (int i = start; i < end; i++) {
+                    final Entry entry = entries[i];
+                    if (entry.key == null) {
+                        entry.key = of(entry.item, flags);
+                    }
+                }
+                Arrays.sort(entries, start, end);
+            }
+        });
+
+        final Entry[] sorted = merge(entries, bounds, executor);
+
+        if (cache != null) {
+            for (Entry entry : sorted) {
+                cache.store(entry.item, entry.key);
+            }
+            cache.nextGeneration();
+        }
+
+        final ListIterator<T> it = list.listIterator();
+        for (Entry entry : sorted) {
+            it.next();
+            it.set((T) entry.item);
+        }
+    }
+
+    /**
+     * Merges the sorted runs pairwise until one is left. The merges of a round run in parallel.
+     */
+    private static Entry[] merge(Entry[] entries, int[] bounds, @Nullable Executor executor) {
+        Entry[] source = entries;
+        Entry[] target = (bounds.length > 2) ? new Entry[entries.length] : null;
+        int[] runBounds = bounds;
+        while (runBounds.length > 2) {
+            final int runs = runBounds.length - 1;
+            final int mergedRuns = (runs + 1) / 2;
+            final int[] mergedBounds = new int[mergedRuns + 1];
+            for (int i = 0; i <= mergedRuns; i++) {
+                mergedBounds[i] = runBounds[Math.min(2 * i, runs)];
+            }
+
+            final Entry[] from = source;
+            final Entry[] to = target;
+            final int[] fromBounds = runBounds;
+            Parallel.run(mergedRuns, mergedRuns, executor, new Parallel.ChunkTask() {
+                @Override
+                public void run(int chunk, int start, int end) {
+                    for (int i = start; i < end; i++) {
+                        final int lo = fromBounds[2 * i];
+                        final int mid = fromBounds[Math.min(2 * i + 1, runs)];
+                        final int hi = fromBounds[Math.min(2 * i + 2, runs)];
+                        mergeRuns(from, lo, mid, hi, to);
+                    }
+                }
+            });
+
+            target = source;
+            source = to;
+            runBounds = mergedBounds;
+        }
+        return source;
+    }
+
+    private static void mergeRuns(Entry[] from, int lo, int mid, int hi, Entry[] to) {
+        int left = lo;
+        int right = mid;
+        int out = lo;
+        while (left < mid && right < hi) {
+            // Taking from the left run on ties keeps the sort stable
+            to[out++] = (from[right].compareTo(from[left]) < 0) ? from[right++] : from[left++];
+        }
+        System.arraycopy(from, left, to, out, mid - left);
+        System.arraycopy(from, right, to, out + mid - left, hi - right);
+    }
+
+    private static final class Entry implements Comparable<Entry> {
+        final CharSequence item;
+        SortKey key;
+
+        Entry(CharSequence item, SortKey key) {
+            this.item = item;
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(@NonNull Entry other) {
+            return key.compareTo(other.key);
+        }
+    }
+
+    /**
+     * Keeps the keys of the strings that were sorted by the last call to {@link SortKey#sort(List, Cache, Executor)}
+     * and of those requested with {@link #get(CharSequence)} since then, so keys of strings that are no longer in the
+     * list are dropped by the next sort.
+     * <p>
+     * Only the keys of {@link String}s are cached, since other CharSequences can change.
+     * <p>
+     * This class is not thread-safe.
+     */
+    public static final class Cache {
+        private final int flags;
+        private Map<String, SortKey> current = new HashMap<>();
+        private Map<String, SortKey> previous = new HashMap<>();
+
+        /**
+         * @param flags A combination of {@link #IGNORE_CASE} and {@link #NATURAL}, or 0.
+         */
+        public Cache(int flags) {
+            this.flags = flags;
+        }
+
+        /**
+         * @param s The string to get the key of.
+         * @return The cached key of the string, or a new one which is added to the cache.
+         */
+        @NonNull
+        public SortKey get(@Nullable CharSequence s) {
+            SortKey key = lookup(s);
+            if (key == null) {
+                key = of(s, flags);
+                store(s, key);
+            }
+            return key;
+        }
+
+        /**
+         * @return The number of cached keys.
+         */
+        public int size() {
+            return current.size() + previous.size();
+        }
+
+        /**
+         * Removes all keys from the cache.
+         */
+        public void clear() {
+            current.clear();
+            previous.clear();
+        }
+
+        SortKey lookup(CharSequence s) {
+            if (!(s instanceof String)) {
+                return null;
+            }
+            final SortKey key = current.get(s);
+            return (key != null) ? key : previous.get(s);
+        }
+
+        void store(CharSequence s, SortKey key) {
+            if (s instanceof String) {
+                current.put((String) s, key);
+            }
+        }
+
+        void nextGeneration() {
+            previous = current;
+            current = new HashMap<>();
+        }
+    }
+}
@@ -3,18 +3,20 @@ package io.intrepid.commonutils;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
 
-import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
-import java.io.Reader;
-import java.io.StringWriter;
-import java.io.UnsupportedEncodingException;
-import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.Executor;
 import java.util.regex.Pattern;
 
 /**
@@ -23,24 +25,123 @@ import java.util.regex.Pattern;
  */
 @SuppressWarnings({ "unused", "WeakerAccess" })
 public abstract class StringUtils {
-    private static final ThreadLocal<Pattern[]> MATCHING_PATTERNS = new ThreadLocal<Pattern[]>() {
-        @Override
-        protected Pattern[] initialValue() {
-            return new Pattern[] {
-                    Pattern.compile("[\\t\\n\\u0590-\\uFFFF]"), // non-boring characters.
-                    Pattern.compile("[^a-zA-Z0-9]"), // non-alpha-numeric.
-                    Pattern.compile("^([a-z0-9A-Z]+[-_|\\.]?)+[a-z0-9A-Z]@([a-z0-9A-Z]+(-[a-z0-9A-Z]+)?\\.)+[a-zA-Z]{2,}$") // Email-address pattern.
-            };
-        }
+    // region Email-address DFA
+    // Accepts exactly the language of the regular expression
+    // ^([a-z0-9A-Z]+[-_|\.]?)+[a-z0-9A-Z]@([a-z0-9A-Z]+(-[a-z0-9A-Z]+)?\.)+[a-zA-Z]{2,}$
+    // but, unlike the regular expression, runs in linear time (the nested quantifier of the local part made the
+    // regular expression backtrack exponentially on input like "aaaaaaaaaaaaaaaaaaaaaaaaaaaa!").
+
+    private static final int EMAIL_CLASS_LETTER = 0;
+    private static final int EMAIL_CLASS_DIGIT = 1;
+    private static final int EMAIL_CLASS_HYPHEN = 2;
+    private static final int EMAIL_CLASS_DOT = 3;
+    private static final int EMAIL_CLASS_SEPARATOR = 4; // '_' and '|'
+    private static final int EMAIL_CLASS_AT = 5;
+    private static final int EMAIL_CLASS_INVALID = 6;
+    private static final int EMAIL_CLASS_COUNT = 7;
+
+    private static final byte EMAIL_STATE_REJECT = -1;
+    private static final byte EMAIL_STATE_ACCEPT = 10;
+
+    /**
+     * Transition table, indexed by (state * EMAIL_CLASS_COUNT + character class). The states are:
+     * <ul>
+     * <li>0: start</li>
+     * <li>1: local part with a single alpha-numeric character</li>
+     * <li>2: local part ending with an alpha-numeric character</li>
+     * <li>3: local part ending with a separator ('-', '_', '|' or '.')</li>
+     * <li>4: start of the domain</li>
+     * <li>5: first domain label</li>
+     * <li>6: first domain label ending with a hyphen</li>
+     * <li>7: first domain label after its hyphen</li>
+     * <li>8: start of a subsequent domain label</li>
+     * <li>9: subsequent domain label with a single letter</li>
+     * <li>10: subsequent domain label with only letters (accepting state, this label can be the top-level domain)</li>
+     * <li>11: subsequent domain label containing a digit</li>
+     * <li>12: subsequent domain label ending with a hyphen</li>
+     * <li>13: subsequent domain label after its hyphen</li>
+     * </ul>
+     */
+    private static final byte[] EMAIL_TRANSITIONS = {
+            // letter, digit, hyphen, dot, separator, at, invalid
+            1, 1, -1, -1, -1, -1, -1,   // 0
+            2, 2, 3, 3, 3, -1, -1,      // 1
+            2, 2, 3, 3, 3, 4, -1,       // 2
+            2, 2, -1, -1, -1, -1, -1,   // 3
+            5, 5, -1, -1, -1, -1, -1,   // 4
+            5, 5, 6, 8, -1, -1, -1,     // 5
+            7, 7, -1, -1, -1, -1, -1,   // 6
+            7, 7, -1, 8, -1, -1, -1,    // 7
+            9, 11, -1, -1, -1, -1, -1,  // 8
+            10, 11, 12, 8, -1, -1, -1,  // 9
+            10, 11, 12, 8, -1, -1, -1,  // 10
+            11, 11, 12, 8, -1, -1, -1,  // 11
+            13, 13, -1, -1, -1, -1, -1, // 12
+            13, 13, -1, 8, -1, -1, -1,  // 13
     };
 
-    private static final ThreadLocal<char[]> LOCAL_CHAR_ARRAY_BUFFER = new ThreadLocal<char[]>() {
+    private static final byte[] EMAIL_CHARACTER_CLASSES = new byte[128];
+
+    static {
+        Arrays.fill(EMAIL_CHARACTER_CLASSES, (byte) EMAIL_CLASS_INVALID);
+        for (char c = 'a'; c <= 'z'; c++) {
+            EMAIL_CHARACTER_CLASSES[c] = EMAIL_CLASS_LETTER;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            EMAIL_CHARACTER_CLASSES[c] = EMAIL_CLASS_LETTER;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            EMAIL_CHARACTER_CLASSES[c] = EMAIL_CLASS_DIGIT;
+        }
+        EMAIL_CHARACTER_CLASSES['-'] = EMAIL_CLASS_HYPHEN;
+        EMAIL_CHARACTER_CLASSES['.'] = EMAIL_CLASS_DOT;
+        EMAIL_CHARACTER_CLASSES['_'] = EMAIL_CLASS_SEPARATOR;
+        EMAIL_CHARACTER_CLASSES['|'] = EMAIL_CLASS_SEPARATOR;
+        EMAIL_CHARACTER_CLASSES['@'] = EMAIL_CLASS_AT;
+    }
+
+    // endregion
+
+    /**
+     * The first character that is no longer boring.
+     *
+     * @see #replaceNonBoringCharacters(CharSequence, String)
+     */
+    private static final char FIRST_NON_BORING_CHAR = '\u0590';
+
+    /**
+     * Lookup table for the ASCII alpha-numeric characters a...z, A...Z and 0...9
+     */
+    private static final boolean[] ASCII_ALPHA_NUMERIC = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            ASCII_ALPHA_NUMERIC[c] = true;
+        }
+        for (char c = 'A'; c <= 'Z'; c++) {
+            ASCII_ALPHA_NUMERIC[c] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            ASCII_ALPHA_NUMERIC[c] = true;
+        }
+    }
+
+    /**
+     * Offset pairs of the elements of a separated list. Lists with more elements get a larger, temporary array.
+     */
+    private static final ThreadLocal<int[]> LOCAL_SEPARATED_OFFSETS = new ThreadLocal<int[]>() {
         @Override
-        protected char[] initialValue() {
-            return new char[8192];
+        protected int[] initialValue() {
+            return new int[128];
         }
     };
 
+    /**
+     * The bulk copy of android.text.GetChars, or null where the Android framework isn't available, like in the JVM
+     * benchmarks, which compile this class without it.
+     */
+    static final PlatformGetChars PLATFORM_GET_CHARS = loadPlatformGetChars();
+
     // region TextUtils methods
     // These methods are copied from TextUtils class so that we don't need to mock them when running unit tests
 
@@ -59,6 +160,8 @@ public abstract class StringUtils {
      * Returns true if a and b are equal, including if they are both null.
      * <p><i>Note: In platform versions 1.1 and earlier, this method only worked well if
      * both the arguments were instances of String.</i></p>
+     * Other CharSequences that can copy their characters in bulk, like StringBuilders and Spannables, are compared a
+     * block at a time.
      *
      * @param a first CharSequence to check
      * @param b second CharSequence to check
@@ -73,12 +176,7 @@ public abstract class StringUtils {
             if (a instanceof String && b instanceof String) {
                 return a.equals(b);
             } else {
-                for (int i = 0; i < length; i++) {
-                    if (a.charAt(i) != b.charAt(i)) {
-                        return false;
-                    }
-                }
-                return true;
+                return CharSequenceSearch.mismatch(a, b, length) < 0;
             }
         }
         return false;
@@ -91,16 +189,33 @@ public abstract class StringUtils {
      *               the objects by calling object.toString().
      */
     public static String join(CharSequence delimiter, Iterable tokens) {
-        StringBuilder sb = new StringBuilder();
-        Iterator<?> it = tokens.iterator();
-        if (it.hasNext()) {
-            sb.append(it.next());
-            while (it.hasNext()) {
-                sb.append(delimiter);
-                sb.append(it.next());
+        if (delimiter == null) {
+            delimiter = "null";
+        }
+
+        if (tokens instanceof List && tokens instanceof RandomAccess) {
+            final String joined = joinCharSequences(delimiter, (List<?>) tokens);
+            if (joined != null) {
+                return joined;
             }
         }
-        return sb.toString();
+
+        final BufferArena.StringBuilderLease lease = BufferArena.acquireBuilder(0);
+        try {
+            return appendJoined(lease.builder(), delimiter, tokens).toString();
+        } finally {
+            lease.close();
+        }
+    }
+
+    /**
+     * Returns a string containing the tokens joined by delimiters.
+     *
+     * @param tokens an array objects to be joined. Strings will be formed from
+     *               the objects by calling object.toString().
+     */
+    public static String join(CharSequence delimiter, Object[] tokens) {
+        return join(delimiter, Arrays.asList(tokens));
     }
 
     // endregion
@@ -148,6 +263,9 @@ public abstract class StringUtils {
     /**
      * Replaces non-boring character with the given replacement string.
      * Note that the replacement string must contain only boring characters.
+     * <p>
+     * The input is returned as is (without copying it) if it is a String that doesn't contain any
+     * non-boring characters.
      *
      * @param string      String whose non-boring character will be replace with the given replacement.
      * @param replacement The replacement.
@@ -155,31 +273,201 @@ public abstract class StringUtils {
      * @see android.text.BoringLayout
      * <p>
      * Boring characters are all character less than \u0590 and not a tab
-     * and not a new line.
+     * and not a new line. A surrogate pair is replaced as a whole, i.e. by a single replacement.
      */
     public static String replaceNonBoringCharacters(@NonNull CharSequence string, @NonNull String replacement) {
-        return isEmpty(string) ? "" : MATCHING_PATTERNS.get()[0].matcher(string).replaceAll(replacement);
+        if (isEmpty(string)) {
+            return "";
+        }
+
+        final int length = string.length();
+        final int firstIdx = indexOfNonBoringCharacter(string, 0, length);
+        if (firstIdx < 0) {
+            return string.toString();
+        }
+
+        final StringBuilder sb = new StringBuilder(length + replacement.length());
+        sb.append(string, 0, firstIdx);
+        appendReplacingNonBoringCharacters(string, firstIdx, length, replacement, sb);
+        return sb.toString();
+    }
+
+    /**
+     * Same as {@link #replaceNonBoringCharacters(CharSequence, String)}, but appends the result to the given
+     * StringBuilder instead of creating a new String.
+     *
+     * @param string      String whose non-boring character will be replace with the given replacement.
+     * @param replacement The replacement.
+     * @param out         The StringBuilder to which the result is appended.
+     * @return The given StringBuilder.
+     */
+    public static StringBuilder replaceNonBoringCharacters(@NonNull CharSequence string,
+                                                           @NonNull CharSequence replacement,
+                                                           @NonNull StringBuilder out) {
+        appendReplacingNonBoringCharacters(string, 0, string.length(), replacement, out);
+        return out;
+    }
+
+    /**
+     * Same as {@link #replaceNonBoringCharacters(CharSequence, String)}, but writes the result into the given
+     * char array instead of creating a new String.
+     *
+     * @param string      String whose non-boring character will be replace with the given replacement.
+     * @param replacement The replacement.
+     * @param dest        The destination array.
+     * @param destOffset  The index in the destination array at which the result will start.
+     * @return The number of characters that were written.
+     * @throws IndexOutOfBoundsException If the result doesn't fit into the destination array.
+     */
+    public static int replaceNonBoringCharacters(@NonNull CharSequence string,
+                                                 @NonNull CharSequence replacement,
+                                                 @NonNull char[] dest,
+                                                 int destOffset) {
+        final int length = string.length();
+        final int replacementLength = replacement.length();
+        int destIdx = destOffset;
+        for (int idx = 0; idx < length; idx++) {
+            final char c = string.charAt(idx);
+            if (isBoringCharacter(c)) {
+                dest[destIdx++] = c;
+                continue;
+            }
+
+            if (isSurrogatePair(string, idx, length)) {
+                idx++;
+            }
+            for (int i = 0; i < replacementLength; i++) {
+                dest[destIdx++] = replacement.charAt(i);
+            }
+        }
+        return destIdx - destOffset;
     }
 
     /**
      * Strips all non alpha-numeric characters from the input string.
-     * An alpha-numeric character is a...z, A...Z and 0...
+     * An alpha-numeric character is a...z, A...Z and 0...9
+     * <p>
+     * The input is returned as is (without copying it) if it is a String that only contains alpha-numeric
+     * characters.
      *
      * @param s Input string
      * @return The string without any alpha-numeric characters.
      */
     public static String stripNonAlphaNumeric(CharSequence s) {
-        return MATCHING_PATTERNS.get()[1].matcher(s).replaceAll("");
+        final int length = s.length();
+        int firstIdx = 0;
+        while (firstIdx < length && isAlphaNumeric(s.charAt(firstIdx))) {
+            firstIdx++;
+        }
+        if (firstIdx == length) {
+            return s.toString();
+        }
+
+        final StringBuilder sb = new StringBuilder(length - 1);
+        sb.append(s, 0, firstIdx);
+        for (int idx = firstIdx + 1; idx < length; idx++) {
+            final char c = s.charAt(idx);
+            if (isAlphaNumeric(c)) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Same as {@link #stripNonAlphaNumeric(CharSequence)}, but appends the result to the given StringBuilder
+     * instead of creating a new String.
+     *
+     * @param s   Input string
+     * @param out The StringBuilder to which the result is appended.
+     * @return The given StringBuilder.
+     */
+    public static StringBuilder stripNonAlphaNumeric(@NonNull CharSequence s, @NonNull StringBuilder out) {
+        final int length = s.length();
+        for (int idx = 0; idx < length; idx++) {
+            final char c = s.charAt(idx);
+            if (isAlphaNumeric(c)) {
+                out.append(c);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Same as {@link #stripNonAlphaNumeric(CharSequence)}, but writes the result into the given char array
+     * instead of creating a new String. The result is never longer than the input.
+     *
+     * @param s          Input string
+     * @param dest       The destination array.
+     * @param destOffset The index in the destination array at which the result will start.
+     * @return The number of characters that were written.
+     * @throws IndexOutOfBoundsException If the result doesn't fit into the destination array.
+     */
+    public static int stripNonAlphaNumeric(@NonNull CharSequence s, @NonNull char[] dest, int destOffset) {
+        final int length = s.length();
+        int destIdx = destOffset;
+        for (int idx = 0; idx < length; idx++) {
+            final char c = s.charAt(idx);
+            if (isAlphaNumeric(c)) {
+                dest[destIdx++] = c;
+            }
+        }
+        return destIdx - destOffset;
     }
 
     /**
      * Checks if the input string is a valid email.
+     * <p>
+     * This runs in linear time and doesn't allocate, so it is safe to call on arbitrary user input.
      *
      * @param email The string to check.
      * @return True only if the given string is a valid email address.
      */
     public static boolean isEmailAddress(CharSequence email) {
-        return !isEmpty(email) && MATCHING_PATTERNS.get()[2].matcher(email).matches();
+        if (isEmpty(email)) {
+            return false;
+        }
+
+        final int length = email.length();
+        int state = 0;
+        for (int idx = 0; idx < length; idx++) {
+            final char c = email.charAt(idx);
+            final int charClass = (c < 128) ? EMAIL_CHARACTER_CLASSES[c] : EMAIL_CLASS_INVALID;
+            state = EMAIL_TRANSITIONS[state * EMAIL_CLASS_COUNT + charClass];
+            if (state == EMAIL_STATE_REJECT) {
+                return false;
+            }
+        }
+        return state == EMAIL_STATE_ACCEPT;
+    }
+
+    /**
+     * Checks which of the input strings are valid emails.
+     *
+     * @param emails The strings to check. Null elements are not valid emails.
+     * @return A BitSet in which the bit at index i is set only if the i-th input string is a valid email address.
+     * @see #isEmailAddress(CharSequence)
+     */
+    @NonNull
+    public static BitSet validateEmails(@NonNull List<? extends CharSequence> emails) {
+        final int size = emails.size();
+        final BitSet valid = new BitSet(size);
+        if (emails instanceof RandomAccess) {
+            for (int idx = 0; idx < size; idx++) {
+                if (isEmailAddress(emails.get(idx))) {
+                    valid.set(idx);
+                }
+            }
+        } else {
+            int idx = 0;
+            for (CharSequence email : emails) {
+                if (isEmailAddress(email)) {
+                    valid.set(idx);
+                }
+                idx++;
+            }
+        }
+        return valid;
     }
 
     /**
@@ -188,6 +476,7 @@ public abstract class StringUtils {
      * @param enumValue The enumeration value.
      * @param <E>       The enumeration type.
      * @return The name of the enumeration value or null.
+     * @see EnumSetCodec
      */
     public static <E extends Enum<E>> String toEnumString(E enumValue) {
         return (enumValue != null) ? enumValue.name() : null;
@@ -200,9 +489,49 @@ public abstract class StringUtils {
      * @param enumName  The name of the enumeration.
      * @param <E>       The type of the enumeration.
      * @return The enumeration value.
+     * @throws IllegalArgumentException If the enumeration has no value with the given name. Use
+     *                                  {@link #toEnum(Class, CharSequence, Enum)} for names that may be unknown.
      */
     public static <E extends Enum<E>> E toEnum(@NonNull Class<E> enumClass, Object enumName) {
-        return (enumName != null) ? Enum.valueOf(enumClass, enumName.toString()) : null;
+        if (enumName == null) {
+            return null;
+        }
+        final CharSequence name = (enumName instanceof CharSequence) ? (CharSequence) enumName : enumName.toString();
+        final E value = EnumLookup.of(enumClass).get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("No enum constant " + enumClass.getCanonicalName() + "." + name);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the enumeration value whose name is the given input string, without throwing for unknown names.
+     *
+     * @param enumClass    The class of the enumeration that will be returned.
+     * @param enumName     The name of the enumeration.
+     * @param defaultValue The value to return if the name is null or unknown.
+     * @param <E>          The type of the enumeration.
+     * @return The enumeration value or the default value.
+     * @see EnumLookup
+     */
+    public static <E extends Enum<E>> E toEnum(@NonNull Class<E> enumClass, @Nullable CharSequence enumName,
+                                               @Nullable E defaultValue) {
+        return EnumLookup.of(enumClass).get(enumName, defaultValue);
+    }
+
+    /**
+     * Same as {@link #toEnum(Class, CharSequence, Enum)}, but the name may be in any case.
+     *
+     * @param enumClass    The class of the enumeration that will be returned.
+     * @param enumName     The name of the enumeration, in any case.
+     * @param defaultValue The value to return if the name is null or unknown.
+     * @param <E>          The type of the enumeration.
+     * @return The enumeration value or the default value.
+     */
+    public static <E extends Enum<E>> E toEnumIgnoreCase(@NonNull Class<E> enumClass,
+                                                         @Nullable CharSequence enumName,
+                                                         @Nullable E defaultValue) {
+        return EnumLookup.of(enumClass).getIgnoreCase(enumName, defaultValue);
     }
 
     /**
@@ -223,7 +552,23 @@ public abstract class StringUtils {
             return new String[0];
         }
 
-        return stripSurroundingWhiteSpace(separatedList).split("\\s*" + Pattern.quote(separator) + "\\s*");
+        if (separator.isEmpty()) {
+            return PatternCache.compile("\\s*" + Pattern.quote(separator) + "\\s*")
+                               .split(stripSurroundingWhiteSpace(separatedList));
+        }
+
+        int[] offsets = LOCAL_SEPARATED_OFFSETS.get();
+        final int count = getSeparatedOffsets(separatedList, separator, offsets);
+        if (count * 2 > offsets.length) {
+            offsets = new int[count * 2];
+            getSeparatedOffsets(separatedList, separator, offsets);
+        }
+
+        final String[] array = new String[count];
+        for (int i = 0; i < count; i++) {
+            array[i] = separatedList.substring(offsets[i * 2], offsets[i * 2 + 1]);
+        }
+        return array;
     }
 
     /**
@@ -235,20 +580,95 @@ public abstract class StringUtils {
      * @return The elements in the given list.
      */
     public static List<String> parseSeparatedList(String separatedList, @NonNull String separator) {
-        String[] array = parseSeparatedArray(separatedList, separator);
-        if (array == null) {
+        if (separatedList == null) {
             return null;
         }
 
-        List<String> retVal = new ArrayList<>(array.length);
-        if (array.length == 0) {
-            return retVal;
+        if (separator.isEmpty()) {
+            return new ArrayList<>(Arrays.asList(parseSeparatedArray(separatedList, separator)));
         }
 
-        retVal.addAll(Arrays.asList(array));
+        final List<String> retVal = new ArrayList<>();
+        parseSeparatedList(separatedList, separator, retVal);
         return retVal;
     }
 
+    /**
+     * Same as {@link #parseSeparatedList(String, String)}, but adds the elements to the given list instead of
+     * creating a new one, so that the list can be reused.
+     *
+     * @param separatedList List of elements separated by the separator.
+     * @param separator     The separator. It must not be empty.
+     * @param out           The list to which the elements are added.
+     * @return The number of elements that were added to the list.
+     */
+    public static int parseSeparatedList(@Nullable CharSequence separatedList,
+                                         @NonNull String separator,
+                                         @NonNull List<? super String> out) {
+        if (isEmpty(separatedList)) {
+            return 0;
+        }
+
+        int[] offsets = LOCAL_SEPARATED_OFFSETS.get();
+        final int count = getSeparatedOffsets(separatedList, separator, offsets);
+        if (count * 2 > offsets.length) {
+            offsets = new int[count * 2];
+            getSeparatedOffsets(separatedList, separator, offsets);
+        }
+
+        // subSequence of a String is a substring; other sequences only copy the characters of the element.
+        for (int i = 0; i < count; i++) {
+            out.add(separatedList.subSequence(offsets[i * 2], offsets[i * 2 + 1]).toString());
+        }
+        return count;
+    }
+
+    /**
+     * Finds the elements of a separated list (see {@link #parseSeparatedList(String, String)}) without creating
+     * any strings. The start (inclusive) and end (exclusive) index of element i are written to offsets[2 * i] and
+     * offsets[2 * i + 1], as long as they fit into the array.
+     *
+     * @param separatedList List of elements separated by the separator.
+     * @param separator     The separator. It must not be empty.
+     * @param offsets       Receives the offset pairs of the elements.
+     * @return The number of elements. If this is more than half the length of the offsets array, only the first
+     * elements have been written and the call can be repeated with a large enough array.
+     */
+    public static int getSeparatedOffsets(@Nullable CharSequence separatedList,
+                                          @NonNull String separator,
+                                          @NonNull int[] offsets) {
+        if (separator.isEmpty()) {
+            throw new IllegalArgumentException("separator must not be empty");
+        }
+        if (isEmpty(separatedList)) {
+            return 0;
+        }
+        return SeparatedListSplitter.split(separatedList, separator, offsets);
+    }
+
+    /**
+     * Returns the elements of a separated list (see {@link #parseSeparatedList(String, String)}) lazily. The list
+     * is scanned while iterating and the elements are views of the list that don't copy its characters, so the list
+     * must not be modified while the elements are in use.
+     *
+     * @param separatedList List of elements separated by the separator.
+     * @param separator     The separator. It must not be empty.
+     * @return The elements in the given list, or null if the list is null.
+     */
+    public static Iterable<CharSequence> iterateSeparatedList(@Nullable CharSequence separatedList,
+                                                              @NonNull String separator) {
+        if (separator.isEmpty()) {
+            throw new IllegalArgumentException("separator must not be empty");
+        }
+        if (separatedList == null) {
+            return null;
+        }
+        if (separatedList.length() == 0) {
+            return Collections.emptyList();
+        }
+        return SeparatedListSplitter.iterable(separatedList, separator);
+    }
+
     /**
      * Returns the provided list of items as a String where each item is separated by the given separator string.
      * Items that are empty or null are skipped entirely (i.e. there won't be two or more separators directly
@@ -262,21 +682,10 @@ public abstract class StringUtils {
      * @param separator The string with which to separate the items.
      * @param items     The items that appear in the list.
      * @return The String of items.
+     * @see Rope#separateItemsWith(CharSequence, List)
      */
     public static CharSequence separateItemsWith(CharSequence separator, CharSequence... items) {
-        StringBuilder sb = new StringBuilder();
-        for (CharSequence item : items) {
-            if (isEmpty(item)) {
-                continue;
-            }
-
-            if (sb.length() == 0) {
-                sb.append(item);
-            } else {
-                sb.append(separator).append(item);
-            }
-        }
-        return sb;
+        return separateItems(separator, Arrays.asList(items));
     }
 
     /**
@@ -290,12 +699,29 @@ public abstract class StringUtils {
             return "";
         }
 
-        CharSequence[] itemsArray = new CharSequence[items.size()];
-        for (int i = 0; i < items.size(); i++) {
-            Object item = items.get(i);
-            itemsArray[i] = (item != null) ? items.get(i).toString() : null;
+        // The items are converted to strings only once, so they are appended right away instead of measured first
+        final BufferArena.StringBuilderLease lease = BufferArena.acquireBuilder(0);
+        try {
+            final StringBuilder sb = lease.builder();
+            final boolean randomAccess = items instanceof RandomAccess;
+            final Iterator<?> it = randomAccess ? null : items.iterator();
+            for (int i = 0, n = items.size(); i < n; i++) {
+                final Object item = randomAccess ? items.get(i) : it.next();
+                final CharSequence itemString = (item == null || item instanceof CharSequence)
+                        ? (CharSequence) item : item.toString();
+                if (isEmpty(itemString)) {
+                    continue;
+                }
+
+                if (sb.length() > 0) {
+                    sb.append(separator);
+                }
+                sb.append(itemString);
+            }
+            return sb.toString();
+        } finally {
+            lease.close();
         }
-        return separateItemsWith(separator, itemsArray);
     }
 
     /**
@@ -309,8 +735,302 @@ public abstract class StringUtils {
             return "";
         }
 
-        CharSequence[] itemsArray = items.toArray(new CharSequence[items.size()]);
-        return separateItemsWith(separator, itemsArray);
+        return separateItems(separator, items);
+    }
+
+    /**
+     * Same as {@link #separateItemsWith(CharSequence, CharSequence...)}, but appends the items to a builder
+     * instead of creating a String.
+     *
+     * @param out       The builder to append to.
+     * @param separator The string with which to separate the items.
+     * @param items     The items that appear in the list.
+     * @return The builder.
+     */
+    @NonNull
+    public static StringBuilder appendSeparatedItems(@NonNull StringBuilder out,
+                                                     CharSequence separator,
+                                                     CharSequence... items) {
+        return appendSeparatedItems(out, separator, Arrays.asList(items));
+    }
+
+    /**
+     * Same as {@link #separateItemsWith(CharSequence, List)}, but appends the items to a builder instead of
+     * creating a String.
+     *
+     * @param out       The builder to append to.
+     * @param separator The string with which to separate the items.
+     * @param items     The items that appear in the list.
+     * @return The builder.
+     */
+    @NonNull
+    public static StringBuilder appendSeparatedItems(@NonNull StringBuilder out,
+                                                     CharSequence separator,
+                                                     @Nullable List<? extends CharSequence> items) {
+        if ((items == null) || items.isEmpty()) {
+            return out;
+        }
+
+        if (separator == null) {
+            separator = "null";
+        }
+        out.ensureCapacity(checkedLength(out.length() + separatedLength(separator, items)));
+        try {
+            appendSeparated(out, separator, items);
+        } catch (IOException e) {
+            // StringBuilder doesn't throw
+            throw new IllegalStateException(e);
+        }
+        return out;
+    }
+
+    /**
+     * Same as {@link #separateItemsWith(CharSequence, CharSequence...)}, but appends the items to the given output,
+     * e.g. a {@link java.io.Writer}, instead of creating a String.
+     *
+     * @param out       The output to append to.
+     * @param separator The string with which to separate the items.
+     * @param items     The items that appear in the list.
+     * @return The output.
+     * @throws IOException If the output throws it.
+     */
+    @NonNull
+    public static Appendable appendSeparatedItems(@NonNull Appendable out,
+                                                  CharSequence separator,
+                                                  CharSequence... items) throws IOException {
+        return appendSeparatedItems(out, separator, Arrays.asList(items));
+    }
+
+    /**
+     * Same as {@link #separateItemsWith(CharSequence, List)}, but appends the items to the given output, e.g. a
+     * {@link java.io.Writer}, instead of creating a String.
+     *
+     * @param out       The output to append to.
+     * @param separator The string with which to separate the items.
+     * @param items     The items that appear in the list.
+     * @return The output.
+     * @throws IOException If the output throws it.
+     */
+    @NonNull
+    public static Appendable appendSeparatedItems(@NonNull Appendable out,
+                                                  CharSequence separator,
+                                                  @Nullable List<? extends CharSequence> items) throws IOException {
+        if (out instanceof StringBuilder) {
+            return appendSeparatedItems((StringBuilder) out, separator, items);
+        }
+        if ((items == null) || items.isEmpty()) {
+            return out;
+        }
+
+        appendSeparated(out, separator == null ? "null" : separator, items);
+        return out;
+    }
+
+    /**
+     * Same as {@link #join(CharSequence, Iterable)}, but appends the tokens to a builder instead of creating a String.
+     *
+     * @param out       The builder to append to.
+     * @param delimiter The delimiter between the tokens.
+     * @param tokens    The tokens. Strings will be formed from the objects by calling object.toString().
+     * @return The builder.
+     */
+    @NonNull
+    public static StringBuilder appendJoined(@NonNull StringBuilder out, CharSequence delimiter, Iterable<?> tokens) {
+        try {
+            appendJoined((Appendable) out, delimiter, tokens);
+        } catch (IOException e) {
+            // StringBuilder doesn't throw
+            throw new IllegalStateException(e);
+        }
+        return out;
+    }
+
+    /**
+     * Same as {@link #join(CharSequence, Iterable)}, but appends the tokens to the given output, e.g. a
+     * {@link java.io.Writer}, instead of creating a String.
+     *
+     * @param out       The output to append to.
+     * @param delimiter The delimiter between the tokens.
+     * @param tokens    The tokens. Strings will be formed from the objects by calling object.toString().
+     * @return The output.
+     * @throws IOException If the output throws it.
+     */
+    @NonNull
+    public static Appendable appendJoined(@NonNull Appendable out, CharSequence delimiter, Iterable<?> tokens)
+            throws IOException {
+        if (delimiter == null) {
+            delimiter = "null";
+        }
+        boolean first = true;
+        for (Object token : tokens) {
+            if (!first) {
+                out.append(delimiter);
+            }
+            first = false;
+            out.append((token == null || token instanceof CharSequence) ? (CharSequence) token : token.toString());
+        }
+        return out;
+    }
+
+    /**
+     * Creates the separated String of the items with one exactly sized array.
+     */
+    private static String separateItems(CharSequence separator, List<? extends CharSequence> items) {
+        if (separator == null) {
+            separator = "null";
+        }
+
+        final int length = checkedLength(separatedLength(separator, items));
+        if (length == 0) {
+            return "";
+        }
+
+        final BufferArena.CharArrayLease lease = BufferArena.acquireChars(length);
+        try {
+            final char[] chars = lease.array();
+            final int separatorLength = separator.length();
+            final boolean randomAccess = items instanceof RandomAccess;
+            final Iterator<? extends CharSequence> it = randomAccess ? null : items.iterator();
+            int pos = 0;
+            for (int i = 0, n = items.size(); i < n; i++) {
+                final CharSequence item = randomAccess ? items.get(i) : it.next();
+                if (isEmpty(item)) {
+                    continue;
+                }
+
+                if (pos > 0) {
+                    getChars(separator, 0, separatorLength, chars, pos);
+                    pos += separatorLength;
+                }
+                final int itemLength = item.length();
+                getChars(item, 0, itemLength, chars, pos);
+                pos += itemLength;
+            }
+            return new String(chars, 0, pos);
+        } finally {
+            lease.close();
+        }
+    }
+
+    /**
+     * @return The length of the separated String of the items, which can exceed the maximum length of a String.
+     */
+    private static long separatedLength(CharSequence separator, List<? extends CharSequence> items) {
+        final boolean randomAccess = items instanceof RandomAccess;
+        final Iterator<? extends CharSequence> it = randomAccess ? null : items.iterator();
+        long length = 0;
+        int count = 0;
+        for (int i = 0, n = items.size(); i < n; i++) {
+            final CharSequence item = randomAccess ? items.get(i) : it.next();
+            if (!isEmpty(item)) {
+                length += item.length();
+                count++;
+            }
+        }
+        return (count > 1) ? length + (long) separator.length() * (count - 1) : length;
+    }
+
+    private static void appendSeparated(Appendable out, CharSequence separator, List<? extends CharSequence> items)
+            throws IOException {
+        final boolean randomAccess = items instanceof RandomAccess;
+        final Iterator<? extends CharSequence> it = randomAccess ? null : items.iterator();
+        boolean first = true;
+        for (int i = 0, n = items.size(); i < n; i++) {
+            final CharSequence item = randomAccess ? items.get(i) : it.next();
+            if (isEmpty(item)) {
+                continue;
+            }
+
+            if (!first) {
+                out.append(separator);
+            }
+            first = false;
+            out.append(item);
+        }
+    }
+
+    /**
+     * Joins a list of CharSequences (or nulls) with one exactly sized array.
+     *
+     * @return The joined String, or null if the list contains other objects.
+     */
+    private static String joinCharSequences(CharSequence delimiter, List<?> tokens) {
+        final int count = tokens.size();
+        long length = (count > 1) ? (long) delimiter.length() * (count - 1) : 0;
+        for (int i = 0; i < count; i++) {
+            final Object token = tokens.get(i);
+            if (token == null) {
+                length += 4; // "null"
+            } else if (token instanceof CharSequence) {
+                length += ((CharSequence) token).length();
+            } else {
+                return null;
+            }
+        }
+
+        final int checkedLength = checkedLength(length);
+        if (checkedLength == 0) {
+            return "";
+        }
+
+        final BufferArena.CharArrayLease lease = BufferArena.acquireChars(checkedLength);
+        try {
+            final char[] chars = lease.array();
+            final int delimiterLength = delimiter.length();
+            int pos = 0;
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    getChars(delimiter, 0, delimiterLength, chars, pos);
+                    pos += delimiterLength;
+                }
+                final Object token = tokens.get(i);
+                final CharSequence cs = (token != null) ? (CharSequence) token : "null";
+                final int tokenLength = cs.length();
+                getChars(cs, 0, tokenLength, chars, pos);
+                pos += tokenLength;
+            }
+            return new String(chars, 0, pos);
+        } finally {
+            lease.close();
+        }
+    }
+
+    private static int checkedLength(long length) {
+        if (length > Integer.MAX_VALUE - 8) {
+            throw new OutOfMemoryError("Required length exceeds the maximum length of a String: " + length);
+        }
+        return (int) length;
+    }
+
+    /**
+     * Copies characters from a CharSequence into an array, using the bulk copy of the common implementations.
+     */
+    static void getChars(CharSequence s, int start, int end, char[] dest, int destPos) {
+        if (s instanceof String) {
+            ((String) s).getChars(start, end, dest, destPos);
+        } else if (s instanceof StringBuilder) {
+            ((StringBuilder) s).getChars(start, end, dest, destPos);
+        } else if (s instanceof StringBuffer) {
+            ((StringBuffer) s).getChars(start, end, dest, destPos);
+        } else if (s instanceof CharBuffer) {
+            final CharBuffer buffer = (CharBuffer) s;
+            if (buffer.hasArray()) {
+                System.arraycopy(buffer.array(), buffer.arrayOffset() + buffer.position() + start, dest, destPos,
+                                 end - start);
+            } else {
+                final CharBuffer view = buffer.duplicate();
+                view.position(view.position() + start);
+                view.get(dest, destPos, end - start);
+            }
+        } else if (s instanceof MappedText) {
+            ((MappedText) s).getChars(start, end, dest, destPos);
+        } else if (s instanceof Rope) {
+            ((Rope) s).getChars(start, end, dest, destPos);
+        } else if (PLATFORM_GET_CHARS == null || !PLATFORM_GET_CHARS.getChars(s, start, end, dest, destPos)) {
+            for (int i = start; i < end; i++) {
+                dest[destPos++] = s.charAt(i);
+            }
+        }
     }
 
     /**
@@ -321,6 +1041,7 @@ public abstract class StringUtils {
      * @param separator   The separator between repetitions.
      * @param repeatCount The times that the given string should be repeated.
      * @return The repeated string.
+     * @see Rope#repeat(CharSequence, CharSequence, int)
      */
     public static CharSequence repeat(CharSequence string, CharSequence separator, int repeatCount) {
         if (repeatCount < 1) {
@@ -346,19 +1067,24 @@ public abstract class StringUtils {
         final boolean stringIsNotEmpty = string.length() > 0;
         final boolean separatorIsNotEmpty = separator.length() > 0;
 
-        final StringBuilder sb = new StringBuilder((string.length() + separator.length()) * repeatCount);
+        final BufferArena.StringBuilderLease lease =
+                BufferArena.acquireBuilder((string.length() + separator.length()) * repeatCount);
+        try {
+            final StringBuilder sb = lease.builder();
+            for (int i = 0; i < repeatCount; i++) {
+                if (separatorIsNotEmpty && (i > 0)) {
+                    sb.append(separator);
+                }
 
-        for (int i = 0; i < repeatCount; i++) {
-            if (separatorIsNotEmpty && (i > 0)) {
-                sb.append(separator);
+                if (stringIsNotEmpty) {
+                    sb.append(string);
+                }
             }
 
-            if (stringIsNotEmpty) {
-                sb.append(string);
-            }
+            return sb.toString();
+        } finally {
+            lease.close();
         }
-
-        return sb.toString();
     }
 
     /**
@@ -371,45 +1097,107 @@ public abstract class StringUtils {
      * @return The distance between the two strings.
      */
     public static int getLevenshteinDistance(CharSequence string1, CharSequence string2) {
-        int len1 = string1.length() + 1;
-        int len2 = string2.length() + 1;
-
-        // the array of distances
-        int[] cost = new int[len1];
-        int[] newcost = new int[len1];
-
-        // initial cost of skipping prefix in String string1
-        for (int i = 0; i < len1; i++) cost[i] = i;
-
-        // dynamicaly computing the array of distances
+        return Levenshtein.distance(string1, string2);
+    }
 
-        // transformation cost for each letter in string2
-        for (int j = 1; j < len2; j++) {
-            // initial cost of skipping prefix in String string2
-            newcost[0] = j;
+    /**
+     * Calculates the Levenshtein Distance between two string, but gives up as soon as it is clear that the distance
+     * is larger than the given maximum. This is a lot cheaper than
+     * {@link #getLevenshteinDistance(CharSequence, CharSequence)} when only small distances are of interest
+     * (e.g. for typo-tolerant search).
+     *
+     * @param string1     The first string.
+     * @param string2     The second string.
+     * @param maxDistance The largest distance that is of interest (must be &ge; 0).
+     * @return The distance between the two strings, or -1 if it is larger than maxDistance.
+     */
+    public static int getLevenshteinDistance(CharSequence string1, CharSequence string2, int maxDistance) {
+        return Levenshtein.distance(string1, string2, maxDistance);
+    }
 
-            // transformation cost for each letter in string1
-            for (int i = 1; i < len1; i++) {
-                // matching current letters in both strings
-                int match = (string1.charAt(i - 1) == string2.charAt(j - 1)) ? 0 : 1;
+    /**
+     * Computes the edits (insertions, deletions and substitutions) that transform string1 into string2, i.e. the
+     * edits that are counted by {@link #getLevenshteinDistance(CharSequence, CharSequence)}.
+     * This only needs memory proportional to the length of the strings, so it can be used on large documents.
+     *
+     * @param string1 The first string.
+     * @param string2 The second string.
+     * @return The edit script.
+     */
+    @NonNull
+    public static EditScript getEditScript(@NonNull CharSequence string1, @NonNull CharSequence string2) {
+        return EditScript.compute(string1, string2);
+    }
 
-                // computing cost for each transformation
-                int cost_replace = cost[i - 1] + match;
-                int cost_insert = cost[i] + 1;
-                int cost_delete = newcost[i - 1] + 1;
+    /**
+     * Calculates the Levenshtein Distance between the query and each of the candidates.
+     * Large lists are split up and processed in parallel on a shared pool of worker threads.
+     *
+     * @param query      The string to compare with the candidates.
+     * @param candidates The candidates (must not contain null).
+     * @return The distances, in the same order as the candidates.
+     * @see #getLevenshteinDistance(CharSequence, CharSequence)
+     */
+    @NonNull
+    public static int[] getLevenshteinDistances(@NonNull CharSequence query,
+                                                @NonNull List<? extends CharSequence> candidates) {
+        return Levenshtein.distances(query, candidates, Integer.MAX_VALUE, Parallel.getDefaultExecutor());
+    }
 
-                // keep minimum cost
-                newcost[i] = Math.min(Math.min(cost_insert, cost_delete), cost_replace);
-            }
+    /**
+     * Calculates the Levenshtein Distance between the query and each of the candidates, but gives up on a
+     * candidate as soon as its distance is known to be larger than the given maximum.
+     *
+     * @param query       The string to compare with the candidates.
+     * @param candidates  The candidates (must not contain null).
+     * @param maxDistance The largest distance that is of interest (must be &ge; 0).
+     * @param executor    The executor on which the work is split up, or null to do all the work on the calling
+     *                    thread.
+     * @return The distances, in the same order as the candidates, where -1 means that the distance is larger than
+     * maxDistance.
+     * @see #getLevenshteinDistance(CharSequence, CharSequence, int)
+     */
+    @NonNull
+    public static int[] getLevenshteinDistances(@NonNull CharSequence query,
+                                                @NonNull List<? extends CharSequence> candidates,
+                                                int maxDistance,
+                                                @Nullable Executor executor) {
+        return Levenshtein.distances(query, candidates, maxDistance, executor);
+    }
 
-            // swap cost/newcost arrays
-            int[] swap = cost;
-            cost = newcost;
-            newcost = swap;
-        }
+    /**
+     * Finds the candidates with the smallest Levenshtein Distance to the query. Large lists are split up and
+     * processed in parallel on a shared pool of worker threads.
+     *
+     * @param query      The string to compare with the candidates.
+     * @param candidates The candidates (must not contain null).
+     * @param count      The maximum number of matches to return.
+     * @return The indices of the closest candidates, ordered by their distance to the query. Candidates with the
+     * same distance are ordered by their index.
+     */
+    @NonNull
+    public static int[] findClosestMatches(@NonNull CharSequence query,
+                                           @NonNull List<? extends CharSequence> candidates,
+                                           int count) {
+        return Levenshtein.closest(query, candidates, count, Parallel.getDefaultExecutor());
+    }
 
-        // the distance is the cost for transforming all letters in both strings
-        return cost[len1 - 1];
+    /**
+     * Same as {@link #findClosestMatches(CharSequence, List, int)}, but the work is split up on the given executor.
+     *
+     * @param query      The string to compare with the candidates.
+     * @param candidates The candidates (must not contain null).
+     * @param count      The maximum number of matches to return.
+     * @param executor   The executor on which the work is split up, or null to do all the work on the calling
+     *                   thread.
+     * @return The indices of the closest candidates, ordered by their distance to the query.
+     */
+    @NonNull
+    public static int[] findClosestMatches(@NonNull CharSequence query,
+                                           @NonNull List<? extends CharSequence> candidates,
+                                           int count,
+                                           @Nullable Executor executor) {
+        return Levenshtein.closest(query, candidates, count, executor);
     }
 
     /**
@@ -421,12 +1209,82 @@ public abstract class StringUtils {
      * @return The first index on or after 'start' on which the character has been found or -1 if not found.
      */
     public static int indexOf(@NonNull CharSequence string, char c, int start) {
-        for (int i = start; i < string.length(); i++) {
-            if (string.charAt(i) == c) {
-                return i;
-            }
+        if (string instanceof String) {
+            return ((String) string).indexOf(c, start);
         }
-        return -1;
+        return CharSequenceSearch.indexOf(string, c, start);
+    }
+
+    /**
+     * Has the same function as {@link java.lang.String#indexOf(String)} but it works on CharSequences as well.
+     *
+     * @param string The string to search in.
+     * @param target The string to look for.
+     * @return The first index at which the target has been found or -1 if not found.
+     */
+    public static int indexOf(@NonNull CharSequence string, @NonNull CharSequence target) {
+        return indexOf(string, target, 0);
+    }
+
+    /**
+     * Has the same function as {@link java.lang.String#indexOf(String, int)} but it works on CharSequences as well.
+     * Targets of two or more characters are searched with the Boyer-Moore-Horspool algorithm.
+     *
+     * @param string The string to search in.
+     * @param target The string to look for.
+     * @param start  The index to start at.
+     * @return The first index on or after 'start' at which the target has been found or -1 if not found.
+     */
+    public static int indexOf(@NonNull CharSequence string, @NonNull CharSequence target, int start) {
+        if (string instanceof String && target instanceof String) {
+            return ((String) string).indexOf((String) target, start);
+        }
+
+        final int length = string.length();
+        final int targetLength = target.length();
+        if (start < 0) {
+            start = 0;
+        }
+        if (start >= length) {
+            return (targetLength == 0) ? length : -1;
+        }
+        if (targetLength == 0) {
+            return start;
+        }
+        if (targetLength > length - start) {
+            return -1;
+        }
+        if (targetLength == 1) {
+            return CharSequenceSearch.indexOf(string, target.charAt(0), start);
+        }
+        return CharSequenceSearch.indexOf(string, target, start);
+    }
+
+    /**
+     * Finds the first occurrence of any of the given characters.
+     *
+     * @param string The string to search in.
+     * @param chars  The characters to look for.
+     * @param start  The index to start at.
+     * @return The first index on or after 'start' of one of the characters or -1 if none has been found.
+     */
+    public static int indexOfAny(@NonNull CharSequence string, @NonNull CharSequence chars, int start) {
+        if (chars.length() == 0) {
+            return -1;
+        }
+        return CharSequenceSearch.indexOfAny(string, CharSequenceSearch.toMask(chars), Math.max(0, start));
+    }
+
+    /**
+     * Finds the first occurrence of any of the characters in a set, which can be reused for several searches.
+     *
+     * @param string The string to search in.
+     * @param chars  The set of characters to look for, indexed by their char value.
+     * @param start  The index to start at.
+     * @return The first index on or after 'start' of one of the characters or -1 if none has been found.
+     */
+    public static int indexOfAny(@NonNull CharSequence string, @NonNull BitSet chars, int start) {
+        return CharSequenceSearch.indexOfAny(string, chars, Math.max(0, start));
     }
 
     /**
@@ -438,9 +1296,8 @@ public abstract class StringUtils {
      * instance and input parameters.
      */
     public static int compare(CharSequence cs1, CharSequence cs2) {
-        if (cs1 instanceof Comparable && cs2 instanceof Comparable) {
-            //noinspection unchecked
-            return ((Comparable) cs1).compareTo(cs2);
+        if (cs1 instanceof String && cs2 instanceof String) {
+            return ((String) cs1).compareTo((String) cs2);
         }
 
         if (cs1 == null && cs2 == null) {
@@ -453,18 +1310,8 @@ public abstract class StringUtils {
 
         final int len1 = cs1.length();
         final int len2 = cs2.length();
-        final int length = Math.min(len1, len2);
-
-        for (int i = 0; i < length; i++) {
-            final int c1 = cs1.charAt(i);
-            final int c2 = cs2.charAt(i);
-            final int diff = c1 - c2;
-            if (diff < 0 || diff > 0) {
-                return diff;
-            }
-        }
-
-        return len1 - len2;
+        final int mismatch = CharSequenceSearch.mismatch(cs1, cs2, Math.min(len1, len2));
+        return (mismatch < 0) ? len1 - len2 : cs1.charAt(mismatch) - cs2.charAt(mismatch);
     }
 
     /**
@@ -475,20 +1322,124 @@ public abstract class StringUtils {
      * @throws IOException If an I/O error occurs
      */
     public static String toString(InputStream is) throws IOException {
-        final char[] buffer = LOCAL_CHAR_ARRAY_BUFFER.get();
-        final Writer writer = new StringWriter();
+        return toString(is, TextDecoder.UTF_8, 0);
+    }
+
+    /**
+     * Returns a String representation of the contents of an InputStream
+     *
+     * @param is       The input stream of UTF-8 characters.
+     * @param sizeHint The expected number of bytes, e.g. from a Content-Length header, or 0 if unknown.
+     * @return The String obtained from the input stream.
+     * @throws IOException If an I/O error occurs
+     */
+    public static String toString(@NonNull InputStream is, int sizeHint) throws IOException {
+        return toString(is, TextDecoder.UTF_8, sizeHint);
+    }
+
+    /**
+     * Returns a String representation of the contents of an InputStream. Malformed input is replaced by the
+     * replacement character of the charset.
+     *
+     * @param is       The input stream.
+     * @param charset  The encoding of the input stream.
+     * @param sizeHint The expected number of bytes, e.g. from a Content-Length header, or 0 to use
+     *                 {@link InputStream#available()}.
+     * @return The String obtained from the input stream.
+     * @throws IOException If an I/O error occurs
+     */
+    public static String toString(@NonNull InputStream is, @NonNull Charset charset, int sizeHint)
+            throws IOException {
+        return TextDecoder.decode(is, charset, (sizeHint > 0) ? sizeHint : is.available());
+    }
+
+    /**
+     * Decodes the remaining bytes of a buffer. The position of the buffer is not changed. Malformed input is replaced
+     * by the replacement character of the charset.
+     *
+     * @param buffer  The bytes to decode.
+     * @param charset The encoding of the bytes.
+     * @return The decoded String.
+     */
+    public static String toString(@NonNull ByteBuffer buffer, @NonNull Charset charset) {
+        return TextDecoder.decode(buffer, charset);
+    }
+
+    /**
+     * Returns a String representation of the contents of a file, from the current position of the channel to its
+     * end. Malformed input is replaced by the replacement character of the charset.
+     *
+     * @param channel The channel to read from.
+     * @param charset The encoding of the file.
+     * @return The String obtained from the file.
+     * @throws IOException If an I/O error occurs
+     */
+    public static String toString(@NonNull FileChannel channel, @NonNull Charset charset) throws IOException {
+        final long remaining = channel.size() - channel.position();
+        return TextDecoder.decode(channel, charset, (int) Math.max(0, Math.min(Integer.MAX_VALUE, remaining)));
+    }
 
+    private static PlatformGetChars loadPlatformGetChars() {
         try {
-            final Reader reader = new BufferedReader(new InputStreamReader(is, "UTF-8"));
+            return (PlatformGetChars) Class.forName("io.intrepid.commonutils.AndroidGetChars").newInstance();
+        } catch (Exception | LinkageError e) {
+            // The class or the framework class it uses isn't on the classpath
+            return null;
+        }
+    }
 
-            int n;
-            while ((n = reader.read(buffer)) != -1) {
-                writer.write(buffer, 0, n);
+    /**
+     * Copies characters from the CharSequence implementations of the platform.
+     */
+    interface PlatformGetChars {
+        /**
+         * @return True if the CharSequence has a bulk copy.
+         */
+        boolean supports(CharSequence s);
+
+        /**
+         * @return False if the CharSequence has no bulk copy, in which case nothing was copied.
+         */
+        boolean getChars(CharSequence s, int start, int end, char[] dest, int destPos);
+    }
+
+    private static boolean isAlphaNumeric(char c) {
+        return c < 128 && ASCII_ALPHA_NUMERIC[c];
+    }
+
+    private static boolean isBoringCharacter(char c) {
+        // Fast path for printable ASCII characters, which are the majority of the input.
+        return (c >= ' ') ? (c < FIRST_NON_BORING_CHAR) : (c != '\t' && c != '\n');
+    }
+
+    private static boolean isSurrogatePair(CharSequence s, int idx, int length) {
+        return Character.isHighSurrogate(s.charAt(idx)) && (idx + 1 < length)
+                && Character.isLowSurrogate(s.charAt(idx + 1));
+    }
+
+    private static int indexOfNonBoringCharacter(CharSequence s, int start, int end) {
+        for (int idx = start; idx < end; idx++) {
+            if (!isBoringCharacter(s.charAt(idx))) {
+                return idx;
+            }
+        }
+        return -1;
+    }
+
+    private static void appendReplacingNonBoringCharacters(CharSequence s, int start, int end,
+                                                           CharSequence replacement, StringBuilder out) {
+        int runStart = start;
+        for (int idx = start; idx < end; idx++) {
+            if (isBoringCharacter(s.charAt(idx))) {
+                continue;
             }
 
-            return writer.toString();
-        } catch (UnsupportedEncodingException e) {
-            throw new IOException(e);
+            out.append(s, runStart, idx).append(replacement);
+            if (isSurrogatePair(s, idx, end)) {
+                idx++;
+            }
+            runStart = idx + 1;
         }
+        out.append(s, runStart, end);
     }
 }
@@ -0,0 +1,252 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.Arrays;
+
+/**
+ * Decodes bytes into a String with a reusable {@link CharsetDecoder} and buffers from the {@link BufferArena}.
+ * <p>
+ * Compared to an {@link java.io.InputStreamReader}, the characters are decoded straight into one array that is
+ * presized from a size hint, so the only other copy is the one made by the String constructor. Runs of ASCII bytes
+ * are widened directly when the charset is ASCII-compatible, without going through the decoder.
+ * <p>
+ * Malformed input is replaced, like {@link java.io.InputStreamReader} does.
+ */
+final class TextDecoder {
+    static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private static final ThreadLocal<TextDecoder> LOCAL_DECODER = new ThreadLocal<TextDecoder>() {
+        @Override
+        protected TextDecoder initialValue() {
+            return new TextDecoder();
+        }
+    };
+
+    private CharsetDecoder decoder;
+    private boolean inUse;
+
+    // The state of the current call
+    private BufferArena.CharArrayLease charsLease;
+    private char[] chars;
+    private int length;
+    private boolean widenAscii;
+    private boolean widenLatin1;
+    private boolean pendingInput;
+
+    private TextDecoder() {
+    }
+
+    /**
+     * Decodes the stream until its end.
+     *
+     * @param sizeHint The expected number of bytes, or a value &lt;= 0 if unknown.
+     */
+    static String decode(@NonNull InputStream is, @NonNull Charset charset, int sizeHint) throws IOException {
+        return decode(is, null, charset, sizeHint);
+    }
+
+    /**
+     * Decodes the channel until its end.
+     *
+     * @param sizeHint The expected number of bytes, or a value &lt;= 0 if unknown.
+     */
+    static String decode(@NonNull ReadableByteChannel channel, @NonNull Charset charset, int sizeHint)
+            throws IOException {
+        return decode(null, channel, charset, sizeHint);
+    }
+
+    /**
+     * Decodes the remaining bytes of the buffer, without changing its position.
+     */
+    static String decode(@NonNull ByteBuffer buffer, @NonNull Charset charset) {
+        final TextDecoder textDecoder = obtain();
+        try {
+            final ByteBuffer in = buffer.duplicate();
+            textDecoder.start(charset, in.remaining());
+            textDecoder.decode(in, true);
+            return textDecoder.finish();
+        } finally {
+            textDecoder.release();
+        }
+    }
+
+    private static String decode(InputStream is, ReadableByteChannel channel, Charset charset, int sizeHint)
+            throws IOException {
+        final TextDecoder textDecoder = obtain();
+        final BufferArena.ByteArrayLease chunkLease = BufferArena.acquireBytes(CHUNK_SIZE);
+        try {
+            final ByteBuffer in = ByteBuffer.wrap(chunkLease.array());
+            textDecoder.start(charset, sizeHint);
+
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                endOfInput = read(is, channel, in) < 0;
+                in.flip();
+                textDecoder.decode(in, endOfInput);
+                in.compact();
+            }
+            return textDecoder.finish();
+        } finally {
+            chunkLease.close();
+            textDecoder.release();
+        }
+    }
+
+    private static int read(InputStream is, ReadableByteChannel channel, ByteBuffer in) throws IOException {
+        if (channel != null) {
+            return channel.read(in);
+        }
+        final int n = is.read(in.array(), in.arrayOffset() + in.position(), in.remaining());
+        if (n > 0) {
+            in.position(in.position() + n);
+        }
+        return n;
+    }
+
+    /**
+     * A stream could call back into this class while it is being read, in which case that call gets its own
+     * instance.
+     */
+    private static TextDecoder obtain() {
+        final TextDecoder textDecoder = LOCAL_DECODER.get();
+        if (textDecoder.inUse) {
+            return new TextDecoder();
+        }
+        textDecoder.inUse = true;
+        return textDecoder;
+    }
+
+    private void release() {
+        if (charsLease != null) {
+            charsLease.close();
+            charsLease = null;
+        }
+        chars = null;
+        inUse = false;
+    }
+
+    private void start(Charset charset, int sizeHint) {
+        if (decoder == null || !decoder.charset().equals(charset)) {
+            decoder = charset.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        } else {
+            decoder.reset();
+        }
+
+        widenLatin1 = charset.equals(ISO_8859_1);
+        widenAscii = widenLatin1 || charset.equals(UTF_8) || charset.equals(US_ASCII);
+        pendingInput = false;
+
+        final int capacity = (sizeHint > 0) ? (int) Math.min(Integer.MAX_VALUE - 8,
+                                                             (long) (sizeHint * (double) decoder.averageCharsPerByte()) + 1)
+                                            : CHUNK_SIZE;
+        // If the text outgrows the leased array, it continues in a larger array that isn't pooled
+        charsLease = BufferArena.acquireChars(capacity);
+        chars = charsLease.array();
+        length = 0;
+    }
+
+    private void decode(ByteBuffer in, boolean endOfInput) {
+        if (widenAscii && !pendingInput && in.hasArray()) {
+            widen(in);
+        }
+
+        if (in.hasRemaining() || endOfInput) {
+            while (true) {
+                ensureCapacity((int) (in.remaining() * (double) decoder.maxCharsPerByte()) + 1);
+                final CharBuffer out = CharBuffer.wrap(chars, length, chars.length - length);
+                final CoderResult result = decoder.decode(in, out, endOfInput);
+                length = out.position();
+                if (!result.isOverflow()) {
+                    throwIfError(result);
+                    break;
+                }
+            }
+        }
+
+        // Bytes of an incomplete character stay in the buffer until the next chunk has been read
+        pendingInput = in.hasRemaining();
+    }
+
+    /**
+     * Copies bytes to chars as long as they are ASCII (or Latin-1), which is what the decoder would produce as well.
+     */
+    private void widen(ByteBuffer in) {
+        ensureCapacity(in.remaining());
+        final byte[] bytes = in.array();
+        final int offset = in.arrayOffset();
+        final int end = offset + in.limit();
+        final char[] out = chars;
+
+        int pos = offset + in.position();
+        int outPos = length;
+        if (widenLatin1) {
+            while (pos < end) {
+                out[outPos++] = (char) (bytes[pos++] & 0xFF);
+            }
+        } else {
+            while (pos < end) {
+                final byte b = bytes[pos];
+                if (b < 0) {
+                    break;
+                }
+                out[outPos++] = (char) b;
+                pos++;
+            }
+        }
+        in.position(pos - offset);
+        length = outPos;
+    }
+
+    private String finish() {
+        while (true) {
+            ensureCapacity(16);
+            final CharBuffer out = CharBuffer.wrap(chars, length, chars.length - length);
+            final CoderResult result = decoder.flush(out);
+            length = out.position();
+            if (!result.isOverflow()) {
+                throwIfError(result);
+                break;
+            }
+        }
+        return new String(chars, 0, length);
+    }
+
+    private void ensureCapacity(int additional) {
+        final long required = (long) length + additional;
+        if (required > chars.length) {
+            if (required > Integer.MAX_VALUE - 8) {
+                throw new OutOfMemoryError("Decoded text is too large");
+            }
+            chars = Arrays.copyOf(chars, (int) Math.max(required, Math.min(Integer.MAX_VALUE - 8,
+                                                                            chars.length * 2L)));
+        }
+    }
+
+    private static void throwIfError(CoderResult result) {
+        if (result.isError()) {
+            // Can't happen, since errors are replaced
+            try {
+                result.throwException();
+            } catch (CharacterCodingException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
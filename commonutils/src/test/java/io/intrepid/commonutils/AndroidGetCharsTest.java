@@ -0,0 +1,60 @@
+package io.intrepid.commonutils;
+
+import android.text.GetChars;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link AndroidGetChars}
+ */
+public class AndroidGetCharsTest {
+
+    @Test
+    public void testBulkCopyIsUsed() {
+        assertNotNull(StringUtils.PLATFORM_GET_CHARS);
+        CountingGetChars s = new CountingGetChars("0123456789abcdefghijklmnopqrstuvwxyz");
+        assertTrue(StringUtils.PLATFORM_GET_CHARS.supports(s));
+        assertTrue(StringUtils.equals(s, "0123456789abcdefghijklmnopqrstuvwxyz"));
+        assertEquals(30, StringUtils.indexOf(s, "uvw"));
+        assertEquals(0, s.charAtCalls);
+    }
+
+    private static final class CountingGetChars implements CharSequence, GetChars {
+        private final String s;
+        int charAtCalls;
+
+        CountingGetChars(String s) {
+            this.s = s;
+        }
+
+        @Override
+        public void getChars(int start, int end, char[] dest, int destoff) {
+            s.getChars(start, end, dest, destoff);
+        }
+
+        @Override
+        public int length() {
+            return s.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            charAtCalls++;
+            return s.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return s.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return s;
+        }
+    }
+}
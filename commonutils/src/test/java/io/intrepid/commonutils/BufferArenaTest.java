@@ -0,0 +1,214 @@
+package io.intrepid.commonutils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link BufferArena}
+ */
+public class BufferArenaTest {
+
+    @Before
+    public void setUp() {
+        BufferArena.evictAll();
+    }
+
+    @Test
+    public void testSizeClasses() {
+        // Size classes are in bytes, so chars get half as many elements
+        assertEquals(256, BufferArena.acquireChars(0).array().length);
+        assertEquals(256, BufferArena.acquireChars(256).array().length);
+        assertEquals(512, BufferArena.acquireChars(257).array().length);
+        assertEquals(512, BufferArena.acquireBytes(0).array().length);
+        assertEquals(1024, BufferArena.acquireBytes(513).array().length);
+        assertEquals(8192, BufferArena.acquireChars(8192).array().length);
+        assertEquals(16384, BufferArena.acquireBytes(16384).array().length);
+        assertEquals(8193, BufferArena.acquireChars(8193).array().length);
+        assertEquals(16385, BufferArena.acquireBytes(16385).array().length);
+        assertTrue(BufferArena.acquireBuilder(1000).builder().capacity() >= 1000);
+    }
+
+    @Test
+    public void testReleasedBufferIsReused() {
+        BufferArena.CharArrayLease lease = BufferArena.acquireChars(1000);
+        char[] array = lease.array();
+        lease.close();
+
+        long hits = BufferArena.getStats().getHits();
+        BufferArena.CharArrayLease lease2 = BufferArena.acquireChars(700);
+        assertSame(array, lease2.array());
+        assertEquals(hits + 1, BufferArena.getStats().getHits());
+
+        // Nested leases get different buffers
+        BufferArena.CharArrayLease lease3 = BufferArena.acquireChars(700);
+        assertNotSame(array, lease3.array());
+        lease3.close();
+        lease2.close();
+    }
+
+    @Test
+    public void testClosingTwiceHasNoEffect() {
+        BufferArena.ByteArrayLease lease = BufferArena.acquireBytes(100);
+        lease.close();
+        lease.close();
+
+        BufferArena.ByteArrayLease lease1 = BufferArena.acquireBytes(100);
+        BufferArena.ByteArrayLease lease2 = BufferArena.acquireBytes(100);
+        assertNotSame(lease1.array(), lease2.array());
+    }
+
+    @Test
+    public void testClosingAStaleLeaseHasNoEffect() {
+        BufferArena.ByteArrayLease lease = BufferArena.acquireBytes(100);
+        lease.close();
+
+        // The buffer now belongs to lease1, so closing the old lease again must not pool it
+        BufferArena.ByteArrayLease lease1 = BufferArena.acquireBytes(100);
+        assertSame(lease.array(), lease1.array());
+        lease.close();
+
+        BufferArena.ByteArrayLease lease2 = BufferArena.acquireBytes(100);
+        assertNotSame(lease1.array(), lease2.array());
+        lease2.close();
+        lease1.close();
+    }
+
+    @Test
+    public void testBuilderIsEmpty() {
+        BufferArena.StringBuilderLease lease = BufferArena.acquireBuilder(10);
+        lease.builder().append("abc");
+        StringBuilder builder = lease.builder();
+        lease.close();
+
+        BufferArena.StringBuilderLease lease2 = BufferArena.acquireBuilder(10);
+        assertSame(builder, lease2.builder());
+        assertEquals(0, lease2.builder().length());
+        lease2.close();
+    }
+
+    @Test
+    public void testLargeBuffersAreNotPooled() {
+        BufferArena.CharArrayLease lease = BufferArena.acquireChars(BufferArena.MAX_BYTES / 2 + 1);
+        char[] array = lease.array();
+        lease.close();
+        assertNotSame(array, BufferArena.acquireChars(BufferArena.MAX_BYTES / 2 + 1).array());
+        assertEquals(0, BufferArena.getStats().getPooledBytes());
+    }
+
+    @Test
+    public void testThreadCap() {
+        BufferArena.ByteArrayLease[] leases = new BufferArena.ByteArrayLease[8];
+        for (int i = 0; i < leases.length; i++) {
+            leases[i] = BufferArena.acquireBytes(BufferArena.MAX_BYTES);
+        }
+        for (BufferArena.ByteArrayLease lease : leases) {
+            lease.close();
+        }
+        assertTrue(BufferArena.getStats().getPooledBytes() <= BufferArena.MAX_THREAD_BYTES);
+        assertTrue(BufferArena.getStats().getHighWaterBytes() >= BufferArena.MAX_BYTES);
+    }
+
+    @Test
+    public void testDecoderLeavesRoomForLargestCharClass() throws IOException {
+        byte[] bytes = new byte[20 * 1024];
+        Arrays.fill(bytes, (byte) 'a');
+        assertEquals(bytes.length, StringUtils.toString(new ByteArrayInputStream(bytes)).length());
+
+        BufferArena.CharArrayLease lease = BufferArena.acquireChars(8192);
+        char[] array = lease.array();
+        lease.close();
+
+        long hits = BufferArena.getStats().getHits();
+        BufferArena.CharArrayLease lease2 = BufferArena.acquireChars(8192);
+        assertSame(array, lease2.array());
+        assertEquals(hits + 1, BufferArena.getStats().getHits());
+        lease2.close();
+
+        // The decoder's byte chunk is still pooled next to the chars
+        hits = BufferArena.getStats().getHits();
+        BufferArena.acquireBytes(8192).close();
+        assertEquals(hits + 1, BufferArena.getStats().getHits());
+    }
+
+    @Test
+    public void testEvictAll() throws InterruptedException {
+        BufferArena.CharArrayLease lease = BufferArena.acquireChars(300);
+        final char[] array = lease.array();
+        lease.close();
+        assertTrue(BufferArena.getStats().getPooledBytes() > 0);
+
+        // Other threads have their own pools
+        final AtomicReference<char[]> otherArray = new AtomicReference<>();
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                otherArray.set(BufferArena.acquireChars(300).array());
+            }
+        });
+        thread.start();
+        thread.join();
+        assertNotSame(array, otherArray.get());
+
+        long evictions = BufferArena.getStats().getEvictions();
+        BufferArena.evictAll();
+        assertEquals(evictions + 1, BufferArena.getStats().getEvictions());
+        assertEquals(0, BufferArena.getStats().getPooledBytes());
+        assertNotSame(array, BufferArena.acquireChars(300).array());
+    }
+
+    @Test
+    public void testEvictAllReleasesIdleThreads() throws InterruptedException {
+        final AtomicReference<WeakReference<char[]>> pooled = new AtomicReference<>();
+        final CountDownLatch released = new CountDownLatch(1);
+        final CountDownLatch evicted = new CountDownLatch(1);
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                pooled.set(leaseAndClose(300));
+                released.countDown();
+                try {
+                    evicted.await();
+                } catch (InterruptedException ignored) {
+                }
+            }
+        });
+        thread.start();
+        released.await();
+        assertTrue(BufferArena.getStats().getPooledBytes() > 0);
+
+        // The other thread doesn't touch the arena again, so only evictAll() can drop its pool
+        BufferArena.evictAll();
+        for (int i = 0; i < 100 && pooled.get().get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertTrue(thread.isAlive());
+        assertNull(pooled.get().get());
+
+        evicted.countDown();
+        thread.join();
+    }
+
+    /**
+     * Leases a buffer and gives it back, in a separate frame so that no local variable keeps it reachable.
+     */
+    private static WeakReference<char[]> leaseAndClose(int length) {
+        BufferArena.CharArrayLease lease = BufferArena.acquireChars(length);
+        WeakReference<char[]> array = new WeakReference<>(lease.array());
+        lease.close();
+        return array;
+    }
+}
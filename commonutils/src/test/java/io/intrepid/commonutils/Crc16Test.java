@@ -0,0 +1,65 @@
+package io.intrepid.commonutils;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link Crc16}
+ */
+public class Crc16Test {
+
+    private static final byte[] CHECK = "123456789".getBytes();
+
+    @Test
+    public void testCheckValues() {
+        assertEquals(0x29B1, Crc16.compute(Crc16.Variant.CCITT_FALSE, CHECK));
+        assertEquals(0x31C3, Crc16.compute(Crc16.Variant.XMODEM, CHECK));
+        assertEquals(0x4B37, Crc16.compute(Crc16.Variant.MODBUS, CHECK));
+        assertEquals(0xFFFF, Crc16.compute(Crc16.Variant.CCITT_FALSE, new byte[0]));
+    }
+
+    @Test
+    public void testSlicingMatchesBytewise() {
+        byte[] bytes = new byte[1000];
+        new Random(42).nextBytes(bytes);
+        for (Crc16.Variant variant : Crc16.Variant.values()) {
+            for (int length : new int[] { 0, 1, 15, 16, 17, 23, 24, 999 }) {
+                Crc16 bytewise = new Crc16(variant);
+                for (int i = 1; i <= length; i++) {
+                    bytewise.update(bytes[i]);
+                }
+                Crc16 sliced = new Crc16(variant);
+                sliced.update(bytes, 1, length);
+                assertEquals(variant + " " + length, bytewise.getValue(), sliced.getValue());
+            }
+        }
+    }
+
+    @Test
+    public void testChunksAndBuffers() {
+        byte[] bytes = new byte[20000];
+        new Random(42).nextBytes(bytes);
+        int expected = Crc16.compute(Crc16.Variant.MODBUS, bytes);
+
+        Crc16 chunked = new Crc16(Crc16.Variant.MODBUS);
+        for (int offset = 0; offset < bytes.length; offset += 777) {
+            chunked.update(bytes, offset, Math.min(777, bytes.length - offset));
+        }
+        assertEquals(expected, chunked.getValue());
+
+        chunked.reset();
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        chunked.update(direct);
+        assertEquals(expected, chunked.getValue());
+        assertEquals(direct.limit(), direct.position());
+
+        chunked.reset();
+        chunked.update(ByteBuffer.wrap(bytes));
+        assertEquals(expected, chunked.getValue());
+    }
+}
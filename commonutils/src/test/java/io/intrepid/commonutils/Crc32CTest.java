@@ -0,0 +1,66 @@
+package io.intrepid.commonutils;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link Crc32C}
+ */
+public class Crc32CTest {
+
+    @Test
+    public void testCheckValues() {
+        assertEquals(0xE3069283L, Crc32C.compute("123456789".getBytes()));
+        assertEquals(0, Crc32C.compute(new byte[0]));
+        // From RFC 3720, appendix B.4
+        assertEquals(0x8A9136AAL, Crc32C.compute(new byte[32]));
+        byte[] ones = new byte[32];
+        Arrays.fill(ones, (byte) 0xFF);
+        assertEquals(0x62A8AB43L, Crc32C.compute(ones));
+    }
+
+    @Test
+    public void testSlicingMatchesBytewise() {
+        byte[] bytes = new byte[1000];
+        new Random(42).nextBytes(bytes);
+        for (int length : new int[] { 0, 1, 15, 16, 17, 23, 24, 999 }) {
+            Crc32C bytewise = new Crc32C();
+            for (int i = 1; i <= length; i++) {
+                bytewise.update(bytes[i]);
+            }
+            Crc32C sliced = new Crc32C();
+            sliced.update(bytes, 1, length);
+            assertEquals("length " + length, bytewise.getValue(), sliced.getValue());
+        }
+    }
+
+    @Test
+    public void testChunksAndBuffers() {
+        byte[] bytes = new byte[20000];
+        new Random(42).nextBytes(bytes);
+        long expected = Crc32C.compute(bytes);
+
+        Crc32C chunked = new Crc32C();
+        for (int offset = 0; offset < bytes.length; offset += 777) {
+            chunked.update(bytes, offset, Math.min(777, bytes.length - offset));
+        }
+        assertEquals(expected, chunked.getValue());
+
+        chunked.reset();
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+        chunked.update(direct);
+        assertEquals(expected, chunked.getValue());
+        assertEquals(direct.limit(), direct.position());
+
+        chunked.reset();
+        chunked.update(ByteBuffer.wrap(bytes, 0, 100));
+        chunked.update(bytes, 100, bytes.length - 100);
+        assertEquals(expected, chunked.getValue());
+    }
+}
@@ -0,0 +1,125 @@
+package io.intrepid.commonutils;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link EditScript}
+ */
+public class EditScriptTest {
+
+    @Test
+    public void testCompute() {
+        EditScript script = EditScript.compute("kitten", "sitting");
+        assertEquals(3, script.getDistance());
+        assertEquals("~1 =3 ~1 =1 +1", script.toString());
+        assertEquals("sitting", apply("kitten", "sitting", script));
+    }
+
+    @Test
+    public void testEmptyStrings() {
+        assertEquals("", EditScript.compute("", "").toString());
+        assertEquals("+3", EditScript.compute("", "abc").toString());
+        assertEquals("-3", EditScript.compute("abc", "").toString());
+        assertEquals("=3", EditScript.compute("abc", "abc").toString());
+    }
+
+    @Test
+    public void testPackedOperations() {
+        int[] packed = EditScript.computePacked("abcdef", "abXdef");
+        assertEquals(3, packed.length);
+        assertEquals(EditScript.EQUAL, EditScript.getType(packed[0]));
+        assertEquals(2, EditScript.getLength(packed[0]));
+        assertEquals(EditScript.SUBSTITUTE, EditScript.getType(packed[1]));
+        assertEquals(1, EditScript.getLength(packed[1]));
+        assertEquals(EditScript.EQUAL, EditScript.getType(packed[2]));
+        assertEquals(3, EditScript.getLength(packed[2]));
+
+        EditScript script = StringUtils.getEditScript("abcdef", "abXdef");
+        assertArrayEquals(packed, script.toPackedArray());
+        assertEquals(packed[1], script.getOperation(1));
+        assertEquals(3, script.size());
+        assertEquals(EditScript.compute("abcdef", "abXdef"), script);
+    }
+
+    @Test
+    public void testMatchesLevenshteinDistance() {
+        Random random = new Random(42);
+        for (int i = 0; i < 1000; i++) {
+            String source = randomString(random, 40);
+            String target = random.nextBoolean() ? randomString(random, 40) : mutate(random, source);
+
+            EditScript script = EditScript.compute(source, target);
+            assertEquals(StringUtils.getLevenshteinDistance(source, target), script.getDistance());
+            assertEquals(target, apply(source, target, script));
+        }
+    }
+
+    @Test
+    public void testLargeDocument() {
+        Random random = new Random(42);
+        String source = randomString(random, 20000);
+        String target = mutate(random, source);
+        EditScript script = EditScript.compute(source, target);
+        assertEquals(target, apply(source, target, script));
+        assertEquals(StringUtils.getLevenshteinDistance(source, target), script.getDistance());
+    }
+
+    /**
+     * Rebuilds the target from the source, only taking characters from the target for substitutions and insertions.
+     */
+    private static String apply(final String source, final String target, EditScript script) {
+        final StringBuilder sb = new StringBuilder();
+        final int[] consumed = new int[2];
+        script.accept(new EditScript.Visitor() {
+            @Override
+            public void visit(int type, int sourceStart, int targetStart, int length) {
+                assertEquals(consumed[0], sourceStart);
+                assertEquals(consumed[1], targetStart);
+                switch (type) {
+                    case EditScript.EQUAL:
+                        assertEquals(source.substring(sourceStart, sourceStart + length), target.substring(targetStart, targetStart + length));
+                        sb.append(source, sourceStart, sourceStart + length);
+                        break;
+                    case EditScript.SUBSTITUTE:
+                    case EditScript.INSERT:
+                        sb.append(target, targetStart, targetStart + length);
+                        break;
+                    default:
+                        break;
+                }
+                consumed[0] = sourceStart + (type != EditScript.INSERT ? length : 0);
+                consumed[1] = targetStart + (type != EditScript.DELETE ? length : 0);
+            }
+        });
+        assertEquals(source.length(), consumed[0]);
+        return sb.toString();
+    }
+
+    private static String randomString(Random random, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(4)));
+        }
+        return sb.toString();
+    }
+
+    private static String mutate(Random random, String string) {
+        StringBuilder sb = new StringBuilder(string);
+        int edits = 1 + random.nextInt(10);
+        for (int i = 0; i < edits; i++) {
+            int idx = random.nextInt(sb.length() + 1);
+            if (idx < sb.length() && random.nextBoolean()) {
+                sb.deleteCharAt(idx);
+            } else {
+                sb.insert(idx, (char) ('a' + random.nextInt(5)));
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,88 @@
+package io.intrepid.commonutils;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests {@link EnumLookup}
+ */
+public class EnumLookupTest {
+
+    private enum Status {
+        ACTIVE, INACTIVE, PENDING_REVIEW, Mixed, MIXED,
+        SPECIAL {
+            @Override
+            public String toString() {
+                return "special";
+            }
+        }
+    }
+
+    private enum Empty {
+    }
+
+    @Test
+    public void testExact() {
+        EnumLookup<Status> lookup = EnumLookup.of(Status.class);
+        for (Status status : Status.values()) {
+            assertSame(status, lookup.get(status.name()));
+            assertSame(status, lookup.get(new StringBuilder(status.name())));
+        }
+        assertNull(lookup.get("active"));
+        assertNull(lookup.get("UNKNOWN"));
+        assertNull(lookup.get((CharSequence) null));
+        assertSame(Status.PENDING_REVIEW, lookup.get("UNKNOWN", Status.PENDING_REVIEW));
+        assertSame(Status.ACTIVE, lookup.get(null, Status.ACTIVE));
+    }
+
+    @Test
+    public void testIgnoreCase() {
+        EnumLookup<Status> lookup = EnumLookup.of(Status.class);
+        assertSame(Status.ACTIVE, lookup.getIgnoreCase("active"));
+        assertSame(Status.PENDING_REVIEW, lookup.getIgnoreCase(new StringBuilder("Pending_Review")));
+        assertSame(Status.SPECIAL, lookup.getIgnoreCase("special"));
+        // Exact matches win, otherwise the first constant wins
+        assertSame(Status.Mixed, lookup.getIgnoreCase("Mixed"));
+        assertSame(Status.MIXED, lookup.getIgnoreCase("MIXED"));
+        assertSame(Status.Mixed, lookup.getIgnoreCase("mixed"));
+        assertNull(lookup.getIgnoreCase("activ"));
+        assertSame(Status.INACTIVE, lookup.getIgnoreCase("", Status.INACTIVE));
+    }
+
+    @Test
+    public void testInstancesAreShared() {
+        assertSame(EnumLookup.of(Status.class), EnumLookup.of(Status.class));
+        assertEquals(Status.values().length, EnumLookup.of(Status.class).size());
+        assertSame(Status.INACTIVE, EnumLookup.of(Status.class).get(1));
+        assertNull(EnumLookup.of(Status.class).get(-1));
+    }
+
+    @Test
+    public void testEmptyEnum() {
+        assertNull(EnumLookup.of(Empty.class).get("A"));
+        assertNull(EnumLookup.of(Empty.class).getIgnoreCase("A"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public void testNotAnEnum() {
+        EnumLookup.of((Class) String.class);
+    }
+
+    @Test
+    public void testStringUtils() {
+        assertSame(Status.ACTIVE, StringUtils.toEnum(Status.class, new StringBuilder("ACTIVE")));
+        assertSame(Status.MIXED, StringUtils.toEnum(Status.class, "unknown", Status.MIXED));
+        assertSame(Status.ACTIVE, StringUtils.toEnumIgnoreCase(Status.class, "Active", null));
+        try {
+            StringUtils.toEnum(Status.class, "unknown");
+            fail("Expected an IllegalArgumentException");
+        } catch (IllegalArgumentException e) {
+            assertEquals("No enum constant " + Status.class.getCanonicalName() + ".unknown", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package io.intrepid.commonutils;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link EnumSetCodec}
+ */
+public class EnumSetCodecTest {
+
+    private enum Color {
+        RED, GREEN, BLUE, YELLOW
+    }
+
+    /**
+     * A later version of {@link Color}, with a constant inserted.
+     */
+    private enum ColorV2 {
+        RED, ORANGE, GREEN, BLUE, YELLOW
+    }
+
+    private enum Large {
+        C0, C1, C2, C3, C4, C5, C6, C7, C8, C9, C10, C11, C12, C13, C14, C15, C16, C17, C18, C19, C20, C21, C22, C23,
+        C24, C25, C26, C27, C28, C29, C30, C31, C32, C33, C34, C35, C36, C37, C38, C39, C40, C41, C42, C43, C44, C45,
+        C46, C47, C48, C49, C50, C51, C52, C53, C54, C55, C56, C57, C58, C59, C60, C61, C62, C63, C64, C65, C66, C67
+    }
+
+    @Test
+    public void testLong() {
+        EnumSetCodec<Color> codec = EnumSetCodec.of(Color.class);
+        assertEquals(0b1010, codec.toLong(EnumSet.of(Color.GREEN, Color.YELLOW)));
+        assertEquals(0, codec.toLong(null));
+        assertEquals(EnumSet.of(Color.GREEN, Color.YELLOW), codec.fromLong(0b1010));
+        assertEquals(EnumSet.allOf(Color.class), codec.fromLong(-1L));
+    }
+
+    @Test
+    public void testLongArray() {
+        EnumSetCodec<Large> codec = EnumSetCodec.of(Large.class);
+        EnumSet<Large> set = EnumSet.of(Large.C0, Large.C63, Large.C64, Large.C67);
+        long[] mask = codec.toLongArray(set);
+        assertArrayEquals(new long[] { 1L | (1L << 63), 0b1001 }, mask);
+        assertEquals(set, codec.fromLongArray(mask));
+        assertEquals(EnumSet.allOf(Large.class), codec.fromLongArray(new long[] { -1L, -1L, -1L }));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testLongOfLargeEnum() {
+        EnumSetCodec.of(Large.class).toLong(EnumSet.of(Large.C0));
+    }
+
+    @Test
+    public void testString() throws IOException {
+        EnumSetCodec<Color> codec = EnumSetCodec.of(Color.class);
+        String fingerprint = Integer.toHexString(codec.getFingerprint());
+        assertEquals("#" + fingerprint + ":a;GREEN,YELLOW", codec.encode(EnumSet.of(Color.GREEN, Color.YELLOW)));
+        assertEquals("#" + fingerprint + ":0;", codec.encode(EnumSet.noneOf(Color.class)));
+
+        List<EnumSet<Color>> sets = new ArrayList<>();
+        sets.add(EnumSet.noneOf(Color.class));
+        sets.add(EnumSet.of(Color.BLUE));
+        sets.add(EnumSet.allOf(Color.class));
+        for (EnumSet<Color> set : sets) {
+            assertEquals(set, codec.decode(codec.encode(set)));
+            StringWriter writer = new StringWriter();
+            codec.appendTo(writer, set);
+            assertEquals(set, codec.decode(writer.toString()));
+        }
+
+        EnumSetCodec<Large> largeCodec = EnumSetCodec.of(Large.class);
+        EnumSet<Large> large = EnumSet.of(Large.C1, Large.C66);
+        String encoded = largeCodec.encode(large);
+        assertTrue(encoded, encoded.contains(":40000000000000002;"));
+        assertEquals(large, largeCodec.decode(new StringBuilder(encoded)));
+    }
+
+    @Test
+    public void testChangedEnumFallsBackToNames() {
+        String encoded = EnumSetCodec.of(Color.class).encode(EnumSet.of(Color.GREEN, Color.YELLOW));
+        EnumSetCodec<ColorV2> codec = EnumSetCodec.of(ColorV2.class);
+        assertNotEquals(EnumSetCodec.of(Color.class).getFingerprint(), codec.getFingerprint());
+        assertEquals(EnumSet.of(ColorV2.GREEN, ColorV2.YELLOW), codec.decode(encoded));
+    }
+
+    @Test
+    public void testLegacyNames() {
+        EnumSetCodec<Color> codec = EnumSetCodec.of(Color.class);
+        String legacy = StringUtils.separateItemsWith(", ", StringUtils.toEnumString(Color.RED),
+                                                      StringUtils.toEnumString(Color.BLUE)).toString();
+        assertEquals(EnumSet.of(Color.RED, Color.BLUE), codec.decode(legacy));
+        assertEquals(EnumSet.of(Color.RED, Color.BLUE), codec.decode(" RED ,, PURPLE,BLUE "));
+        assertEquals(EnumSet.noneOf(Color.class), codec.decode(""));
+        assertNull(codec.decode(null));
+    }
+
+    @Test
+    public void testMalformed() {
+        EnumSetCodec<Color> codec = EnumSetCodec.of(Color.class);
+        String fingerprint = Integer.toHexString(codec.getFingerprint());
+        assertEquals(EnumSet.of(Color.RED), codec.decode("#" + fingerprint + ":xyz;RED"));
+        assertEquals(EnumSet.of(Color.RED), codec.decode("#" + fingerprint + ":;RED"));
+        assertEquals(EnumSet.noneOf(Color.class), codec.decode("#"));
+        assertEquals(EnumSet.noneOf(Color.class), codec.decode("#zz:1"));
+        assertEquals(EnumSet.of(Color.RED), codec.decode("#" + fingerprint + ":1"));
+    }
+}
@@ -0,0 +1,196 @@
+package io.intrepid.commonutils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link FuzzyIndex}
+ */
+public class FuzzyIndexTest {
+    private List<String> dictionary;
+    private FuzzyIndex<String> index;
+
+    @Before
+    public void setUp() {
+        Random random = new Random(42);
+        dictionary = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            int length = 4 + random.nextInt(8);
+            StringBuilder sb = new StringBuilder(length);
+            for (int j = 0; j < length; j++) {
+                sb.append((char) ('a' + random.nextInt(6)));
+            }
+            dictionary.add(sb.toString());
+        }
+        index = new FuzzyIndex<>(dictionary);
+    }
+
+    @Test
+    public void testFindWithinMatchesLinearScan() {
+        for (String query : Arrays.asList("abcdef", "aaaa", "fedcbafed", "x", "")) {
+            for (int maxDistance = 0; maxDistance <= 2; maxDistance++) {
+                List<Integer> expected = new ArrayList<>();
+                for (String entry : dictionary) {
+                    int distance = StringUtils.getLevenshteinDistance(query, entry);
+                    if (distance <= maxDistance) {
+                        expected.add(distance);
+                    }
+                }
+
+                List<Integer> actual = new ArrayList<>();
+                for (FuzzyIndex.Match<String> match : index.findWithin(query, maxDistance)) {
+                    assertEquals(StringUtils.getLevenshteinDistance(query, match.getEntry()), match.getDistance());
+                    actual.add(match.getDistance());
+                }
+                Collections.sort(expected);
+                assertEquals(expected, actual);
+            }
+        }
+    }
+
+    @Test
+    public void testFindWithinComputesFewDistances() {
+        index.findWithin("abcdef", 1);
+        assertTrue(index.getLastQueryDistanceComputations() < dictionary.size() / 2);
+        assertEquals(1, index.getQueryCount());
+        assertEquals(index.getLastQueryDistanceComputations(), index.getTotalDistanceComputations());
+    }
+
+    @Test
+    public void testFindNearestMatchesLinearScan() {
+        for (String query : Arrays.asList("abcdef", "aaaa", "fedcbafed", "x")) {
+            List<Integer> distances = new ArrayList<>();
+            for (String entry : dictionary) {
+                distances.add(StringUtils.getLevenshteinDistance(query, entry));
+            }
+            Collections.sort(distances);
+
+            List<FuzzyIndex.Match<String>> nearest = index.findNearest(query, 10);
+            assertEquals(10, nearest.size());
+            for (int i = 0; i < nearest.size(); i++) {
+                assertEquals(distances.get(i).intValue(), nearest.get(i).getDistance());
+            }
+        }
+    }
+
+    @Test
+    public void testFindNearestInSmallIndex() {
+        FuzzyIndex<String> small = new FuzzyIndex<>(Arrays.asList("apple", "apply", "ape"));
+        List<FuzzyIndex.Match<String>> nearest = small.findNearest("appl", 5);
+        assertEquals(3, nearest.size());
+        assertEquals(1, nearest.get(0).getDistance());
+        assertEquals(1, nearest.get(1).getDistance());
+        assertEquals("ape", nearest.get(2).getEntry());
+        assertTrue(new FuzzyIndex<String>().findNearest("appl", 5).isEmpty());
+    }
+
+    @Test
+    public void testAddAndRemove() {
+        FuzzyIndex<CharSequence> small = new FuzzyIndex<>();
+        assertTrue(small.isEmpty());
+
+        StringBuilder duplicate = new StringBuilder("apple");
+        small.add("apple");
+        small.add("maple");
+        small.add(duplicate);
+        assertEquals(3, small.size());
+        assertEquals(2, small.findWithin("apple", 0).size());
+
+        assertTrue(small.remove(duplicate));
+        List<FuzzyIndex.Match<CharSequence>> matches = small.findWithin("apple", 0);
+        assertEquals(1, matches.size());
+        assertEquals("apple", matches.get(0).getEntry());
+
+        assertTrue(small.remove("apple"));
+        assertFalse(small.remove("apple"));
+        assertFalse(small.remove("pear"));
+        assertEquals(1, small.size());
+
+        // The children of a removed entry can still be found
+        List<FuzzyIndex.Match<CharSequence>> maple = small.findWithin("mapl", 1);
+        assertEquals(1, maple.size());
+        assertEquals("maple", maple.get(0).getEntry());
+
+        small.add("apple");
+        assertSame("apple", small.findNearest("apple", 1).get(0).getEntry());
+    }
+
+    @Test
+    public void testRemovedEntriesAreNotRetained() {
+        FuzzyIndex<CharSequence> index = new FuzzyIndex<>();
+        List<WeakReference<CharSequence>> removed = addAndRemove(index, dictionary.subList(0, 100), 10);
+        assertEquals(90, index.size());
+
+        for (int i = 0; i < 100 && isAnyRetained(removed); i++) {
+            System.gc();
+        }
+        assertFalse(isAnyRetained(removed));
+        assertFalse(index.findWithin(dictionary.get(50), 0).isEmpty());
+    }
+
+    @Test
+    public void testRemovingMostEntriesRebuildsTheTree() {
+        List<String> remaining = new ArrayList<>(dictionary);
+        Random random = new Random(7);
+        for (int i = 0; i < 4000; i++) {
+            String entry = remaining.remove(random.nextInt(remaining.size()));
+            assertTrue(index.remove(entry));
+        }
+        assertEquals(remaining.size(), index.size());
+
+        for (String query : Arrays.asList("abcdef", "aaaa", "fedcbafed")) {
+            int expected = 0;
+            for (String entry : remaining) {
+                if (StringUtils.getLevenshteinDistance(query, entry) <= 2) {
+                    expected++;
+                }
+            }
+            assertEquals(expected, index.findWithin(query, 2).size());
+        }
+
+        // Only the remaining entries are visited, not the removed ones
+        assertEquals(remaining.size(), index.findWithin("abcdef", Integer.MAX_VALUE).size());
+        assertTrue(index.getLastQueryDistanceComputations() <= 2 * remaining.size());
+    }
+
+    /**
+     * Adds copies of the words and removes the first ones, in a separate frame so that no local variable keeps the
+     * removed copies reachable.
+     */
+    private static List<WeakReference<CharSequence>> addAndRemove(FuzzyIndex<CharSequence> index, List<String> words,
+                                                                  int removeCount) {
+        List<WeakReference<CharSequence>> removed = new ArrayList<>();
+        List<StringBuilder> copies = new ArrayList<>();
+        for (String word : words) {
+            StringBuilder copy = new StringBuilder(word);
+            copies.add(copy);
+            index.add(copy);
+        }
+        for (int i = 0; i < removeCount; i++) {
+            removed.add(new WeakReference<CharSequence>(copies.get(i)));
+            assertTrue(index.remove(copies.get(i)));
+        }
+        return removed;
+    }
+
+    private static boolean isAnyRetained(List<WeakReference<CharSequence>> references) {
+        for (WeakReference<CharSequence> reference : references) {
+            if (reference.get() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
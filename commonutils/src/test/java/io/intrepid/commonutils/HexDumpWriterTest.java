@@ -0,0 +1,103 @@
+package io.intrepid.commonutils;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests {@link HexDumpWriter}
+ */
+public class HexDumpWriterTest {
+
+    private static final byte[] HELLO = "Hello, world!\n\u0000\u0001Bye".getBytes();
+
+    @Test
+    public void testToString() {
+        assertEquals("", HexDumpWriter.toString(new byte[0]));
+        assertEquals("00000000: 4865 6c6c 6f2c 2077 6f72 6c64 210a 0001  Hello, world!...\n"
+                             + "00000010: 4279 65                                  Bye\n",
+                     HexDumpWriter.toString(HELLO));
+    }
+
+    @Test
+    public void testWriteInPieces() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        HexDumpWriter writer = new HexDumpWriter(sb, 0x100, 4, 3, true);
+        writer.write(HELLO, 0, 3);
+        writer.write(HELLO[3]);
+        writer.write(HELLO, 4, 2);
+        assertEquals("00000100: 48656C 6C  Hell\n", sb.toString());
+        assertEquals(0x106, writer.getOffset());
+        writer.close();
+        assertEquals("00000100: 48656C 6C  Hell\n"
+                             + "00000104: 6F2C       o,\n", sb.toString());
+    }
+
+    @Test
+    public void testDumpStreamRange() throws Exception {
+        StringWriter out = new StringWriter();
+        long count = HexDumpWriter.dump(new ByteArrayInputStream(HELLO), out, 7, 6);
+        assertEquals(6, count);
+        assertEquals("00000007: 776f 726c 6421                           world!\n", out.toString());
+
+        out = new StringWriter();
+        assertEquals(0, HexDumpWriter.dump(new ByteArrayInputStream(HELLO), out, 100, -1));
+        assertEquals("", out.toString());
+    }
+
+    @Test
+    public void testDumpBuffer() throws Exception {
+        ByteBuffer direct = ByteBuffer.allocateDirect(HELLO.length);
+        direct.put(HELLO).position(16);
+        StringWriter out = new StringWriter();
+        HexDumpWriter.dump(direct, out);
+        assertEquals("00000010: 4279 65                                  Bye\n", out.toString());
+        assertEquals(16, direct.position());
+
+        StringBuilder sb = new StringBuilder();
+        HexDumpWriter.dump(ByteBuffer.wrap(HELLO), (Appendable) new AppendableWrapper(sb));
+        assertEquals(HexDumpWriter.toString(HELLO), sb.toString());
+    }
+
+    @Test
+    public void testLargeOffset() throws Exception {
+        StringBuilder sb = new StringBuilder();
+        HexDumpWriter writer = new HexDumpWriter(sb, 0x123456789L, 16, 2, false);
+        writer.write(0x41);
+        writer.close();
+        assertEquals("123456789: 41                                       A\n", sb.toString());
+    }
+
+    /**
+     * An Appendable that is neither a StringBuilder nor a Writer.
+     */
+    private static final class AppendableWrapper implements Appendable {
+        private final StringBuilder sb;
+
+        AppendableWrapper(StringBuilder sb) {
+            this.sb = sb;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) {
+            sb.append(csq);
+            return this;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            sb.append(csq, start, end);
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) {
+            sb.append(c);
+            return this;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package io.intrepid.commonutils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link IncrementalLevenshtein}
+ */
+public class IncrementalLevenshteinTest {
+
+    @Test
+    public void testAppendAndBackspace() {
+        IncrementalLevenshtein matcher = new IncrementalLevenshtein(Arrays.asList("samples", "", "example"));
+        assertEquals(3, matcher.getCandidateCount());
+        assertEquals(7, matcher.getDistance(0));
+        assertEquals(0, matcher.getDistance(1));
+
+        matcher.append("example");
+        assertEquals("example", matcher.getQuery());
+        assertEquals(3, matcher.getDistance(0));
+        assertEquals(7, matcher.getDistance(1));
+        assertEquals(0, matcher.getDistance(2));
+
+        assertTrue(matcher.backspace());
+        assertEquals(6, matcher.getQueryLength());
+        assertEquals(1, matcher.getDistance(2));
+
+        matcher.append('s');
+        assertEquals(1, matcher.getDistance(2));
+        assertEquals(StringUtils.getLevenshteinDistance("exampls", "samples"), matcher.getDistance(0));
+
+        matcher.setQuery("");
+        assertFalse(matcher.backspace());
+        assertEquals(7, matcher.getDistance(2));
+    }
+
+    @Test
+    public void testMatchesLevenshteinDistance() {
+        Random random = new Random(42);
+        List<String> candidates = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            candidates.add(randomString(random, 15));
+        }
+        IncrementalLevenshtein matcher = new IncrementalLevenshtein(candidates);
+        int[] distances = new int[candidates.size()];
+
+        for (int step = 0; step < 500; step++) {
+            int action = random.nextInt(10);
+            if (action < 6) {
+                matcher.append((char) ('a' + random.nextInt(4)));
+            } else if (action < 9) {
+                matcher.backspace();
+            } else {
+                matcher.setQuery(matcher.getQuery().substring(0, matcher.getQueryLength() / 2) + randomString(random, 5));
+            }
+
+            matcher.getDistances(distances);
+            for (int i = 0; i < candidates.size(); i++) {
+                int expected = StringUtils.getLevenshteinDistance(candidates.get(i), matcher.getQuery());
+                assertEquals(expected, matcher.getDistance(i));
+                assertEquals(expected, distances[i]);
+            }
+        }
+    }
+
+    private static String randomString(Random random, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(4)));
+        }
+        return sb.toString();
+    }
+}
@@ -2,14 +2,18 @@ package io.intrepid.commonutils;
 
 import org.junit.Test;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
 import static io.intrepid.commonutils.JavaUtils.byteToUnsignedInt;
+import static io.intrepid.commonutils.JavaUtils.bytesToHexChars;
 import static io.intrepid.commonutils.JavaUtils.bytesToHexString;
+import static io.intrepid.commonutils.JavaUtils.hexToBytes;
 import static io.intrepid.commonutils.JavaUtils.moveElementInList;
 import static io.intrepid.commonutils.JavaUtils.nonNullString;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 public class JavaUtilsTest {
@@ -21,6 +25,64 @@ public class JavaUtilsTest {
         assertEquals("0a", bytesToHexString(new byte[] { 0x0a }));
     }
 
+    @Test
+    public void testBytesToHexStringVariants() throws Exception {
+        byte[] bytes = { 0x01, (byte) 0xab, (byte) 0xff, 0x00 };
+        assertEquals("01ABFF00", bytesToHexString(bytes, true));
+        assertEquals("abff", bytesToHexString(bytes, 1, 2, false));
+        assertEquals("", bytesToHexString(bytes, 4, 0, true));
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, 3).slice();
+        buffer.position(1);
+        assertEquals("ff00", bytesToHexString(buffer, false));
+        assertEquals(1, buffer.position());
+        ByteBuffer direct = ByteBuffer.allocateDirect(4);
+        direct.put(bytes).position(1);
+        assertEquals("ABFF00", bytesToHexString(direct, true));
+        assertEquals(1, direct.position());
+
+        char[] chars = new char[6];
+        assertEquals(6, bytesToHexChars(bytes, 0, 2, chars, 2, false));
+        assertEquals("01ab", new String(chars, 2, 4));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testBytesToHexStringOutOfRange() throws Exception {
+        bytesToHexString(new byte[2], 1, 2, false);
+    }
+
+    @Test
+    public void testHexToBytes() throws Exception {
+        assertArrayEquals(new byte[0], hexToBytes(""));
+        assertArrayEquals(new byte[] { (byte) 0xab, 0x12, 0x0f }, hexToBytes("aB120F"));
+        byte[] all = new byte[256];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = (byte) i;
+        }
+        assertArrayEquals(all, hexToBytes(bytesToHexString(all, true)));
+        assertArrayEquals(all, hexToBytes(new StringBuilder(bytesToHexString(all))));
+
+        byte[] dest = new byte[3];
+        assertEquals(2, hexToBytes("xx0102", 2, 6, dest, 1));
+        assertArrayEquals(new byte[] { 0, 1, 2 }, dest);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHexToBytesOddLength() throws Exception {
+        hexToBytes("abc");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHexToBytesInvalidDigit() throws Exception {
+        hexToBytes("0g");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testHexToBytesNonAsciiDigit() throws Exception {
+        // Fullwidth digit one, which Character.digit accepts
+        hexToBytes("0\uff11");
+    }
+
     @Test
     public void testByteToUnsignedInt() throws Exception {
         assertEquals(5, byteToUnsignedInt((byte) 0x05));
@@ -0,0 +1,211 @@
+package io.intrepid.commonutils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link ListDiff}
+ */
+public class ListDiffTest {
+
+    /**
+     * Items are the same if they have the same letter, and have the same contents if the whole string is equal.
+     */
+    private static final ListDiff.ItemCallback<String> CALLBACK = new ListDiff.ItemCallback<String>() {
+        @Override
+        public boolean areItemsTheSame(String oldItem, String newItem) {
+            return oldItem.charAt(0) == newItem.charAt(0);
+        }
+
+        @Override
+        public boolean areContentsTheSame(String oldItem, String newItem) {
+            return oldItem.equals(newItem);
+        }
+    };
+
+    @Test
+    public void testInsertRemoveChange() {
+        assertEquals("[-3,1 +3,1 ~2,1 +0,2]", dispatch("a b c d", "x y a b c' e", true));
+        assertEquals("[]", dispatch("a b c", "a b c", true));
+        assertEquals("[+0,3]", dispatch("", "a b c", true));
+        assertEquals("[-0,3]", dispatch("a b c", "", true));
+    }
+
+    @Test
+    public void testMoves() {
+        assertEquals("[>3,0]", dispatch("a b c d", "d a b c", true));
+        assertEquals("[-3,1 +0,1]", dispatch("a b c d", "d a b c", false));
+        assertEquals("[~2,1 >0,3]", dispatch("a b c d", "b c' d a", true));
+    }
+
+    @Test
+    public void testConvertPositions() {
+        ListDiff diff = ListDiff.compute(split("a b c d"), split("x c a d"), CALLBACK);
+        assertEquals(2, diff.convertOldPositionToNew(0));
+        assertEquals(ListDiff.NO_POSITION, diff.convertOldPositionToNew(1));
+        assertEquals(ListDiff.NO_POSITION, diff.convertNewPositionToOld(0));
+        assertEquals(2, diff.convertNewPositionToOld(1));
+        assertEquals(4, diff.getOldListSize());
+        assertEquals(4, diff.getNewListSize());
+    }
+
+    @Test
+    public void testRandomLists() {
+        Random random = new Random(42);
+        for (int iteration = 0; iteration < 2000; iteration++) {
+            List<String> oldList = randomList(random, random.nextInt(20));
+            List<String> newList = mutate(random, oldList);
+            boolean detectMoves = random.nextBoolean();
+            ListDiff diff = ListDiff.compute(oldList, newList, CALLBACK, detectMoves);
+            assertApplies(oldList, newList, diff, detectMoves);
+        }
+    }
+
+    @Test
+    public void testLargeLists() {
+        Random random = new Random(42);
+        List<String> oldList = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            oldList.add(String.valueOf((char) (0x100 + i)));
+        }
+        List<String> newList = new ArrayList<>(oldList);
+        for (int i = 0; i < 50; i++) {
+            newList.remove(random.nextInt(newList.size()));
+            newList.add(random.nextInt(newList.size()), String.valueOf((char) (0x8000 + i)));
+            String moved = newList.remove(random.nextInt(newList.size()));
+            newList.add(random.nextInt(newList.size()), moved + "'");
+        }
+        ListDiff diff = ListDiff.compute(oldList, newList, CALLBACK);
+        assertApplies(oldList, newList, diff, true);
+    }
+
+    /**
+     * Applies the updates to the old list, with placeholders for inserted items, and checks that each position holds
+     * the item that the new list has there and that all changed items are reported.
+     */
+    private static void assertApplies(List<String> oldList, List<String> newList, ListDiff diff,
+                                      boolean detectMoves) {
+        final List<String> list = new ArrayList<>(oldList);
+        final List<Boolean> changed = new ArrayList<>(Collections.nCopies(oldList.size(), false));
+        diff.dispatchUpdatesTo(new ListDiff.UpdateListener() {
+            @Override
+            public void onInserted(int position, int count) {
+                list.addAll(position, Collections.nCopies(count, (String) null));
+                changed.addAll(position, Collections.nCopies(count, false));
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                list.subList(position, position + count).clear();
+                changed.subList(position, position + count).clear();
+            }
+
+            @Override
+            public void onMoved(int fromPosition, int toPosition) {
+                list.add(toPosition, list.remove(fromPosition));
+                changed.add(toPosition, changed.remove(fromPosition));
+            }
+
+            @Override
+            public void onChanged(int position, int count) {
+                for (int i = position; i < position + count; i++) {
+                    changed.set(i, true);
+                }
+            }
+        });
+
+        final String message = oldList + " -> " + newList;
+        assertEquals(message, newList.size(), list.size());
+        for (int y = 0; y < newList.size(); y++) {
+            final String item = list.get(y);
+            final int oldPosition = diff.convertNewPositionToOld(y);
+            if (item == null) {
+                assertEquals(message, ListDiff.NO_POSITION, oldPosition);
+                continue;
+            }
+            assertNotNull(message, oldList.get(oldPosition));
+            assertEquals(message, oldList.get(oldPosition), item);
+            assertTrue(message, CALLBACK.areItemsTheSame(item, newList.get(y)));
+            assertEquals(message, !item.equals(newList.get(y)), changed.get(y));
+            if (!detectMoves) {
+                assertEquals(message, y, diff.convertOldPositionToNew(oldPosition));
+            }
+        }
+    }
+
+    private static String dispatch(String oldItems, String newItems, boolean detectMoves) {
+        final List<String> updates = new ArrayList<>();
+        ListDiff.compute(split(oldItems), split(newItems), CALLBACK, detectMoves)
+                .dispatchUpdatesTo(new ListDiff.UpdateListener() {
+                    @Override
+                    public void onInserted(int position, int count) {
+                        updates.add("+" + position + "," + count);
+                    }
+
+                    @Override
+                    public void onRemoved(int position, int count) {
+                        updates.add("-" + position + "," + count);
+                    }
+
+                    @Override
+                    public void onMoved(int fromPosition, int toPosition) {
+                        updates.add(">" + fromPosition + "," + toPosition);
+                    }
+
+                    @Override
+                    public void onChanged(int position, int count) {
+                        updates.add("~" + position + "," + count);
+                    }
+                });
+        return updates.toString().replace(", ", " ");
+    }
+
+    private static List<String> split(String items) {
+        return items.isEmpty() ? Collections.<String>emptyList() : Arrays.asList(items.split(" "));
+    }
+
+    /**
+     * @return A list of distinct letters.
+     */
+    private static List<String> randomList(Random random, int size) {
+        final List<String> letters = new ArrayList<>();
+        for (char c = 'a'; c <= 'z'; c++) {
+            letters.add(String.valueOf(c));
+        }
+        Collections.shuffle(letters, random);
+        return new ArrayList<>(letters.subList(0, size));
+    }
+
+    private static List<String> mutate(Random random, List<String> oldList) {
+        final List<String> list = new ArrayList<>(oldList);
+        final int edits = random.nextInt(8);
+        for (int i = 0; i < edits; i++) {
+            final int op = random.nextInt(4);
+            if (op == 0 && !list.isEmpty()) {
+                list.remove(random.nextInt(list.size()));
+            } else if (op == 1) {
+                // Upper-case letters never appear in the old list
+                final String inserted = String.valueOf((char) ('A' + random.nextInt(26)));
+                if (!list.contains(inserted)) {
+                    list.add(random.nextInt(list.size() + 1), inserted);
+                }
+            } else if (op == 2 && !list.isEmpty()) {
+                final String moved = list.remove(random.nextInt(list.size()));
+                list.add(random.nextInt(list.size() + 1), moved);
+            } else if (!list.isEmpty()) {
+                final int index = random.nextInt(list.size());
+                list.set(index, list.get(index) + "'");
+            }
+        }
+        return list;
+    }
+}
@@ -0,0 +1,159 @@
+package io.intrepid.commonutils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link MappedText}
+ */
+public class MappedTextTest {
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private File file;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("commonutils", ".txt");
+    }
+
+    @After
+    public void tearDown() {
+        assertTrue(file.delete());
+    }
+
+    @Test
+    public void testUtf8MatchesDecodedString() throws IOException {
+        String text = randomText(new Random(42), 50000, "abc |\n\u00e9\u4e2d\ud83d\ude00");
+        MappedText mapped = map(text, UTF_8);
+
+        assertEquals(text.length(), mapped.length());
+        for (int i = 0; i < text.length(); i++) {
+            assertEquals(text.charAt(i), mapped.charAt(i));
+        }
+        assertEquals(text, mapped.toString());
+    }
+
+    @Test
+    public void testUtf8RandomAccess() throws IOException {
+        Random random = new Random(42);
+        String text = randomText(random, 50000, "ab\u00e9\u4e2d\ud83d\ude00");
+        MappedText mapped = map(text, UTF_8);
+
+        for (int i = 0; i < 2000; i++) {
+            int index = random.nextInt(text.length());
+            assertEquals(text.charAt(index), mapped.charAt(index));
+        }
+        for (int i = 0; i < 100; i++) {
+            int start = random.nextInt(text.length());
+            int end = start + random.nextInt(Math.min(10000, text.length() - start));
+            char[] chars = new char[end - start];
+            mapped.getChars(start, end, chars, 0);
+            assertEquals(text.substring(start, end), new String(chars));
+            assertEquals(text.substring(start, end), mapped.subSequence(start, end).toString());
+        }
+    }
+
+    @Test
+    public void testAsciiPagesOfUtf8Text() throws IOException {
+        String text = randomText(new Random(42), 20000, "abc") + "\u00e9" + randomText(new Random(43), 20000, "xyz");
+        MappedText mapped = map(text, UTF_8);
+        assertEquals(text.length(), mapped.length());
+        assertEquals(text.substring(19990, 20010), mapped.subSequence(19990, 20010).toString());
+        assertEquals(text, mapped.toString());
+    }
+
+    @Test
+    public void testLatin1() throws IOException {
+        String text = "caf\u00e9 \u00ff";
+        MappedText mapped = map(text, Charset.forName("ISO-8859-1"));
+        assertEquals(text.length(), mapped.length());
+        assertEquals(text, mapped.toString());
+    }
+
+    @Test
+    public void testAsciiReplacesNonAsciiBytes() {
+        MappedText mapped = new MappedText(ByteBuffer.wrap(new byte[] { 'a', (byte) 0xE9, 'b' }),
+                                           Charset.forName("US-ASCII"));
+        assertEquals("a\ufffdb", mapped.toString());
+    }
+
+    @Test
+    public void testEmpty() throws IOException {
+        MappedText mapped = map("", UTF_8);
+        assertEquals(0, mapped.length());
+        assertEquals("", mapped.toString());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testCharAtOutOfBounds() throws IOException {
+        map("\u00e9t\u00e9", UTF_8).charAt(3);
+    }
+
+    @Test(expected = UnsupportedCharsetException.class)
+    public void testUnsupportedCharset() {
+        new MappedText(ByteBuffer.allocate(0), Charset.forName("UTF-16"));
+    }
+
+    @Test
+    public void testStringUtils() throws IOException {
+        String text = " \u00e9l\u00e9ment 1 | element 2|\u4e2d ";
+        MappedText mapped = map(text, UTF_8);
+
+        assertTrue(StringUtils.equals(text, mapped));
+        assertEquals(0, StringUtils.compare(text, mapped));
+        assertEquals(text.indexOf('|'), StringUtils.indexOf(mapped, '|', 0));
+
+        List<String> elements = new ArrayList<>();
+        StringUtils.parseSeparatedList(mapped, "|", elements);
+        assertEquals(Arrays.asList(StringUtils.parseSeparatedArray(text, "|")), elements);
+
+        List<String> iterated = new ArrayList<>();
+        for (CharSequence element : StringUtils.iterateSeparatedList(mapped, "|")) {
+            iterated.add(element.toString());
+        }
+        assertEquals(elements, iterated);
+
+        int[] offsets = new int[6];
+        assertEquals(3, StringUtils.getSeparatedOffsets(mapped, "|", offsets));
+        assertArrayEquals(new int[] { 1, 10, 13, 22, 23, 24 }, offsets);
+    }
+
+    private MappedText map(String text, Charset charset) throws IOException {
+        FileOutputStream os = new FileOutputStream(file);
+        try {
+            os.write(text.getBytes(charset));
+        } finally {
+            os.close();
+        }
+        return MappedText.map(file, charset);
+    }
+
+    private static String randomText(Random random, int length, String alphabet) {
+        StringBuilder sb = new StringBuilder(length);
+        while (sb.length() < length) {
+            char c = alphabet.charAt(random.nextInt(alphabet.length()));
+            if (Character.isHighSurrogate(c)) {
+                sb.append(c).append(alphabet.charAt(alphabet.indexOf(c) + 1));
+            } else if (!Character.isLowSurrogate(c)) {
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+}
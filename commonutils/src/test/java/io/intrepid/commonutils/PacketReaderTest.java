@@ -0,0 +1,158 @@
+package io.intrepid.commonutils;
+
+import org.junit.Test;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests {@link PacketReader} and {@link PacketWriter}
+ */
+public class PacketReaderTest {
+
+    private static final byte[] BYTES = { 0x01, (byte) 0x82, 0x03, (byte) 0xf4, 0x05, 0x06, 0x07, (byte) 0x88 };
+
+    @Test
+    public void testBigEndian() {
+        PacketReader reader = new PacketReader(BYTES);
+        assertEquals(0x01, reader.readU8());
+        assertEquals(0x8203, reader.readU16());
+        assertEquals(0xf40506, reader.readU24());
+        assertEquals(6, reader.position());
+        reader.position(0);
+        assertEquals(0x018203f4L, reader.readU32());
+        reader.position(4);
+        assertEquals(0x05060788, reader.readInt());
+        assertFalse(reader.hasRemaining());
+        reader.position(1);
+        assertEquals((short) 0x8203, reader.readShort());
+        assertEquals(0x0182_03f4_0506_0788L, reader.position(0).readLong());
+    }
+
+    @Test
+    public void testLittleEndian() {
+        PacketReader reader = new PacketReader(BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(0x8201, reader.readU16());
+        assertEquals(0x05f403, reader.readU24());
+        assertEquals(0x88070605L, reader.position(4).readU32());
+        reader.position(4);
+        assertEquals(0x88070605, reader.readInt());
+        assertEquals(0x88070605_f4038201L, reader.position(0).readLong());
+    }
+
+    @Test
+    public void testBuffers() {
+        ByteBuffer direct = ByteBuffer.allocateDirect(BYTES.length).order(ByteOrder.LITTLE_ENDIAN);
+        direct.put(BYTES).position(1);
+        PacketReader reader = new PacketReader(direct);
+        assertEquals(ByteOrder.LITTLE_ENDIAN, reader.order());
+        assertEquals(0x0382, reader.readU16());
+        assertEquals(5, reader.remaining());
+        assertEquals(1, direct.position());
+
+        ByteBuffer heap = ByteBuffer.wrap(BYTES, 2, 6).slice();
+        heap.position(1);
+        reader = new PacketReader(heap);
+        assertEquals(0xf4050607L, reader.readU32());
+        byte[] dest = new byte[3];
+        reader.position(0).readBytes(dest, 1, 2);
+        assertArrayEquals(new byte[] { 0, (byte) 0xf4, 0x05 }, dest);
+    }
+
+    @Test
+    public void testSkipAndSlice() {
+        PacketReader reader = new PacketReader(BYTES, 1, 6);
+        PacketReader slice = reader.skip(1).slice(3);
+        assertEquals(4, reader.position());
+        assertEquals(0x06, reader.readU8());
+        assertEquals(0x03f405, slice.readU24());
+        assertFalse(slice.hasRemaining());
+        try {
+            slice.readU8();
+            fail();
+        } catch (BufferUnderflowException expected) {
+        }
+    }
+
+    @Test
+    public void testUnderflowDoesNotMove() {
+        PacketReader reader = new PacketReader(BYTES);
+        reader.skip(6);
+        try {
+            reader.readU24();
+            fail();
+        } catch (BufferUnderflowException expected) {
+        }
+        assertEquals(6, reader.position());
+        assertEquals(0x0788, reader.readU16());
+    }
+
+    @Test
+    public void testLeb128RoundTrip() {
+        long[] values = { 0, 1, 63, 64, 127, 128, 300, -1, -64, -65, 624485, -123456, Integer.MAX_VALUE,
+                Long.MAX_VALUE, Long.MIN_VALUE };
+        PacketWriter writer = new PacketWriter(0);
+        for (long value : values) {
+            writer.writeUleb128(value).writeSleb128(value);
+        }
+        PacketReader reader = writer.toReader();
+        for (long value : values) {
+            assertEquals(value, reader.readUleb128());
+            assertEquals(value, reader.readSleb128());
+        }
+        assertFalse(reader.hasRemaining());
+
+        // Examples from the DWARF specification
+        assertArrayEquals(new byte[] { (byte) 0xe5, (byte) 0x8e, 0x26 },
+                          new PacketWriter().writeUleb128(624485).toByteArray());
+        assertArrayEquals(new byte[] { (byte) 0xc0, (byte) 0xbb, 0x78 },
+                          new PacketWriter().writeSleb128(-123456).toByteArray());
+        assertArrayEquals(new byte[] { 0x7f }, new PacketWriter().writeSleb128(-1).toByteArray());
+    }
+
+    @Test
+    public void testMalformedLeb128() {
+        try {
+            new PacketReader(new byte[] { (byte) 0x80, (byte) 0x80 }).readUleb128();
+            fail();
+        } catch (BufferUnderflowException expected) {
+        }
+        byte[] tooLong = new byte[11];
+        Arrays.fill(tooLong, (byte) 0x80);
+        try {
+            new PacketReader(tooLong).readSleb128();
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void testWriter() {
+        PacketWriter writer = new PacketWriter(1);
+        writer.writeU8(0x101).writeU16(0x8203).writeU24(0xf40506).order(ByteOrder.LITTLE_ENDIAN).writeU32(-2);
+        assertArrayEquals(new byte[] { 0x01, (byte) 0x82, 0x03, (byte) 0xf4, 0x05, 0x06, (byte) 0xfe, (byte) 0xff,
+                (byte) 0xff, (byte) 0xff }, writer.toByteArray());
+        assertEquals(10, writer.position());
+        assertEquals(0xfffffffeL, writer.toByteBuffer().getInt(6) & 0xffffffffL);
+        assertEquals(0, writer.reset().position());
+
+        byte[] frame = new byte[6];
+        writer = new PacketWriter(frame, 1, 4);
+        writer.writeBytes(new byte[] { 9, 8, 7 }, 1, 2).writeU16(0x0605);
+        assertArrayEquals(new byte[] { 0, 8, 7, 6, 5, 0 }, frame);
+        try {
+            writer.writeU8(1);
+            fail();
+        } catch (BufferOverflowException expected) {
+        }
+        assertEquals(4, writer.position());
+    }
+}
@@ -0,0 +1,101 @@
+package io.intrepid.commonutils;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests {@link PatternCache}
+ */
+public class PatternCacheTest {
+
+    @Test
+    public void testPatternsAreShared() {
+        PatternCache cache = new PatternCache(4);
+        Pattern pattern = cache.get("a+b", 0);
+        assertSame(pattern, cache.get("a+b", 0));
+        assertNotSame(pattern, cache.get("a+b", Pattern.CASE_INSENSITIVE));
+        assertEquals(Pattern.CASE_INSENSITIVE, cache.get("a+b", Pattern.CASE_INSENSITIVE).flags());
+
+        PatternCache.Stats stats = cache.getStats();
+        assertEquals(2, stats.getHits());
+        assertEquals(2, stats.getMisses());
+        assertTrue(stats.getCompileNanos() > 0);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() {
+        PatternCache cache = new PatternCache(3);
+        Pattern a = cache.get("a", 0);
+        cache.get("b", 0);
+        cache.get("c", 0);
+        assertSame(a, cache.get("a", 0));
+        cache.get("d", 0);
+
+        assertEquals(3, cache.size());
+        assertEquals(1, cache.getStats().getEvictions());
+        assertSame(a, cache.get("a", 0));
+        long misses = cache.getStats().getMisses();
+        cache.get("b", 0);
+        assertEquals(misses + 1, cache.getStats().getMisses());
+    }
+
+    @Test
+    public void testInvalidPatternsAreNotCached() {
+        PatternCache cache = new PatternCache(2);
+        for (int i = 0; i < 2; i++) {
+            try {
+                cache.get("(", 0);
+                fail("Expected a PatternSyntaxException");
+            } catch (PatternSyntaxException e) {
+                // OK
+            }
+        }
+        assertEquals(0, cache.size());
+        assertEquals(2, cache.getStats().getMisses());
+    }
+
+    @Test
+    public void testConcurrentRequestsCompileOnce() throws InterruptedException {
+        final PatternCache cache = new PatternCache(8);
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 4; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int j = 0; j < 1000; j++) {
+                        cache.get("x" + (j % 8) + "y*", 0);
+                    }
+                }
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(8, cache.getStats().getMisses());
+        assertEquals(4000 - 8, cache.getStats().getHits());
+    }
+
+    @Test
+    public void testDefaultCache() {
+        assertSame(PatternCache.compile("\\s*,\\s*"), PatternCache.getDefault().get("\\s*,\\s*", 0));
+    }
+}
@@ -0,0 +1,143 @@
+package io.intrepid.commonutils;
+
+import android.support.annotation.NonNull;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests {@link RecordParser}
+ */
+public class RecordParserTest {
+
+    @Test
+    public void testSimpleRecords() {
+        assertEquals(Arrays.asList(Arrays.asList("a", "b", "c"), Arrays.asList("1", " 2 ", "")),
+                     RecordParser.csv().parse("a,b,c\r\n1, 2 ,\r\n"));
+    }
+
+    @Test
+    public void testLineBreaks() {
+        assertEquals(Arrays.asList(Collections.singletonList("a"), Collections.singletonList("b"),
+                                   Collections.singletonList("c"), Collections.singletonList("d")),
+                     RecordParser.csv().parse("a\nb\rc\r\nd"));
+    }
+
+    @Test
+    public void testEmptyLinesAreSkipped() {
+        assertEquals(Arrays.asList(Collections.singletonList("a"), Collections.singletonList("")),
+                     RecordParser.csv().parse("\n\r\na\n\n\"\"\n\n"));
+    }
+
+    @Test
+    public void testQuotedFields() {
+        assertEquals(Collections.singletonList(Arrays.asList("a,b", "say \"hi\"", "line\r\nbreak", "", "x\"y")),
+                     RecordParser.csv().parse("\"a,b\",\"say \"\"hi\"\"\",\"line\r\nbreak\",\"\",x\"y\n"));
+    }
+
+    @Test
+    public void testCharactersAfterClosingQuoteAreKept() {
+        assertEquals(Collections.singletonList(Arrays.asList("ab c", "d")),
+                     RecordParser.csv().parse("\"ab\" c,d"));
+    }
+
+    @Test
+    public void testTsv() {
+        assertEquals(Collections.singletonList(Arrays.asList("a,b", "c")), RecordParser.tsv().parse("a,b\tc"));
+    }
+
+    @Test
+    public void testUnterminatedQuote() {
+        try {
+            RecordParser.csv().parse(new StringReader("a\n\"b,c\nd"), new CollectingHandler());
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertEquals("Unterminated quoted field on line 3", e.getMessage());
+        }
+    }
+
+    @Test
+    public void testHandlerCanStop() throws IOException {
+        final List<String> firstFields = new ArrayList<>();
+        long count = RecordParser.csv().parse(new StringReader("a\nb\nc\n"), new RecordParser.RecordHandler() {
+            @Override
+            public boolean onRecord(@NonNull RecordParser.Record record) {
+                firstFields.add(record.getString(0));
+                return record.getIndex() < 1;
+            }
+        });
+        assertEquals(2, count);
+        assertEquals(Arrays.asList("a", "b"), firstFields);
+    }
+
+    @Test
+    public void testInputStream() throws IOException {
+        CollectingHandler handler = new CollectingHandler();
+        byte[] bytes = "\u00e9t\u00e9,\u4e2d\n".getBytes("UTF-8");
+        assertEquals(1, RecordParser.csv().parse(new ByteArrayInputStream(bytes), handler));
+        assertEquals(Collections.singletonList(Arrays.asList("\u00e9t\u00e9", "\u4e2d")), handler.records);
+    }
+
+    @Test
+    public void testChunkBoundaries() throws IOException {
+        Random random = new Random(42);
+        StringBuilder sb = new StringBuilder();
+        List<List<String>> expected = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            List<String> record = new ArrayList<>();
+            int fieldCount = 1 + random.nextInt(5);
+            for (int j = 0; j < fieldCount; j++) {
+                String field = randomField(random);
+                record.add(field);
+                if (j > 0) {
+                    sb.append(',');
+                }
+                if (field.isEmpty() || field.indexOf(',') >= 0 || field.indexOf('"') >= 0
+                        || field.indexOf('\n') >= 0 || field.indexOf('\r') >= 0) {
+                    sb.append('"').append(field.replace("\"", "\"\"")).append('"');
+                } else {
+                    sb.append(field);
+                }
+            }
+            sb.append(random.nextBoolean() ? "\r\n" : "\n");
+            expected.add(record);
+        }
+
+        for (int chunkSize = 1; chunkSize <= 17; chunkSize++) {
+            CollectingHandler handler = new CollectingHandler();
+            new RecordParser(',', '"', chunkSize).parse(new StringReader(sb.toString()), handler);
+            assertEquals("chunk size " + chunkSize, expected, handler.records);
+        }
+    }
+
+    private static String randomField(Random random) {
+        String alphabet = "ab ,\"\r\n";
+        int length = random.nextInt(8);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    private static class CollectingHandler implements RecordParser.RecordHandler {
+        final List<List<String>> records = new ArrayList<>();
+
+        @Override
+        public boolean onRecord(@NonNull RecordParser.Record record) {
+            records.add(record.toList());
+            return true;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package io.intrepid.commonutils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link Rope}
+ */
+public class RopeTest {
+
+    @Test
+    public void testSeparateItemsWith() {
+        List<CharSequence> items = Arrays.<CharSequence>asList("Hello", "This", null, "is", "",
+                                                               new StringBuilder("my name"));
+        String expected = StringUtils.separateItemsWith(", ", items).toString();
+        assertContentEquals(expected, Rope.separateItemsWith(", ", items));
+        assertContentEquals(expected, Rope.separateItemsWith(", ", new LinkedList<>(items)));
+        assertContentEquals("HelloThisismy name", Rope.separateItemsWith("", items));
+        assertContentEquals(StringUtils.separateItemsWith(null, items).toString(),
+                            Rope.separateItemsWith(null, items));
+        assertContentEquals("", Rope.separateItemsWith(", ", null));
+        assertContentEquals("", Rope.separateItemsWith(", ", Arrays.<CharSequence>asList(null, "")));
+    }
+
+    @Test
+    public void testRepeat() {
+        for (int count = -1; count < 70; count++) {
+            assertContentEquals(StringUtils.repeat("ab", ", ", count).toString(), Rope.repeat("ab", ", ", count));
+            assertContentEquals(StringUtils.repeat("ab", null, count).toString(), Rope.repeat("ab", null, count));
+            assertContentEquals(StringUtils.repeat("", "-", count).toString(), Rope.repeat("", "-", count));
+        }
+        assertContentEquals("", Rope.repeat(null, null, 5));
+    }
+
+    @Test
+    public void testHugeRepeatIsNotCopied() {
+        Rope rope = Rope.repeat("0123456789", null, 200000000);
+        assertEquals(2000000000, rope.length());
+        assertTrue(rope.getDepth() <= 64);
+        assertEquals('7', rope.charAt(1999999997));
+        assertEquals("8901", rope.subSequence(1234567898, 1234567902).toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRepeatTooLong() {
+        Rope.repeat("0123456789", null, Integer.MAX_VALUE);
+    }
+
+    @Test
+    public void testAppendStaysBalanced() {
+        Rope rope = Rope.of("");
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 10000; i++) {
+            rope = rope.append(Integer.toString(i));
+            expected.append(i);
+        }
+        assertTrue(rope.getDepth() <= 64);
+        assertContentEquals(expected.toString(), rope);
+    }
+
+    @Test
+    public void testAppendAfterHugeRepeat() {
+        Rope rope = Rope.repeat("ab", "", 1 << 29);
+        for (int i = 0; i < 100; i++) {
+            rope = rope.append("z");
+        }
+        assertEquals((1 << 30) + 100, rope.length());
+        assertTrue(rope.getDepth() <= 64);
+        assertEquals('b', rope.charAt((1 << 30) - 1));
+        assertEquals('z', rope.charAt((1 << 30) + 99));
+        assertEquals("abzz", rope.subSequence((1 << 30) - 2, (1 << 30) + 2).toString());
+
+        rope = Rope.of("z").append(Rope.repeat("ab", "", 1 << 29)).append(Rope.repeat("cd", "", 1 << 28));
+        assertEquals((1 << 30) + (1 << 29) + 1, rope.length());
+        assertTrue(rope.getDepth() <= 64);
+        assertEquals("zab", rope.subSequence(0, 3).toString());
+        assertEquals("abcd", rope.subSequence((1 << 30) - 1, (1 << 30) + 3).toString());
+    }
+
+    @Test
+    public void testManySequentialAppends() {
+        Rope rope = Rope.of("");
+        StringBuilder expected = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            final String piece = Character.toString((char) ('a' + i % 26));
+            rope = rope.append(piece);
+            expected.append(piece);
+        }
+        assertTrue(rope.getDepth() <= 32);
+        assertContentEquals(expected.toString(), rope);
+        assertEquals(expected.substring(31234, 78901), rope.subSequence(31234, 78901).toString());
+    }
+
+    @Test
+    public void testRandomSlices() {
+        Random random = new Random(42);
+        List<CharSequence> pieces = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            pieces.add(StringUtils.repeat(Character.toString((char) ('a' + i % 26)), null, random.nextInt(5)));
+        }
+        Rope rope = Rope.concat(pieces.toArray(new CharSequence[pieces.size()]));
+        String expected = StringUtils.join("", pieces);
+
+        for (int i = 0; i < 500; i++) {
+            int start = random.nextInt(expected.length() + 1);
+            int end = start + random.nextInt(expected.length() - start + 1);
+            Rope slice = rope.subSequence(start, end);
+            assertContentEquals(expected.substring(start, end), slice);
+            if (end - start > 2) {
+                assertContentEquals(expected.substring(start + 1, end - 1), slice.subSequence(1, end - start - 1));
+            }
+        }
+    }
+
+    @Test
+    public void testToStringIsKept() {
+        Rope rope = Rope.concat("ab", "cd");
+        assertSame(rope.toString(), rope.toString());
+        assertSame(rope, Rope.of(rope));
+    }
+
+    @Test
+    public void testNestedRopes() {
+        Rope rope = Rope.concat(Rope.repeat("x", "-", 3), "|", Rope.separateItemsWith(",", Arrays.asList("a", "b")));
+        assertContentEquals("x-x-x|a,b", rope);
+        assertEquals("x-x-x|a,b", StringUtils.join("", Arrays.asList(rope)));
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testCharAtOutOfBounds() {
+        Rope.concat("ab", "cd").charAt(4);
+    }
+
+    private static void assertContentEquals(String expected, Rope actual) {
+        assertEquals(expected.length(), actual.length());
+        for (int i = 0; i < expected.length(); i++) {
+            assertEquals(expected.charAt(i), actual.charAt(i));
+        }
+        char[] chars = new char[expected.length()];
+        actual.getChars(0, chars.length, chars, 0);
+        assertEquals(expected, new String(chars));
+        assertEquals(expected, actual.toString());
+    }
+}
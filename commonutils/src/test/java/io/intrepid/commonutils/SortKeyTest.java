@@ -0,0 +1,131 @@
+package io.intrepid.commonutils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests {@link SortKey}
+ */
+public class SortKeyTest {
+
+    @Test
+    public void testKeysCompareLikeStrings() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            String s1 = randomString(random, "ab\u0000\uffff", 8);
+            String s2 = randomString(random, "ab\u0000\uffff", 8);
+            assertEquals(Integer.signum(s1.compareTo(s2)),
+                         Integer.signum(SortKey.of(s1, 0).compareTo(SortKey.of(s2, 0))));
+        }
+    }
+
+    @Test
+    public void testIgnoreCase() {
+        Random random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            String s1 = randomString(random, "aAbB\u00e9\u00c9", 8);
+            String s2 = randomString(random, "aAbB\u00e9\u00c9", 8);
+            assertEquals(Integer.signum(String.CASE_INSENSITIVE_ORDER.compare(s1, s2)),
+                         Integer.signum(SortKey.of(s1, SortKey.IGNORE_CASE)
+                                               .compareTo(SortKey.of(s2, SortKey.IGNORE_CASE))));
+        }
+    }
+
+    @Test
+    public void testNatural() {
+        List<String> expected = Arrays.asList(null, "", "1", "item", "item0", "item002", "item2", "item10",
+                                              "item10a", "item10b", "item100", "item9999999999999999999",
+                                              "item10000000000000000000", "itema");
+        List<String> list = new ArrayList<>(expected);
+        Collections.shuffle(list, new Random(42));
+        // item002 and item2 are equal, so a stable sort keeps them in their original order
+        list.remove("item2");
+        list.add(list.indexOf("item002") + 1, "item2");
+
+        SortKey.sort(list, SortKey.NATURAL, null);
+        assertEquals(expected, list);
+    }
+
+    @Test
+    public void testNaturalIgnoreCase() {
+        List<String> list = new ArrayList<>(Arrays.asList("File10", "file2", "FILE1"));
+        SortKey.sort(list, SortKey.NATURAL | SortKey.IGNORE_CASE, null);
+        assertEquals(Arrays.asList("FILE1", "file2", "File10"), list);
+    }
+
+    @Test
+    public void testParallelSortIsStable() {
+        Random random = new Random(42);
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            list.add(randomString(random, "aAbB", 6));
+        }
+        List<String> expected = new ArrayList<>(list);
+        Collections.sort(expected, String.CASE_INSENSITIVE_ORDER);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<String> sorted = new ArrayList<>(list);
+            SortKey.sort(sorted, SortKey.IGNORE_CASE, executor);
+            // Equal elements are the same instances in the same order
+            for (int i = 0; i < expected.size(); i++) {
+                assertSame(expected.get(i), sorted.get(i));
+            }
+
+            List<String> linked = new LinkedList<>(list);
+            SortKey.sort(linked, SortKey.IGNORE_CASE);
+            assertEquals(expected, linked);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testCache() {
+        SortKey.Cache cache = new SortKey.Cache(SortKey.NATURAL);
+        List<CharSequence> list = new ArrayList<>(Arrays.<CharSequence>asList("b10", "b9", new StringBuilder("a"),
+                                                                                null));
+        SortKey.sort(list, cache, null);
+        assertEquals("[null, a, b9, b10]", list.toString());
+        assertEquals(2, cache.size());
+
+        SortKey key = cache.get("b9");
+        assertSame(key, cache.get("b9"));
+        assertEquals(key, SortKey.of("b9", SortKey.NATURAL));
+
+        list.remove("b10");
+        SortKey.sort(list, cache, null);
+        assertEquals(1, cache.size());
+        cache.clear();
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testEqualKeys() {
+        assertEquals(SortKey.of("abcdefg", 0), SortKey.of(new StringBuilder("abcdefg"), 0));
+        assertEquals(SortKey.of("abcdefg", 0).hashCode(), SortKey.of(new StringBuilder("abcdefg"), 0).hashCode());
+        assertTrue(SortKey.of("abc", 0).compareTo(SortKey.of("abc\u0000", 0)) < 0);
+        assertTrue(SortKey.of(null, 0).compareTo(SortKey.of("", 0)) < 0);
+    }
+
+    private static String randomString(Random random, String alphabet, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+}
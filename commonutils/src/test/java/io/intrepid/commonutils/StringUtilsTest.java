@@ -1,16 +1,39 @@
 package io.intrepid.commonutils;
 
+import android.support.annotation.NonNull;
+
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
 
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
@@ -49,6 +72,27 @@ public class StringUtilsTest {
         assertEquals("a|bb|ccc|d", StringUtils.join("|", strings));
     }
 
+    @Test
+    public void testJoinMixedTokens() {
+        List<Object> tokens = Arrays.<Object>asList("a", null, new StringBuilder("b"), 42);
+        assertEquals("a, null, b, 42", StringUtils.join(", ", tokens));
+        assertEquals("a, null, b, 42", StringUtils.join(", ", new LinkedList<>(tokens)));
+        assertEquals("a, null, b, 42", StringUtils.join(", ", tokens.toArray()));
+        assertEquals("anullb", StringUtils.join("", Arrays.<Object>asList("a", null, "b")));
+        assertEquals("", StringUtils.join("|", Collections.emptyList()));
+    }
+
+    @Test
+    public void testAppendJoined() throws IOException {
+        StringBuilder sb = new StringBuilder("> ");
+        assertSame(sb, StringUtils.appendJoined(sb, "|", Arrays.asList("a", 1)));
+        assertEquals("> a|1", sb.toString());
+
+        StringWriter writer = new StringWriter();
+        StringUtils.appendJoined(writer, "|", Arrays.asList("a", 1));
+        assertEquals("a|1", writer.toString());
+    }
+
     @Test
     public void testStripSurroundingWhiteSpace() {
         CharSequence expected = "abcDe f";
@@ -83,6 +127,72 @@ public class StringUtilsTest {
         assertEquals(expected, StringUtils.stripNonAlphaNumeric("Rem0ve\nAll Non Alpha-Num Characters!\u0066"));
     }
 
+    @Test
+    public void testReplaceNonBoringCharactersCleanInputIsNotCopied() {
+        String input = "Nothing to replace here";
+        assertSame(input, StringUtils.replaceNonBoringCharacters(input, "[]"));
+    }
+
+    @Test
+    public void testReplaceNonBoringCharactersSurrogatePair() {
+        assertEquals("a[]b", StringUtils.replaceNonBoringCharacters("a\uD83D\uDE00b", "[]"));
+    }
+
+    @Test
+    public void testReplaceNonBoringCharactersLiteralReplacement() {
+        assertEquals("a$1b", StringUtils.replaceNonBoringCharacters("a\tb", "$1"));
+    }
+
+    @Test
+    public void testReplaceNonBoringCharactersIntoBuffers() {
+        StringBuilder sb = new StringBuilder("> ");
+        assertSame(sb, StringUtils.replaceNonBoringCharacters("\u0590Anton\n", "[]", sb));
+        assertEquals("> []Anton[]", sb.toString());
+
+        char[] dest = new char[12];
+        assertEquals(9, StringUtils.replaceNonBoringCharacters("\u0590Anton\n", "[]", dest, 2));
+        assertEquals("[]Anton[]", new String(dest, 2, 9));
+    }
+
+    @Test
+    public void testReplaceNonBoringCharactersMatchesRegex() {
+        Pattern pattern = Pattern.compile("[\\t\\n\\u0590-\\uFFFF]");
+        Random random = new Random(42);
+        String alphabet = "ab \t\n\r\u00e9\u058f\u0590\u05d0\u4e2d\uffff";
+        for (int i = 0; i < 1000; i++) {
+            String input = randomString(random, alphabet, 20);
+            assertEquals(input, pattern.matcher(input).replaceAll("_"), StringUtils.replaceNonBoringCharacters(input, "_"));
+        }
+    }
+
+    @Test
+    public void testStripNonAlphaNumericCleanInputIsNotCopied() {
+        String input = "Rem0veAllNonAlphaNumCharactersf";
+        assertSame(input, StringUtils.stripNonAlphaNumeric(input));
+    }
+
+    @Test
+    public void testStripNonAlphaNumericIntoBuffers() {
+        StringBuilder sb = new StringBuilder("> ");
+        assertSame(sb, StringUtils.stripNonAlphaNumeric("a-b c!", sb));
+        assertEquals("> abc", sb.toString());
+
+        char[] dest = new char[6];
+        assertEquals(3, StringUtils.stripNonAlphaNumeric("a-b c!", dest, 1));
+        assertEquals("abc", new String(dest, 1, 3));
+    }
+
+    @Test
+    public void testStripNonAlphaNumericMatchesRegex() {
+        Pattern pattern = Pattern.compile("[^a-zA-Z0-9]");
+        Random random = new Random(42);
+        String alphabet = "azAZ09/:@[`{ \t\u00e9\u4e2d\uD83D\uDE00";
+        for (int i = 0; i < 1000; i++) {
+            String input = randomString(random, alphabet, 20);
+            assertEquals(input, pattern.matcher(input).replaceAll(""), StringUtils.stripNonAlphaNumeric(new StringBuilder(input)));
+        }
+    }
+
     @Test
     public void testIsEmailAddress() {
         assertTrue(StringUtils.isEmailAddress("Tim.Horton@q.com"));
@@ -113,6 +223,44 @@ public class StringUtilsTest {
         assertFalse(StringUtils.isEmailAddress("Tim.Horton@nl.c"));
     }
 
+    @Test
+    public void testIsEmailAddressMatchesRegex() {
+        Pattern pattern = Pattern.compile("^([a-z0-9A-Z]+[-_|\\.]?)+[a-z0-9A-Z]@([a-z0-9A-Z]+(-[a-z0-9A-Z]+)?\\.)+[a-zA-Z]{2,}$");
+        Random random = new Random(42);
+        String alphabet = "aZ0-._|@@..!\u00e9";
+        for (int i = 0; i < 50000; i++) {
+            String input = randomString(random, alphabet, 14);
+            assertEquals(input, !input.isEmpty() && pattern.matcher(input).matches(), StringUtils.isEmailAddress(input));
+        }
+
+        String[] samples = {
+                "a.b@c.de", "ab@c-d.ef", "ab@c-d-e.fg", "ab@c--d.fg", "ab@cd.e-f", "ab@cd.ef1", "ab@1.cd", "a@cd.ef",
+                "a..b@cd.ef", "a-_b@cd.ef", "a|b@cd.ef", "ab.@cd.ef", "ab@cd..ef", "ab@cd.ef.", "ab@@cd.ef", "ab@cd.e"
+        };
+        for (String sample : samples) {
+            assertEquals(sample, pattern.matcher(sample).matches(), StringUtils.isEmailAddress(sample));
+        }
+    }
+
+    @Test(timeout = 1000)
+    public void testIsEmailAddressDoesNotBacktrack() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            sb.append('a');
+        }
+        sb.append('!');
+        assertFalse(StringUtils.isEmailAddress(sb));
+    }
+
+    @Test
+    public void testValidateEmails() {
+        BitSet valid = StringUtils.validateEmails(Arrays.asList("Tim.Horton@q.com", null, "@q.com", "", "a.b@c.de"));
+        assertEquals(5, valid.length());
+        assertEquals(2, valid.cardinality());
+        assertTrue(valid.get(0));
+        assertTrue(valid.get(4));
+    }
+
     private enum TestEnum {
         TEST_ENUM1, TEST_ENUM2
     }
@@ -161,6 +309,77 @@ public class StringUtilsTest {
         assertEquals(Arrays.asList(expcected), StringUtils.parseSeparatedList("  \n Element1 |Element2 | Element 3|Element 4   \n || | |", "|"));
     }
 
+    @Test
+    public void testParseSeparatedArrayMatchesRegex() {
+        Random random = new Random(42);
+        String alphabet = "ab|, \t\n\u000b\f\r\u00a0\u2003";
+        String[] separators = { "|", ",", "||", "a|", "| ", " |", "aa", ", " };
+        for (int i = 0; i < 5000; i++) {
+            String input = randomString(random, alphabet, 16);
+            String separator = separators[random.nextInt(separators.length)];
+            String[] expected = input.isEmpty()
+                    ? new String[0]
+                    : StringUtils.stripSurroundingWhiteSpace(input).split("\\s*" + Pattern.quote(separator) + "\\s*");
+            String message = "'" + input + "' split by '" + separator + "'";
+            assertArrayEquals(message, expected, StringUtils.parseSeparatedArray(input, separator));
+            assertEquals(message, Arrays.asList(expected), StringUtils.parseSeparatedList(input, separator));
+
+            List<String> iterated = new ArrayList<>();
+            for (CharSequence element : StringUtils.iterateSeparatedList(new StringBuilder(input), separator)) {
+                iterated.add(element.toString());
+            }
+            assertEquals(message, Arrays.asList(expected), iterated);
+        }
+    }
+
+    @Test
+    public void testParseSeparatedArrayKeepsEmptyElementWithoutSeparator() {
+        assertArrayEquals(new String[] { "" }, StringUtils.parseSeparatedArray(" \n ", "|"));
+        assertArrayEquals(new String[0], StringUtils.parseSeparatedArray(" | | ", "|"));
+        assertArrayEquals(new String[] { "", "a" }, StringUtils.parseSeparatedArray("|a||", "|"));
+    }
+
+    @Test
+    public void testParseSeparatedArrayWithManyElements() {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            sb.append(i).append(" , ");
+        }
+        String[] array = StringUtils.parseSeparatedArray(sb.toString(), ",");
+        assertEquals(1000, array.length);
+        assertEquals("999", array[999]);
+    }
+
+    @Test
+    public void testParseSeparatedListIntoReusedList() {
+        List<Object> out = new ArrayList<>();
+        out.add("existing");
+        assertEquals(2, StringUtils.parseSeparatedList(new StringBuilder(" a ; b "), ";", out));
+        assertEquals(Arrays.<Object>asList("existing", "a", "b"), out);
+        assertEquals(0, StringUtils.parseSeparatedList("", ";", out));
+        assertEquals(0, StringUtils.parseSeparatedList(null, ";", out));
+    }
+
+    @Test
+    public void testGetSeparatedOffsets() {
+        int[] offsets = new int[4];
+        assertEquals(3, StringUtils.getSeparatedOffsets(" ab | c|d ", "|", offsets));
+        assertArrayEquals(new int[] { 1, 3, 6, 7 }, offsets);
+        assertEquals(0, StringUtils.getSeparatedOffsets("", "|", offsets));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetSeparatedOffsetsEmptySeparator() {
+        StringUtils.getSeparatedOffsets("a", "", new int[2]);
+    }
+
+    @Test
+    public void testParseSeparatedArrayEmptySeparator() {
+        String input = " a b ";
+        assertArrayEquals(StringUtils.stripSurroundingWhiteSpace(input).split("\\s*\\Q\\E\\s*"),
+                          StringUtils.parseSeparatedArray(input, ""));
+    }
+
     @Test
     public void testSeparateItemsWith() {
         String expected = "Hello, This, is, my name";
@@ -168,6 +387,30 @@ public class StringUtilsTest {
     }
 
 
+    @Test
+    public void testSeparateItemsWithList() {
+        String expected = "Hello, This, is, my name";
+        List<CharSequence> items = Arrays.<CharSequence>asList("Hello", new StringBuilder("This"), null, "is", "", "my name");
+        assertEquals(expected, StringUtils.separateItemsWith(", ", items).toString());
+        assertEquals(expected, StringUtils.separateItemsWith(", ", new LinkedList<>(items)).toString());
+        assertEquals("", StringUtils.separateItemsWith(", ", Arrays.<CharSequence>asList(null, "")).toString());
+        assertEquals("a", StringUtils.separateItemsWith(", ", Arrays.<CharSequence>asList("", "a")).toString());
+    }
+
+    @Test
+    public void testAppendSeparatedItems() throws IOException {
+        StringBuilder sb = new StringBuilder("> ");
+        assertSame(sb, StringUtils.appendSeparatedItems(sb, ", ", "Hello", null, "", "World"));
+        assertEquals("> Hello, World", sb.toString());
+
+        StringUtils.appendSeparatedItems(sb, "-", new LinkedList<CharSequence>(Arrays.asList("a", "b")));
+        assertEquals("> Hello, Worlda-b", sb.toString());
+
+        StringWriter writer = new StringWriter();
+        StringUtils.appendSeparatedItems(writer, ", ", "Hello", null, "", "World");
+        assertEquals("Hello, World", writer.toString());
+    }
+
     @Test
     public void separateItemsAsStringsWith() {
         String expected = "10, Hello, This, is, my name";
@@ -254,6 +497,82 @@ public class StringUtilsTest {
         assertEquals("String1".indexOf('q', 2), StringUtils.indexOf("String1", 'q', 2));
     }
 
+    @Test
+    public void testBlockComparisonsMatchString() {
+        Random random = new Random(42);
+        for (int i = 0; i < 300; i++) {
+            String s1 = randomString(random, "ab\u00e9", 600);
+            String s2 = random.nextBoolean() ? s1 : mutate(random, s1, "ab\u00e9");
+            for (CharSequence cs1 : asCharSequences(s1)) {
+                for (CharSequence cs2 : asCharSequences(s2)) {
+                    assertEquals(s1.equals(s2), StringUtils.equals(cs1, cs2));
+                    assertEquals(Integer.signum(s1.compareTo(s2)), Integer.signum(StringUtils.compare(cs1, cs2)));
+                    assertEquals(s1.compareTo(s2), StringUtils.compare(cs1, cs2));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testCompareDifferentComparableTypes() {
+        assertEquals("abc".compareTo("abd"), StringUtils.compare(CharBuffer.wrap("abc"), "abd"));
+        assertEquals(0, StringUtils.compare(new StringBuilder("abc"), CharBuffer.wrap("abc".toCharArray())));
+    }
+
+    @Test
+    public void testIndexOfCharMatchesString() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200; i++) {
+            String s = randomString(random, "abcd", 1000);
+            int start = random.nextInt(s.length() + 1);
+            for (CharSequence cs : asCharSequences(s)) {
+                assertEquals(s.indexOf('d', start), StringUtils.indexOf(cs, 'd', start));
+            }
+        }
+    }
+
+    @Test
+    public void testIndexOfStringMatchesString() {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            String s = randomString(random, "ab\u0161\u0261", 3000);
+            String target = randomString(random, "ab\u0161\u0261", 8);
+            int start = random.nextInt(s.length() + 2) - 1;
+            for (CharSequence cs : asCharSequences(s)) {
+                assertEquals(s.indexOf(target, start), StringUtils.indexOf(cs, new StringBuilder(target), start));
+            }
+        }
+
+        String text = repeatString("ab", 2000) + "abc";
+        assertEquals(text.indexOf("abc"), StringUtils.indexOf(new StringBuilder(text), "abc"));
+        assertEquals(text.length(), StringUtils.indexOf(new StringBuilder(text), "", text.length() + 5));
+        assertEquals(-1, StringUtils.indexOf(new StringBuilder("ab"), "abc"));
+    }
+
+    @Test
+    public void testIndexOfAny() {
+        Random random = new Random(42);
+        BitSet set = new BitSet();
+        set.set('c');
+        set.set('\u4e2d');
+        for (int i = 0; i < 200; i++) {
+            String s = randomString(random, "abc\u4e2d", 1000);
+            int start = random.nextInt(s.length() + 1);
+            int expected = -1;
+            for (int j = start; j < s.length(); j++) {
+                if (s.charAt(j) == 'c' || s.charAt(j) == '\u4e2d') {
+                    expected = j;
+                    break;
+                }
+            }
+            for (CharSequence cs : asCharSequences(s)) {
+                assertEquals(expected, StringUtils.indexOfAny(cs, "\u4e2dc", start));
+                assertEquals(expected, StringUtils.indexOfAny(cs, set, start));
+            }
+        }
+        assertEquals(-1, StringUtils.indexOfAny("abc", "", 0));
+    }
+
     @Test
     public void testIS2StringSmall() throws Exception {
         final String expected = "This is the expected string.";
@@ -292,6 +611,112 @@ public class StringUtilsTest {
         assertEquals(expected, StringUtils.toString(is));
     }
 
+    @Test
+    public void testIS2StringMatchesInputStreamReader() throws Exception {
+        Random random = new Random(42);
+        String alphabet = "abc \n\u00e9\u05d0\u4e2d\ud83d\ude00";
+        Charset[] charsets = { Charset.forName("UTF-8"), Charset.forName("ISO-8859-1"),
+                Charset.forName("US-ASCII"), Charset.forName("UTF-16LE") };
+        for (int i = 0; i < 200; i++) {
+            String text = randomString(random, alphabet, 20000);
+            Charset charset = charsets[i % charsets.length];
+            byte[] bytes = text.getBytes(charset);
+            if (i % 5 == 0 && bytes.length > 0) {
+                // Malformed input
+                bytes[random.nextInt(bytes.length)] = (byte) 0xC3;
+            }
+            String expected = readWithInputStreamReader(bytes, charset);
+
+            assertEquals(expected, StringUtils.toString(new ByteArrayInputStream(bytes), charset, 0));
+            assertEquals(expected, StringUtils.toString(new ByteArrayInputStream(bytes), charset, 16));
+            assertEquals(expected, StringUtils.toString(new ByteArrayInputStream(bytes), charset, bytes.length));
+            assertEquals(expected, StringUtils.toString(ByteBuffer.wrap(bytes), charset));
+
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes).flip();
+            assertEquals(expected, StringUtils.toString(direct, charset));
+            assertEquals(0, direct.position());
+        }
+    }
+
+    @Test
+    public void testIS2StringSplitsCharactersAcrossReads() throws Exception {
+        final byte[] bytes = "a\u00e9\u4e2d\ud83d\ude00b".getBytes("UTF-8");
+        InputStream is = new InputStream() {
+            int pos;
+
+            @Override
+            public int read() {
+                return pos < bytes.length ? bytes[pos++] & 0xFF : -1;
+            }
+
+            @Override
+            public int read(@NonNull byte[] b, int off, int len) {
+                // One byte at a time, so that every multi-byte character is split
+                int c = read();
+                if (c < 0) {
+                    return -1;
+                }
+                b[off] = (byte) c;
+                return 1;
+            }
+        };
+        assertEquals("a\u00e9\u4e2d\ud83d\ude00b", StringUtils.toString(is));
+    }
+
+    @Test
+    public void testFileChannel2String() throws Exception {
+        File file = File.createTempFile("commonutils", ".txt");
+        try {
+            String text = "\u00e9t\u00e9 " + repeatString("0123456789", 5000);
+            FileOutputStream os = new FileOutputStream(file);
+            try {
+                os.write(text.getBytes("UTF-8"));
+            } finally {
+                os.close();
+            }
+
+            FileInputStream is = new FileInputStream(file);
+            try {
+                FileChannel channel = is.getChannel();
+                channel.position(2);
+                assertEquals(text.substring(1), StringUtils.toString(channel, Charset.forName("UTF-8")));
+            } finally {
+                is.close();
+            }
+        } finally {
+            assertTrue(file.delete());
+        }
+    }
+
+    private static String readWithInputStreamReader(byte[] bytes, Charset charset) throws IOException {
+        Reader reader = new InputStreamReader(new ByteArrayInputStream(bytes), charset);
+        StringBuilder sb = new StringBuilder();
+        char[] buffer = new char[1024];
+        int n;
+        while ((n = reader.read(buffer)) != -1) {
+            sb.append(buffer, 0, n);
+        }
+        return sb.toString();
+    }
+
+    private static List<CharSequence> asCharSequences(String s) {
+        CharBuffer direct = ByteBuffer.allocateDirect(s.length() * 2).asCharBuffer();
+        direct.put(s).flip();
+        CharBuffer offset = CharBuffer.wrap(("x" + s).toCharArray());
+        offset.position(1);
+        return Arrays.asList(s, new StringBuilder(s), new StringBuffer(s), CharBuffer.wrap(s), direct,
+                             offset.slice(), Rope.of(s), new WrappedCharSequence(s));
+    }
+
+    private static String repeatString(String s, int count) {
+        StringBuilder sb = new StringBuilder(s.length() * count);
+        for (int i = 0; i < count; i++) {
+            sb.append(s);
+        }
+        return sb.toString();
+    }
+
     @Test
     public void testLevenshteinEmptyString() throws Exception {
         assertEquals(0, StringUtils.getLevenshteinDistance("", ""));
@@ -344,4 +769,172 @@ public class StringUtilsTest {
         assertEquals(7, StringUtils.getLevenshteinDistance("java was neat", "scala is great"));
         assertEquals(31, StringUtils.getLevenshteinDistance("Wilhelmus van Nassouwe ben ick van Duytschen bloet", "William of Nassau am I of German1blood"));
     }
+
+    @Test
+    public void testLevenshteinMatchesFullDynamicProgramming() throws Exception {
+        Random random = new Random(42);
+        String alphabet = "abcab \u00e9\u4e2d";
+        for (int i = 0; i < 2000; i++) {
+            // Mix short strings (bit-parallel kernel) with long ones (banded kernel)
+            int maxLength = random.nextBoolean() ? 70 : 150;
+            String string1 = randomString(random, alphabet, maxLength);
+            String string2 = random.nextBoolean() ? mutate(random, string1, alphabet) : randomString(random, alphabet, maxLength);
+            int expected = referenceLevenshteinDistance(string1, string2);
+
+            assertEquals(expected, StringUtils.getLevenshteinDistance(string1, string2));
+            assertEquals(expected, StringUtils.getLevenshteinDistance(new StringBuilder(string2), string1));
+
+            int maxDistance = random.nextInt(expected + 3);
+            assertEquals(expected <= maxDistance ? expected : -1, StringUtils.getLevenshteinDistance(string1, string2, maxDistance));
+        }
+    }
+
+    @Test
+    public void testLevenshteinBounded() throws Exception {
+        assertEquals(3, StringUtils.getLevenshteinDistance("example", "samples", 3));
+        assertEquals(-1, StringUtils.getLevenshteinDistance("example", "samples", 2));
+        assertEquals(0, StringUtils.getLevenshteinDistance("", "", 0));
+        assertEquals(-1, StringUtils.getLevenshteinDistance("", "abc", 2));
+        assertEquals(31, StringUtils.getLevenshteinDistance("Wilhelmus van Nassouwe ben ick van Duytschen bloet", "William of Nassau am I of German1blood", Integer.MAX_VALUE));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testLevenshteinNegativeMaxDistance() throws Exception {
+        StringUtils.getLevenshteinDistance("a", "b", -1);
+    }
+
+    @Test
+    public void testLevenshteinDistances() throws Exception {
+        Random random = new Random(42);
+        String alphabet = "abcab \u00e9";
+        List<String> candidates = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            candidates.add(randomString(random, alphabet, i % 10 == 0 ? 100 : 12));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            for (String query : Arrays.asList("", "abcab", randomString(random, alphabet, 100))) {
+                int[] expected = new int[candidates.size()];
+                int[] expectedBounded = new int[candidates.size()];
+                for (int i = 0; i < candidates.size(); i++) {
+                    expected[i] = StringUtils.getLevenshteinDistance(query, candidates.get(i));
+                    expectedBounded[i] = StringUtils.getLevenshteinDistance(query, candidates.get(i), 4);
+                }
+
+                assertArrayEquals(expected, StringUtils.getLevenshteinDistances(query, candidates));
+                assertArrayEquals(expectedBounded, StringUtils.getLevenshteinDistances(query, candidates, 4, executor));
+                assertArrayEquals(expectedBounded, StringUtils.getLevenshteinDistances(query, new LinkedList<>(candidates), 4, null));
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testFindClosestMatches() throws Exception {
+        Random random = new Random(42);
+        List<String> candidates = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            candidates.add(randomString(random, "abcd", 10));
+        }
+
+        for (String query : Arrays.asList("abcd", "aaaaaaaa", "")) {
+            final int[] distances = new int[candidates.size()];
+            List<Integer> indices = new ArrayList<>();
+            for (int i = 0; i < candidates.size(); i++) {
+                distances[i] = StringUtils.getLevenshteinDistance(query, candidates.get(i));
+                indices.add(i);
+            }
+            Collections.sort(indices, new Comparator<Integer>() {
+                @Override
+                public int compare(Integer index1, Integer index2) {
+                    return distances[index1] != distances[index2] ? distances[index1] - distances[index2] : index1 - index2;
+                }
+            });
+
+            int[] expected = new int[25];
+            for (int i = 0; i < expected.length; i++) {
+                expected[i] = indices.get(i);
+            }
+            assertArrayEquals(expected, StringUtils.findClosestMatches(query, candidates, 25));
+            assertArrayEquals(expected, StringUtils.findClosestMatches(query, candidates, 25, null));
+        }
+
+        assertArrayEquals(new int[] { 1, 0 }, StringUtils.findClosestMatches("ab", Arrays.asList("xyz", "abc"), 5));
+        assertArrayEquals(new int[0], StringUtils.findClosestMatches("ab", Arrays.asList("xyz", "abc"), 0));
+    }
+
+    private static int referenceLevenshteinDistance(String string1, String string2) {
+        int[][] table = new int[string1.length() + 1][string2.length() + 1];
+        for (int i = 0; i <= string1.length(); i++) {
+            for (int j = 0; j <= string2.length(); j++) {
+                if (i == 0 || j == 0) {
+                    table[i][j] = i + j;
+                } else {
+                    int match = (string1.charAt(i - 1) == string2.charAt(j - 1)) ? 0 : 1;
+                    table[i][j] = Math.min(table[i - 1][j - 1] + match, Math.min(table[i - 1][j], table[i][j - 1]) + 1);
+                }
+            }
+        }
+        return table[string1.length()][string2.length()];
+    }
+
+    private static String mutate(Random random, String string, String alphabet) {
+        StringBuilder sb = new StringBuilder(string);
+        int edits = random.nextInt(6);
+        for (int i = 0; i < edits; i++) {
+            int idx = random.nextInt(sb.length() + 1);
+            char c = alphabet.charAt(random.nextInt(alphabet.length()));
+            if (idx < sb.length() && random.nextBoolean()) {
+                sb.setCharAt(idx, c);
+            } else if (idx < sb.length() && random.nextBoolean()) {
+                sb.deleteCharAt(idx);
+            } else {
+                sb.insert(idx, c);
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String randomString(Random random, String alphabet, int maxLength) {
+        int length = random.nextInt(maxLength + 1);
+        StringBuilder sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * A CharSequence without a bulk getChars().
+     */
+    private static final class WrappedCharSequence implements CharSequence {
+        private final String s;
+
+        WrappedCharSequence(String s) {
+            this.s = s;
+        }
+
+        @Override
+        public int length() {
+            return s.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            return s.charAt(index);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new WrappedCharSequence(s.substring(start, end));
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return s;
+        }
+    }
 }